@@ -0,0 +1,213 @@
+package com.miniml;
+
+import java.util.*;
+import com.miniml.expr.*;
+
+public class CallGraph {
+    private final Map<String, Set<String>> callees = new LinkedHashMap<>();
+
+    public CallGraph(List<Module.TopLevel.FnDecl> functions) {
+        Set<String> names = new HashSet<>();
+        for (Module.TopLevel.FnDecl fn : functions) {
+            names.add(fn.name());
+        }
+        for (Module.TopLevel.FnDecl fn : functions) {
+            Set<String> bound = new HashSet<>();
+            for (Module.Param param : fn.params()) {
+                bound.add(param.name());
+            }
+            Set<String> refs = callees.computeIfAbsent(fn.name(), k -> new LinkedHashSet<>());
+            collectReferences(fn.body(), bound, names::contains, refs);
+        }
+    }
+
+    public static CallGraph of(Module module) {
+        return of(module.declarations());
+    }
+
+    public static CallGraph of(List<Module.TopLevel> declarations) {
+        List<Module.TopLevel.FnDecl> functions = new ArrayList<>();
+        for (Module.TopLevel decl : declarations) {
+            if (decl instanceof Module.TopLevel.FnDecl fn) {
+                functions.add(fn);
+            }
+        }
+        return new CallGraph(functions);
+    }
+
+    public Set<String> callees(String name) {
+        return callees.getOrDefault(name, Set.of());
+    }
+
+    public boolean isRecursive(List<String> component) {
+        return component.size() > 1 || callees(component.get(0)).contains(component.get(0));
+    }
+
+    public List<List<String>> stronglyConnectedComponents() {
+        Tarjan tarjan = new Tarjan();
+        for (String name : callees.keySet()) {
+            if (!tarjan.index.containsKey(name)) {
+                tarjan.visit(name);
+            }
+        }
+        return tarjan.components;
+    }
+
+    private class Tarjan {
+        final Map<String, Integer> index = new HashMap<>();
+        final Map<String, Integer> lowLink = new HashMap<>();
+        final Deque<String> stack = new ArrayDeque<>();
+        final Set<String> onStack = new HashSet<>();
+        final List<List<String>> components = new ArrayList<>();
+
+        void visit(String name) {
+            index.put(name, index.size());
+            lowLink.put(name, index.get(name));
+            stack.push(name);
+            onStack.add(name);
+
+            for (String callee : callees(name)) {
+                if (!index.containsKey(callee)) {
+                    visit(callee);
+                    lowLink.put(name, Math.min(lowLink.get(name), lowLink.get(callee)));
+                } else if (onStack.contains(callee)) {
+                    lowLink.put(name, Math.min(lowLink.get(name), index.get(callee)));
+                }
+            }
+
+            if (lowLink.get(name).equals(index.get(name))) {
+                List<String> component = new ArrayList<>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(name));
+                List<String> ordered = new ArrayList<>();
+                for (String candidate : callees.keySet()) {
+                    if (component.contains(candidate)) {
+                        ordered.add(candidate);
+                    }
+                }
+                components.add(ordered);
+            }
+        }
+    }
+
+    static Set<String> references(Expr expr, Set<String> names) {
+        Set<String> refs = new LinkedHashSet<>();
+        collectReferences(expr, Set.of(), names::contains, refs);
+        return refs;
+    }
+
+    static Set<String> freeVariables(Module.TopLevel.FnDecl fn) {
+        Set<String> bound = new HashSet<>();
+        for (Module.Param param : fn.params()) {
+            bound.add(param.name());
+        }
+        Set<String> refs = new LinkedHashSet<>();
+        collectReferences(fn.body(), bound, name -> true, refs);
+        return refs;
+    }
+
+    private static void collectReferences(Expr expr, Set<String> bound, java.util.function.Predicate<String> names, Set<String> refs) {
+        switch (expr) {
+            case Var(String name) -> {
+                if (names.test(name) && !bound.contains(name)) {
+                    refs.add(name);
+                }
+            }
+            case App(Expr func, List<Expr> args) -> {
+                collectReferences(func, bound, names, refs);
+                for (Expr arg : args) {
+                    collectReferences(arg, bound, names, refs);
+                }
+            }
+            case BinOp(var op, Expr left, Expr right) -> {
+                collectReferences(left, bound, names, refs);
+                collectReferences(right, bound, names, refs);
+            }
+            case UnaryOp(var op, Expr operand) -> collectReferences(operand, bound, names, refs);
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                collectReferences(cond, bound, names, refs);
+                collectReferences(thenBranch, bound, names, refs);
+                collectReferences(elseBranch, bound, names, refs);
+            }
+            case Let(String name, Expr value, Expr body) -> {
+                collectReferences(value, bound, names, refs);
+                collectReferences(body, with(bound, List.of(name)), names, refs);
+            }
+            case LetRec(String name, List<String> params, Expr value, Expr body) -> {
+                Set<String> inner = with(bound, List.of(name));
+                collectReferences(value, with(inner, params), names, refs);
+                collectReferences(body, inner, names, refs);
+            }
+            case Lambda(List<String> params, Expr body) -> collectReferences(body, with(bound, params), names, refs);
+            case Cons(Expr head, Expr tail) -> {
+                collectReferences(head, bound, names, refs);
+                collectReferences(tail, bound, names, refs);
+            }
+            case ListLit(List<Expr> elements) -> {
+                for (Expr element : elements) {
+                    collectReferences(element, bound, names, refs);
+                }
+            }
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
+                collectReferences(scrutinee, bound, names, refs);
+                for (Match.MatchCase matchCase : cases) {
+                    List<String> patternVars = new ArrayList<>();
+                    collectPatternVars(matchCase.pattern(), patternVars);
+                    collectReferences(matchCase.body(), with(bound, patternVars), names, refs);
+                }
+            }
+            case Sequence(List<Expr> exprs) -> {
+                for (Expr e : exprs) {
+                    collectReferences(e, bound, names, refs);
+                }
+            }
+            case Print(Expr value) -> collectReferences(value, bound, names, refs);
+            case Constructor(String name, Optional<Expr> arg) -> {
+                if (arg.isPresent()) {
+                    collectReferences(arg.get(), bound, names, refs);
+                }
+            }
+            case StringInterp(List<Object> parts) -> {
+                for (Object part : parts) {
+                    if (part instanceof Expr e) {
+                        collectReferences(e, bound, names, refs);
+                    }
+                }
+            }
+            case JavaCall(String className, String methodName, List<Expr> args) -> {
+                for (Expr arg : args) {
+                    collectReferences(arg, bound, names, refs);
+                }
+            }
+            case JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) -> {
+                collectReferences(instance, bound, names, refs);
+                for (Expr arg : args) {
+                    collectReferences(arg, bound, names, refs);
+                }
+            }
+            default -> {}
+        }
+    }
+
+    static void collectPatternVars(Pattern pattern, List<String> vars) {
+        switch (pattern) {
+            case Pattern.Var(String name) -> vars.add(name);
+            case Pattern.Cons(Pattern head, Pattern tail) -> {
+                collectPatternVars(head, vars);
+                collectPatternVars(tail, vars);
+            }
+            case Pattern.Constructor(String name, Optional<Pattern> arg) -> arg.ifPresent(p -> collectPatternVars(p, vars));
+            default -> {}
+        }
+    }
+
+    static Set<String> with(Set<String> bound, List<String> names) {
+        Set<String> result = new HashSet<>(bound);
+        result.addAll(names);
+        return result;
+    }
+}
@@ -0,0 +1,388 @@
+package com.miniml;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import com.miniml.expr.*;
+import com.miniml.expr.Expr.Op;
+import com.miniml.runtime.ConsList;
+
+public final class ClosureCompiler {
+    @FunctionalInterface
+    public interface Node {
+        Object exec(Environment env);
+    }
+
+    public record Closure(int arity, Node body, Environment capturedEnv) {
+        public Object apply(Object[] args) {
+            if (args.length != arity) {
+                throw new RuntimeException("Function expects " + arity + " arguments but got " + args.length);
+            }
+            Environment callEnv = capturedEnv.frame(arity);
+            for (int i = 0; i < arity; i++) {
+                callEnv.store(i, args[i]);
+            }
+            return trampoline(body.exec(callEnv));
+        }
+    }
+
+    public record TailCall(Node body, Environment env) {
+    }
+
+    private final Map<Expr, Type> types;
+    private Environment globals;
+    private Resolution resolution;
+
+    public ClosureCompiler(Map<Expr, Type> types) {
+        this.types = types;
+    }
+
+    public Object run(Expr expr, Environment env) {
+        Resolution resolved = Resolver.resolve(expr, env);
+        Node node = compile(expr, env, resolved);
+        return node.exec(env.withResolution(resolved));
+    }
+
+    public Node compile(Expr expr, Environment env, Resolution resolved) {
+        this.globals = env;
+        this.resolution = resolved;
+        return compile(expr, false);
+    }
+
+    public static Object trampoline(Object result) {
+        while (result instanceof TailCall call) {
+            result = call.body().exec(call.env());
+        }
+        return result;
+    }
+
+    private Node compile(Expr expr) {
+        return compile(expr, false);
+    }
+
+    private Node compile(Expr expr, boolean tailPosition) {
+        return switch (expr) {
+            case IntLit(int value) -> constant(value);
+            case FloatLit(double value) -> constant(value);
+            case BoolLit(boolean value) -> constant(value);
+            case StringLit(String value) -> constant(value);
+            case com.miniml.expr.Unit u -> constant(Unit.INSTANCE);
+
+            case Var(String name) -> compileVar(expr, name);
+            case QualifiedVar q -> q::eval;
+
+            case BinOp(Op op, Expr left, Expr right) -> compileBinOp(op, left, right);
+
+            case UnaryOp(Expr.UnOp op, Expr operand) -> {
+                Node value = compile(operand);
+                if (op == Expr.UnOp.NOT) {
+                    yield env -> !(boolean) value.exec(env);
+                }
+                Type type = typeOf(operand);
+                if (type instanceof Type.TInt) {
+                    yield env -> -(int) value.exec(env);
+                }
+                if (type instanceof Type.TDouble) {
+                    yield env -> -(double) value.exec(env);
+                }
+                yield env -> UnaryOp.apply(op, value.exec(env));
+            }
+
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                Node c = compile(cond);
+                Node t = compile(thenBranch, tailPosition);
+                Node f = compile(elseBranch, tailPosition);
+                yield env -> (boolean) c.exec(env) ? t.exec(env) : f.exec(env);
+            }
+
+            case Sequence(List<Expr> exprs) -> {
+                Node[] nodes = compileAll(exprs);
+                if (nodes.length > 0) {
+                    nodes[nodes.length - 1] = compile(exprs.get(nodes.length - 1), tailPosition);
+                }
+                yield env -> {
+                    Object result = Unit.INSTANCE;
+                    for (Node node : nodes) {
+                        result = node.exec(env);
+                    }
+                    return result;
+                };
+            }
+
+            case Let(String name, Expr value, Expr body) -> {
+                Node v = compile(value);
+                Node b = compile(body, tailPosition);
+                yield env -> {
+                    Environment frame = env.frame(1);
+                    frame.store(0, v.exec(env));
+                    return b.exec(frame);
+                };
+            }
+
+            case LetRec(String name, List<String> params, Expr value, Expr body) -> {
+                int arity = params.size();
+                Node v = compile(value, true);
+                Node b = compile(body, tailPosition);
+                yield env -> {
+                    Environment frame = env.frame(1);
+                    frame.store(0, new Closure(arity, v, frame));
+                    return b.exec(frame);
+                };
+            }
+
+            case Lambda(List<String> params, Expr body) -> {
+                int arity = params.size();
+                Node b = compile(body, true);
+                yield env -> new Closure(arity, b, env);
+            }
+
+            case App(Expr func, List<Expr> args) -> new SpecializingNodes.AppNode(compile(func), compileAll(args), tailPosition);
+
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
+                Node s = compile(scrutinee);
+                Pattern[] patterns = new Pattern[cases.size()];
+                PatternMatcher[] matchers = new PatternMatcher[cases.size()];
+                Node[] bodies = new Node[cases.size()];
+                for (int i = 0; i < patterns.length; i++) {
+                    patterns[i] = cases.get(i).pattern();
+                    matchers[i] = PatternMatcher.compile(patterns[i], resolution);
+                    bodies[i] = compile(cases.get(i).body(), tailPosition);
+                }
+                yield new SpecializingNodes.MatchNode(s, patterns, matchers, bodies, (int) resolution.get(expr));
+            }
+
+            case Print(Expr value) -> {
+                Node v = compile(value);
+                yield env -> {
+                    System.out.println(v.exec(env));
+                    return Unit.INSTANCE;
+                };
+            }
+
+            case StringInterp(List<Object> parts) -> {
+                Object[] compiled = new Object[parts.size()];
+                for (int i = 0; i < compiled.length; i++) {
+                    compiled[i] = parts.get(i) instanceof Expr e ? compile(e) : parts.get(i);
+                }
+                yield env -> {
+                    StringBuilder result = new StringBuilder();
+                    for (Object part : compiled) {
+                        result.append(part instanceof Node node ? node.exec(env) : part);
+                    }
+                    return result.toString();
+                };
+            }
+
+            case ListLit(List<Expr> elements) -> {
+                Node[] nodes = compileAll(elements);
+                yield env -> {
+                    Object[] values = new Object[nodes.length];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = nodes[i].exec(env);
+                    }
+                    return ConsList.of(values);
+                };
+            }
+
+            case Cons(Expr head, Expr tail) -> {
+                Node h = compile(head);
+                Node t = compile(tail);
+                yield env -> {
+                    Object headValue = h.exec(env);
+                    if (!(t.exec(env) instanceof List<?> tailList)) {
+                        throw new RuntimeException("Cons tail must be a list");
+                    }
+                    return ConsList.cons(headValue, ConsList.fromList(tailList));
+                };
+            }
+
+            case Constructor(String name, Optional<Expr> arg) -> {
+                Node a = arg.isPresent() ? compile(arg.get()) : constant(null);
+                if (name.equals("Ok")) {
+                    yield env -> new Result.Ok<Object, Object>(a.exec(env));
+                }
+                if (name.equals("Error")) {
+                    yield env -> new Result.Error<Object, Object>(a.exec(env));
+                }
+                yield env -> {
+                    throw new RuntimeException("Unknown constructor: " + name);
+                };
+            }
+
+            case JavaCall(String className, String methodName, List<Expr> args) ->
+                compileJavaCall(globals.resolveJavaClass(className), methodName, compileAll(args), typesOf(args));
+
+            case JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) ->
+                new SpecializingNodes.JavaInstanceCallNode(methodName, compile(instance), compileAll(args), typesOf(args));
+
+            case JavaStaticField(String className, String fieldName) -> {
+                Optional<Field> field = JavaMembers.findClass(className).flatMap(c -> JavaMembers.field(c, fieldName));
+                if (field.isEmpty()) {
+                    yield expr::eval;
+                }
+                Field resolved = field.get();
+                yield env -> {
+                    try {
+                        return resolved.get(null);
+                    } catch (Exception e) {
+                        throw new RuntimeException("Java static field access failed: " + e.getMessage(), e);
+                    }
+                };
+            }
+        };
+    }
+
+    private Node compileVar(Expr var, String name) {
+        long address = resolution.get(var);
+        if (address == Resolution.UNRESOLVED) {
+            return env -> env.get(name);
+        }
+        int depth = Resolution.depth(address);
+        int slot = Resolution.slot(address);
+        return switch (depth) {
+            case 0 -> env -> env.load(slot);
+            case 1 -> env -> env.getParent().load(slot);
+            default -> env -> env.getAt(depth, slot);
+        };
+    }
+
+    private Node compileBinOp(Op op, Expr left, Expr right) {
+        Node l = compile(left);
+        Node r = compile(right);
+        if (op == Op.AND) {
+            return env -> (boolean) l.exec(env) && (boolean) r.exec(env);
+        }
+        if (op == Op.OR) {
+            return env -> (boolean) l.exec(env) || (boolean) r.exec(env);
+        }
+        Type leftType = typeOf(left);
+        Type rightType = typeOf(right);
+        if (leftType instanceof Type.TInt && rightType instanceof Type.TInt) {
+            return switch (op) {
+                case ADD -> env -> (int) l.exec(env) + (int) r.exec(env);
+                case SUB -> env -> (int) l.exec(env) - (int) r.exec(env);
+                case MUL -> env -> (int) l.exec(env) * (int) r.exec(env);
+                case DIV -> env -> (int) l.exec(env) / (int) r.exec(env);
+                case MOD -> env -> (int) l.exec(env) % (int) r.exec(env);
+                case EQ -> env -> (int) l.exec(env) == (int) r.exec(env);
+                case NE -> env -> (int) l.exec(env) != (int) r.exec(env);
+                case LT -> env -> (int) l.exec(env) < (int) r.exec(env);
+                case GT -> env -> (int) l.exec(env) > (int) r.exec(env);
+                case LE -> env -> (int) l.exec(env) <= (int) r.exec(env);
+                case GE -> env -> (int) l.exec(env) >= (int) r.exec(env);
+                default -> generic(op, l, r);
+            };
+        }
+        if (leftType instanceof Type.TDouble && rightType instanceof Type.TDouble) {
+            return switch (op) {
+                case ADD -> env -> (double) l.exec(env) + (double) r.exec(env);
+                case SUB -> env -> (double) l.exec(env) - (double) r.exec(env);
+                case MUL -> env -> (double) l.exec(env) * (double) r.exec(env);
+                case DIV -> env -> (double) l.exec(env) / (double) r.exec(env);
+                case LT -> env -> (double) l.exec(env) < (double) r.exec(env);
+                case GT -> env -> (double) l.exec(env) > (double) r.exec(env);
+                case LE -> env -> (double) l.exec(env) <= (double) r.exec(env);
+                case GE -> env -> (double) l.exec(env) >= (double) r.exec(env);
+                default -> generic(op, l, r);
+            };
+        }
+        if (leftType instanceof Type.TString && rightType instanceof Type.TString) {
+            return switch (op) {
+                case EQ -> env -> ((String) l.exec(env)).equals(r.exec(env));
+                case NE -> env -> !((String) l.exec(env)).equals(r.exec(env));
+                default -> generic(op, l, r);
+            };
+        }
+        return new SpecializingNodes.BinOpNode(op, l, r);
+    }
+
+    private static Node generic(Op op, Node l, Node r) {
+        return env -> BinOp.apply(op, l.exec(env), r.exec(env));
+    }
+
+    private static Node compileJavaCall(String className, String methodName, Node[] args, Type[] argTypes) {
+        Optional<Class<?>> found = JavaMembers.findClass(className);
+        if (found.isEmpty()) {
+            return env -> {
+                throw new RuntimeException("Java call failed: " + className);
+            };
+        }
+        Class<?> clazz = found.get();
+        if (methodName.equals("new")) {
+            List<JavaMembers.Member> constructors = JavaMembers.matching(JavaMembers.constructors(clazz, args.length), argTypes);
+            return env -> {
+                try {
+                    Object[] argArray = execAll(args, env);
+                    if (argArray.length == 0) {
+                        return clazz.getDeclaredConstructor().newInstance();
+                    }
+                    JavaMembers.Member constructor = JavaMembers.select(constructors, argArray).orElseThrow(() ->
+                        new RuntimeException("No matching constructor found for: " + className));
+                    return ((java.lang.reflect.Constructor<?>) constructor.executable()).newInstance(argArray);
+                } catch (Exception e) {
+                    throw new RuntimeException("Java call failed: " + e.getMessage(), e);
+                }
+            };
+        }
+        List<JavaMembers.Member> methods = JavaMembers.matching(JavaMembers.methods(clazz, methodName, args.length).stream()
+            .filter(JavaMembers.Member::isStatic)
+            .toList(), argTypes);
+        if (methods.isEmpty()) {
+            return env -> {
+                throw new RuntimeException("Java call failed: No matching static method found: " + className + "." + methodName);
+            };
+        }
+        if (methods.size() == 1) {
+            Method target = (Method) methods.get(0).executable();
+            return env -> {
+                try {
+                    return target.invoke(null, execAll(args, env));
+                } catch (Exception e) {
+                    throw new RuntimeException("Java call failed: " + e.getMessage(), e);
+                }
+            };
+        }
+        return env -> {
+            try {
+                Object[] argArray = execAll(args, env);
+                JavaMembers.Member method = JavaMembers.select(methods, argArray).orElseThrow(() ->
+                    new RuntimeException("No matching static method found: " + className + "." + methodName));
+                return ((Method) method.executable()).invoke(null, argArray);
+            } catch (Exception e) {
+                throw new RuntimeException("Java call failed: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    private Node[] compileAll(List<Expr> exprs) {
+        Node[] nodes = new Node[exprs.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compile(exprs.get(i));
+        }
+        return nodes;
+    }
+
+    private Type[] typesOf(List<Expr> exprs) {
+        Type[] result = new Type[exprs.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = typeOf(exprs.get(i));
+        }
+        return result;
+    }
+
+    private static Object[] execAll(Node[] nodes, Environment env) {
+        Object[] values = new Object[nodes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = nodes[i].exec(env);
+        }
+        return values;
+    }
+
+    private static Node constant(Object value) {
+        return env -> value;
+    }
+
+    private Type typeOf(Expr expr) {
+        return types != null ? types.get(expr) : null;
+    }
+}
@@ -20,11 +20,38 @@ public class Compiler {
     private int nextLocal = 0;
     private int labelCounter = 0;
     private List<String> imports = new ArrayList<>();
-    private final Map<Expr, Type> typeMap;
+    private Map<Expr, Type> typeMap;
     private final Map<String, Set<Type>> instantiations;
     private final Map<String, String> javaImports = new HashMap<>();
     private Map<String, Type> letRecTypes = new HashMap<>();
     private Set<String> topLevelFunctions = new HashSet<>();
+    private Map<String, TailCallTarget> tailCallTargets = Map.of();
+    private boolean inTailPosition = false;
+    private boolean mergeMutualRecursion = false;
+    private final Map<String, Module.TopLevel.FnDecl> typedFunctions = new HashMap<>();
+    private final Set<String> requestedMethods = new HashSet<>();
+    private final Deque<PendingMethod> pendingMethods = new ArrayDeque<>();
+    private Map<String, Type> typeSubstitution = Map.of();
+    private String localFunctionSuffix = "";
+    private final Map<String, Integer> localFunctionArities = new HashMap<>();
+    private final Map<String, List<String>> localFunctionCaptures = new HashMap<>();
+    private final Map<String, List<String>> constructorSiblings = new HashMap<>();
+    private final List<String> warnings = new ArrayList<>();
+    private int specializationBudget = 5000;
+    private int specializedSize = 0;
+    private boolean streaming = false;
+    private MethodVisitor staticInitializer;
+    private int staticInitializerLocals = 0;
+    
+    private record PendingMethod(Module.TopLevel.FnDecl fn, Type instantiationType) {}
+    
+    private record TailCallTarget(String name, List<Integer> slots, List<String> jvmTypes, Label entry) {}
+    
+    private record FunctionSignature(String methodName, List<String> paramTypes, String returnType) {
+        String descriptor() {
+            return "(" + String.join("", paramTypes) + ")" + returnType;
+        }
+    }
 
     public Compiler(String className) {
         this(className, new HashMap<>(), new HashMap<>());
@@ -37,6 +64,14 @@ public class Compiler {
         this.instantiations = instantiations;
     }
     
+    public void setMergeMutualRecursion(boolean mergeMutualRecursion) {
+        this.mergeMutualRecursion = mergeMutualRecursion;
+    }
+    
+    public void setSpecializationBudget(int specializationBudget) {
+        this.specializationBudget = specializationBudget;
+    }
+    
     public void setLetRecTypes(Map<String, Type> letRecTypes) {
         this.letRecTypes = letRecTypes;
     }
@@ -51,12 +86,14 @@ public class Compiler {
             return imported;
         }
         
-        try {
-            Class.forName("java.lang." + shortName);
+        if (JavaMembers.findClass("java.lang." + shortName).isPresent()) {
             return "java.lang." + shortName;
-        } catch (ClassNotFoundException e) {
-            return shortName;
         }
+        return shortName;
+    }
+
+    public List<String> getWarnings() {
+        return warnings;
     }
 
     public byte[] compileModule(Module module) {
@@ -66,17 +103,50 @@ public class Compiler {
         
         List<Module.TopLevel.LetDecl> letDecls = new ArrayList<>();
         
+        Set<String> overloaded = new HashSet<>();
+        for (Module.TopLevel decl : module.declarations()) {
+            if (decl instanceof Module.TopLevel.TypeDef(String typeName, List<String> typeParams, List<Module.Constructor> constructors)) {
+                List<String> names = constructors.stream().map(Module.Constructor::name).toList();
+                for (String name : names) {
+                    constructorSiblings.put(name, names);
+                }
+            }
+            if (decl instanceof Module.TopLevel.FnDecl fn && !topLevelFunctions.add(fn.name())) {
+                overloaded.add(fn.name());
+            }
+        }
+        for (Module.TopLevel decl : module.declarations()) {
+            if (decl instanceof Module.TopLevel.FnDecl fn && !overloaded.contains(fn.name()) && letRecTypes.containsKey(fn.name())) {
+                typedFunctions.put(fn.name(), fn);
+            }
+        }
+        Map<String, List<Module.TopLevel.FnDecl>> mergedGroups = mergeMutualRecursion ? findMergeableGroups(module) : Map.of();
+        Set<String> compiledGroupMembers = new HashSet<>();
+        
         for (Module.TopLevel decl : module.declarations()) {
             if (decl instanceof Module.TopLevel.FnDecl(String name, List<Module.Param> params, var returnType, Expr body)) {
-                topLevelFunctions.add(name);
-                Set<Type> types = instantiations.getOrDefault(name, Set.of());
-                if (types.isEmpty()) {
+                if (mergedGroups.containsKey(name)) {
+                    if (compiledGroupMembers.add(name)) {
+                        compileMergedGroup(mergedGroups.get(name));
+                        mergedGroups.get(name).forEach(member -> compiledGroupMembers.add(member.name()));
+                    }
+                    continue;
+                }
+                Module.TopLevel.FnDecl fn = typedFunctions.get(name);
+                if (fn == null) {
                     compileTopLevelFunction(name, params, body, null);
-                } else {
-                    for (Type type : types) {
-                        compileTopLevelFunction(name, params, body, type);
+                    continue;
+                }
+                Set<Type> types = hasTypeVars(letRecTypes.get(name)) ? instantiations.getOrDefault(name, Set.of()) : Set.of();
+                boolean needsGeneric = types.isEmpty();
+                for (Type type : types) {
+                    if (hasTypeVars(type) || requestSpecialization(fn, type) == null) {
+                        needsGeneric = true;
                     }
                 }
+                if (needsGeneric) {
+                    requestGeneric(fn);
+                }
             } else if (decl instanceof Module.TopLevel.LetDecl letDecl) {
                 letDecls.add(letDecl);
             } else if (decl instanceof Module.TopLevel.TypeDef(String typeName, List<String> typeParams, List<Module.Constructor> constructors)) {
@@ -87,19 +157,95 @@ public class Compiler {
             }
         }
         
-        if (!letDecls.isEmpty()) {
-            compileStaticInitializer(letDecls);
+        for (Module.TopLevel.LetDecl letDecl : letDecls) {
+            compileStaticField(letDecl);
         }
+        finishStaticInitializer();
         
         if (module.mainExpr() != null) {
             compileMainMethod(module.mainExpr());
         }
         
+        compilePendingMethods();
+        
+        compileConstructor();
+        
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+    
+    public void beginStreaming(List<String> imports) {
+        cw.visit(V17, ACC_PUBLIC, className, null, "java/lang/Object", null);
+        this.imports = imports;
+        this.streaming = true;
+    }
+    
+    public void compileDeclarations(List<Module.TopLevel> declarations, Map<Expr, Type> declarationTypes) {
+        this.typeMap = declarationTypes;
+        
+        Set<String> overloaded = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        for (Module.TopLevel decl : declarations) {
+            if (decl instanceof Module.TopLevel.FnDecl fn && (topLevelFunctions.contains(fn.name()) || !seen.add(fn.name()))) {
+                overloaded.add(fn.name());
+            }
+        }
+        
+        List<Module.TopLevel.FnDecl> typed = new ArrayList<>();
+        for (Module.TopLevel decl : declarations) {
+            switch (decl) {
+                case Module.TopLevel.FnDecl fn -> {
+                    topLevelFunctions.add(fn.name());
+                    if (!overloaded.contains(fn.name()) && letRecTypes.containsKey(fn.name())) {
+                        typedFunctions.put(fn.name(), fn);
+                        requestGeneric(fn);
+                        typed.add(fn);
+                    } else {
+                        typedFunctions.remove(fn.name());
+                        compileTopLevelFunction(fn.name(), fn.params(), fn.body(), null);
+                    }
+                }
+                case Module.TopLevel.LetDecl letDecl -> compileStaticField(letDecl);
+                case Module.TopLevel.TypeDef(String typeName, List<String> typeParams, List<Module.Constructor> constructors) -> {
+                    List<String> names = constructors.stream().map(Module.Constructor::name).toList();
+                    for (String name : names) {
+                        constructorSiblings.put(name, names);
+                    }
+                    generateSumTypeInterface(typeName);
+                    for (Module.Constructor ctor : constructors) {
+                        generateConstructorClass(ctor.name(), ctor.paramType().isPresent(), typeName);
+                    }
+                }
+            }
+        }
+        compilePendingMethods();
+        
+        for (Module.TopLevel.FnDecl fn : typed) {
+            if (typedFunctions.get(fn.name()) == fn) {
+                typedFunctions.put(fn.name(), new Module.TopLevel.FnDecl(fn.name(), fn.params(), fn.returnType(), null));
+            }
+        }
+    }
+    
+    public byte[] finishStreaming(Expr mainExpr, Map<Expr, Type> mainTypes) {
+        this.typeMap = mainTypes;
+        finishStaticInitializer();
+        if (mainExpr != null) {
+            compileMainMethod(mainExpr);
+        }
+        compilePendingMethods();
         compileConstructor();
         
         cw.visitEnd();
         return cw.toByteArray();
     }
+    
+    private void compilePendingMethods() {
+        while (!pendingMethods.isEmpty()) {
+            PendingMethod pending = pendingMethods.poll();
+            compileTopLevelFunction(pending.fn().name(), pending.fn().params(), pending.fn().body(), pending.instantiationType());
+        }
+    }
 
     public byte[] compile(Expr expr) {
         cw.visit(V17, ACC_PUBLIC, className, null, "java/lang/Object", null);
@@ -121,8 +267,54 @@ public class Compiler {
         localTypes.clear();
         nextLocal = 0;
         
+        FunctionSignature signature = topLevelSignature(name, params, body, instantiationType);
+        Map<String, Type> prevTypeSubstitution = typeSubstitution;
+        String prevLocalFunctionSuffix = localFunctionSuffix;
+        if (instantiationType != null && letRecTypes.containsKey(name)) {
+            Map<String, Type> bindings = new HashMap<>();
+            bindTypeVars(letRecTypes.get(name), instantiationType, bindings);
+            typeSubstitution = bindings;
+            localFunctionSuffix = signature.methodName().substring(name.length());
+        } else {
+            typeSubstitution = Map.of();
+            localFunctionSuffix = "";
+        }
+        for (int i = 0; i < params.size(); i++) {
+            String paramType = signature.paramTypes().get(i);
+            locals.put(params.get(i).name(), nextLocal);
+            nextLocal += paramType.equals("D") ? 2 : 1;
+            localTypes.put(params.get(i).name(), paramType);
+        }
+        
+        mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, signature.methodName(), signature.descriptor(), null, null);
+        mv.visitCode();
+
+        Map<String, TailCallTarget> prevTailCallTargets = tailCallTargets;
+        tailCallTargets = Map.of(name, beginTailCallTarget(name, params.stream().map(Module.Param::name).toList()));
+        inTailPosition = true;
+        compileExpr(body);
+        tailCallTargets = prevTailCallTargets;
+        
+        emitReturn(signature.returnType());
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        typeSubstitution = prevTypeSubstitution;
+        localFunctionSuffix = prevLocalFunctionSuffix;
+
+        mv = prevMv;
+        locals.clear();
+        locals.putAll(prevLocals);
+        localTypes.clear();
+        localTypes.putAll(prevLocalTypes);
+        nextLocal = prevNextLocal;
+    }
+    
+    private FunctionSignature topLevelSignature(String name, List<Module.Param> params, Expr body, Type instantiationType) {
         List<String> paramTypes = new ArrayList<>();
         Type currentType = instantiationType;
+        if (currentType == null && typedFunctions.containsKey(name)) {
+            currentType = letRecTypes.get(name);
+        }
         
         for (Module.Param param : params) {
             String paramType = "I";
@@ -132,9 +324,6 @@ public class Compiler {
             } else if (param.typeAnnotation().isPresent()) {
                 paramType = param.typeAnnotation().get().toJvmType();
             }
-            locals.put(param.name(), nextLocal);
-            nextLocal += paramType.equals("D") ? 2 : 1;
-            localTypes.put(param.name(), paramType);
             paramTypes.add(paramType);
         }
         
@@ -142,33 +331,305 @@ public class Compiler {
         if (currentType != null) {
             returnType = currentType.toJvmType();
         } else {
-            Type bodyType = typeMap.getOrDefault(body, new Type.TInt());
+            Type bodyType = typeOf(body, Type.INT);
             returnType = bodyType.toJvmType();
         }
         
         String methodName = name;
         if (instantiationType != null) {
-            methodName = name + "$" + getTypeSuffix(instantiationType);
+            methodName = name + "$" + mangle(instantiationType, params.size());
+        }
+        return new FunctionSignature(methodName, paramTypes, returnType);
+    }
+    
+    private FunctionSignature requestGeneric(Module.TopLevel.FnDecl fn) {
+        FunctionSignature signature = topLevelSignature(fn.name(), fn.params(), fn.body(), null);
+        if (requestedMethods.add(signature.methodName())) {
+            pendingMethods.add(new PendingMethod(fn, null));
         }
+        return signature;
+    }
+    
+    private FunctionSignature requestSpecialization(Module.TopLevel.FnDecl fn, Type instantiationType) {
+        FunctionSignature signature = topLevelSignature(fn.name(), fn.params(), fn.body(), instantiationType);
+        if (requestedMethods.contains(signature.methodName())) {
+            return signature;
+        }
+        int size = exprSize(fn.body());
+        if (specializedSize + size > specializationBudget) {
+            return null;
+        }
+        specializedSize += size;
+        requestedMethods.add(signature.methodName());
+        pendingMethods.add(new PendingMethod(fn, instantiationType));
+        return signature;
+    }
+    
+    private FunctionSignature topLevelTarget(Module.TopLevel.FnDecl fn, Type instantiationType) {
+        FunctionSignature target = null;
+        if (!streaming && hasTypeVars(letRecTypes.get(fn.name())) && !hasTypeVars(instantiationType)) {
+            target = requestSpecialization(fn, instantiationType);
+        }
+        return target != null ? target : requestGeneric(fn);
+    }
+    
+    private void compileTopLevelCall(Module.TopLevel.FnDecl fn, List<Expr> args, Type resultType) {
+        Type callType = resultType;
+        for (int i = args.size() - 1; i >= 0; i--) {
+            callType = Type.fun(typeOf(args.get(i), Type.INT), callType);
+        }
+        FunctionSignature target = topLevelTarget(fn, callType);
         
-        String descriptor = "(" + String.join("", paramTypes) + ")" + returnType;
-        mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, methodName, descriptor, null, null);
+        for (int i = 0; i < args.size(); i++) {
+            Expr arg = args.get(i);
+            compileExpr(arg);
+            coerceToJvmType(stackJvmType(arg), target.paramTypes().get(i), typeOf(arg, Type.INT));
+        }
+        mv.visitMethodInsn(INVOKESTATIC, className, target.methodName(), target.descriptor(), false);
+        coerceToJvmType(target.returnType(), resultType.toJvmType(), resultType);
+    }
+    
+    private String mangle(Type fnType, int arity) {
+        List<String> parts = new ArrayList<>();
+        Type current = fnType;
+        for (int i = 0; i < arity && current instanceof Type.TFun(Type param, Type result); i++) {
+            parts.add(mangleType(param));
+            current = result;
+        }
+        parts.add(mangleType(current));
+        return String.join("$", parts);
+    }
+    
+    private String mangleType(Type type) {
+        return switch (type) {
+            case Type.TInt() -> "Int";
+            case Type.TDouble() -> "Double";
+            case Type.TString() -> "String";
+            case Type.TBool() -> "Bool";
+            case Type.TUnit() -> "Unit";
+            case Type.TList(Type elem) -> "List_" + mangleType(elem);
+            case Type.TResult(Type ok, Type err) -> "Result_" + mangleType(ok) + "_" + mangleType(err);
+            case Type.TFun(Type param, Type result) -> "Fun_" + mangleType(param) + "_" + mangleType(result);
+            case Type.TName(String name) -> "Named" + name.length() + name;
+            case Type.TApp(String name, List<Type> args) ->
+                "App" + name.length() + name + args.size() + args.stream().map(arg -> "_" + mangleType(arg)).reduce("", String::concat);
+            case Type.TJava(String javaClass, List<Type> typeArgs) ->
+                "Java" + javaClass.length() + javaClass.replace('.', '-') + typeArgs.size()
+                    + typeArgs.stream().map(arg -> "_" + mangleType(arg)).reduce("", String::concat);
+            case Type.TScheme(var vars, Type inner) -> mangleType(inner);
+            default -> "Object";
+        };
+    }
+    
+    private Type typeOf(Expr expr) {
+        Type type = typeMap.get(expr);
+        return type == null ? null : substituteTypeVars(type);
+    }
+    
+    private Type typeOf(Expr expr, Type defaultType) {
+        Type type = typeOf(expr);
+        return type == null ? defaultType : type;
+    }
+    
+    private Type substituteTypeVars(Type type) {
+        if (type == null || typeSubstitution.isEmpty()) {
+            return type;
+        }
+        return switch (type) {
+            case Type.TVar(String name, int cell) -> typeSubstitution.getOrDefault(name, type);
+            case Type.TNumeric(String name, int cell) -> typeSubstitution.getOrDefault(name, type);
+            case Type.TFun(Type param, Type result) -> Type.fun(substituteTypeVars(param), substituteTypeVars(result));
+            case Type.TList(Type elem) -> Type.list(substituteTypeVars(elem));
+            case Type.TResult(Type ok, Type err) -> Type.result(substituteTypeVars(ok), substituteTypeVars(err));
+            case Type.TApp(String name, List<Type> args) -> new Type.TApp(name, args.stream().map(this::substituteTypeVars).toList());
+            case Type.TJava(String javaClass, List<Type> typeArgs) ->
+                new Type.TJava(javaClass, typeArgs.stream().map(this::substituteTypeVars).toList());
+            case Type.TScheme(List<String> vars, Type inner) -> new Type.TScheme(vars, substituteTypeVars(inner));
+            default -> type;
+        };
+    }
+    
+    private void bindTypeVars(Type generic, Type concrete, Map<String, Type> bindings) {
+        switch (generic) {
+            case Type.TVar(String name, int cell) -> bindings.putIfAbsent(name, concrete);
+            case Type.TNumeric(String name, int cell) -> bindings.putIfAbsent(name, concrete);
+            case Type.TFun(Type param, Type result) when concrete instanceof Type.TFun(Type cParam, Type cResult) -> {
+                bindTypeVars(param, cParam, bindings);
+                bindTypeVars(result, cResult, bindings);
+            }
+            case Type.TList(Type elem) when concrete instanceof Type.TList(Type cElem) -> bindTypeVars(elem, cElem, bindings);
+            case Type.TResult(Type ok, Type err) when concrete instanceof Type.TResult(Type cOk, Type cErr) -> {
+                bindTypeVars(ok, cOk, bindings);
+                bindTypeVars(err, cErr, bindings);
+            }
+            case Type.TApp(String name, List<Type> args) when concrete instanceof Type.TApp(String cName, List<Type> cArgs) && args.size() == cArgs.size() -> {
+                for (int i = 0; i < args.size(); i++) {
+                    bindTypeVars(args.get(i), cArgs.get(i), bindings);
+                }
+            }
+            default -> {}
+        }
+    }
+    
+    private static int exprSize(Expr expr) {
+        return 1 + switch (expr) {
+            case BinOp(Op op, Expr left, Expr right) -> exprSize(left) + exprSize(right);
+            case UnaryOp(UnOp op, Expr operand) -> exprSize(operand);
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> exprSize(cond) + exprSize(thenBranch) + exprSize(elseBranch);
+            case Let(String name, Expr value, Expr body) -> exprSize(value) + exprSize(body);
+            case LetRec(String name, List<String> params, Expr value, Expr body) -> exprSize(value) + exprSize(body);
+            case Lambda(List<String> params, Expr body) -> exprSize(body);
+            case App(Expr func, List<Expr> args) -> exprSize(func) + exprSizes(args);
+            case Sequence(List<Expr> exprs) -> exprSizes(exprs);
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) ->
+                exprSize(scrutinee) + cases.stream().mapToInt(c -> exprSize(c.body())).sum();
+            case Print(Expr value) -> exprSize(value);
+            case Cons(Expr head, Expr tail) -> exprSize(head) + exprSize(tail);
+            case ListLit(List<Expr> elements) -> exprSizes(elements);
+            case Constructor(String name, Optional<Expr> arg) -> arg.map(Compiler::exprSize).orElse(0);
+            case JavaCall(String javaClass, String methodName, List<Expr> args) -> exprSizes(args);
+            case JavaInstanceCall(String javaClass, String methodName, Expr instance, List<Expr> args) -> exprSize(instance) + exprSizes(args);
+            default -> 0;
+        };
+    }
+    
+    private static int exprSizes(List<Expr> exprs) {
+        return exprs.stream().mapToInt(Compiler::exprSize).sum();
+    }
+    
+    private String localFunctionMethod(String name) {
+        return "lambda_" + name + localFunctionSuffix;
+    }
+    
+    private Map<String, List<Module.TopLevel.FnDecl>> findMergeableGroups(Module module) {
+        Map<String, Module.TopLevel.FnDecl> byName = new HashMap<>();
+        Set<String> overloaded = new HashSet<>();
+        for (Module.TopLevel decl : module.declarations()) {
+            if (decl instanceof Module.TopLevel.FnDecl fn && byName.put(fn.name(), fn) != null) {
+                overloaded.add(fn.name());
+            }
+        }
+        
+        Map<String, List<Module.TopLevel.FnDecl>> groups = new HashMap<>();
+        for (List<String> component : CallGraph.of(module).stronglyConnectedComponents()) {
+            if (component.size() < 2) {
+                continue;
+            }
+            boolean mergeable = true;
+            Set<String> returnTypes = new HashSet<>();
+            for (String name : component) {
+                if (overloaded.contains(name) || letRecTypes.containsKey(name) && hasTypeVars(letRecTypes.get(name))) {
+                    mergeable = false;
+                    break;
+                }
+                Module.TopLevel.FnDecl fn = byName.get(name);
+                returnTypes.add(topLevelSignature(name, fn.params(), fn.body(), null).returnType());
+            }
+            if (mergeable && returnTypes.size() == 1) {
+                List<Module.TopLevel.FnDecl> members = component.stream().map(byName::get).toList();
+                for (String name : component) {
+                    groups.put(name, members);
+                }
+            }
+        }
+        return groups;
+    }
+    
+    private void compileMergedGroup(List<Module.TopLevel.FnDecl> members) {
+        MethodVisitor prevMv = mv;
+        Map<String, Integer> prevLocals = new HashMap<>(locals);
+        Map<String, String> prevLocalTypes = new HashMap<>(localTypes);
+        int prevNextLocal = nextLocal;
+        
+        List<FunctionSignature> signatures = new ArrayList<>();
+        List<String> dispatchParamTypes = new ArrayList<>(List.of("I"));
+        Map<String, TailCallTarget> targets = new HashMap<>();
+        List<TailCallTarget> memberTargets = new ArrayList<>();
+        int slot = 1;
+        for (Module.TopLevel.FnDecl member : members) {
+            FunctionSignature signature = topLevelSignature(member.name(), member.params(), member.body(), null);
+            signatures.add(signature);
+            dispatchParamTypes.addAll(signature.paramTypes());
+            List<Integer> slots = new ArrayList<>();
+            for (String paramType : signature.paramTypes()) {
+                slots.add(slot);
+                slot += paramType.equals("D") ? 2 : 1;
+            }
+            TailCallTarget target = new TailCallTarget(member.name(), slots, signature.paramTypes(), new Label());
+            targets.put(member.name(), target);
+            memberTargets.add(target);
+        }
+        
+        String returnType = signatures.get(0).returnType();
+        String dispatchName = String.join("$", members.stream().map(Module.TopLevel.FnDecl::name).toList()) + "$dispatch";
+        FunctionSignature dispatch = new FunctionSignature(dispatchName, dispatchParamTypes, returnType);
+        
+        mv = cw.visitMethod(ACC_PRIVATE | ACC_STATIC, dispatchName, dispatch.descriptor(), null, null);
         mv.visitCode();
-
-        compileExpr(body);
+        Label invalidState = new Label();
+        mv.visitVarInsn(ILOAD, 0);
+        mv.visitTableSwitchInsn(0, members.size() - 1, invalidState,
+            memberTargets.stream().map(TailCallTarget::entry).toArray(Label[]::new));
         
-        if (returnType.equals("D")) {
-            mv.visitInsn(DRETURN);
-        } else if (returnType.equals("V")) {
-            mv.visitInsn(RETURN);
-        } else if (returnType.startsWith("L")) {
-            mv.visitInsn(ARETURN);
-        } else {
-            mv.visitInsn(IRETURN);
+        Map<String, TailCallTarget> prevTailCallTargets = tailCallTargets;
+        for (int i = 0; i < members.size(); i++) {
+            Module.TopLevel.FnDecl member = members.get(i);
+            TailCallTarget target = memberTargets.get(i);
+            locals.clear();
+            localTypes.clear();
+            nextLocal = slot;
+            for (int p = 0; p < member.params().size(); p++) {
+                locals.put(member.params().get(p).name(), target.slots().get(p));
+                localTypes.put(member.params().get(p).name(), target.jvmTypes().get(p));
+            }
+            
+            mv.visitLabel(target.entry());
+            tailCallTargets = targets;
+            inTailPosition = true;
+            compileExpr(member.body());
+            emitReturn(returnType);
         }
+        tailCallTargets = prevTailCallTargets;
+        
+        mv.visitLabel(invalidState);
+        mv.visitTypeInsn(NEW, "java/lang/IllegalStateException");
+        mv.visitInsn(DUP);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalStateException", "<init>", "()V", false);
+        mv.visitInsn(ATHROW);
         mv.visitMaxs(0, 0);
         mv.visitEnd();
-
+        
+        for (int i = 0; i < members.size(); i++) {
+            FunctionSignature signature = signatures.get(i);
+            requestedMethods.add(signature.methodName());
+            mv = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, signature.methodName(), signature.descriptor(), null, null);
+            mv.visitCode();
+            mv.visitLdcInsn(i);
+            int ownSlot = 0;
+            for (int j = 0; j < members.size(); j++) {
+                for (String paramType : signatures.get(j).paramTypes()) {
+                    if (j == i) {
+                        switch (paramType) {
+                            case "I", "Z" -> mv.visitVarInsn(ILOAD, ownSlot);
+                            case "D" -> mv.visitVarInsn(DLOAD, ownSlot);
+                            default -> mv.visitVarInsn(ALOAD, ownSlot);
+                        }
+                        ownSlot += paramType.equals("D") ? 2 : 1;
+                    } else {
+                        switch (paramType) {
+                            case "I", "Z" -> mv.visitInsn(ICONST_0);
+                            case "D" -> mv.visitInsn(DCONST_0);
+                            default -> mv.visitInsn(ACONST_NULL);
+                        }
+                    }
+                }
+            }
+            mv.visitMethodInsn(INVOKESTATIC, className, dispatchName, dispatch.descriptor(), false);
+            emitReturn(returnType);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        
         mv = prevMv;
         locals.clear();
         locals.putAll(prevLocals);
@@ -177,33 +638,37 @@ public class Compiler {
         nextLocal = prevNextLocal;
     }
     
-    private void compileStaticInitializer(List<Module.TopLevel.LetDecl> letDecls) {
-        for (Module.TopLevel.LetDecl letDecl : letDecls) {
-            Type valueType = typeMap.getOrDefault(letDecl.value(), new Type.TInt());
-            String jvmType = valueType.toJvmType();
-            cw.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, letDecl.name(), jvmType, null, null).visitEnd();
+    private void emitReturn(String returnType) {
+        switch (returnType) {
+            case "I", "Z" -> mv.visitInsn(IRETURN);
+            case "D" -> mv.visitInsn(DRETURN);
+            case "V" -> mv.visitInsn(RETURN);
+            default -> mv.visitInsn(ARETURN);
         }
+    }
+    
+    private void compileStaticField(Module.TopLevel.LetDecl letDecl) {
+        Type valueType = typeOf(letDecl.value(), Type.INT);
+        String jvmType = valueType.toJvmType();
+        cw.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, letDecl.name(), jvmType, null, null).visitEnd();
         
         MethodVisitor prevMv = mv;
         Map<String, Integer> prevLocals = new HashMap<>(locals);
         Map<String, String> prevLocalTypes = new HashMap<>(localTypes);
         int prevNextLocal = nextLocal;
         
-        mv = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        if (staticInitializer == null) {
+            staticInitializer = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+            staticInitializer.visitCode();
+        }
+        mv = staticInitializer;
         locals.clear();
         localTypes.clear();
-        nextLocal = 0;
+        nextLocal = staticInitializerLocals;
         
-        mv.visitCode();
-        for (Module.TopLevel.LetDecl letDecl : letDecls) {
-            Type valueType = typeMap.getOrDefault(letDecl.value(), new Type.TInt());
-            String jvmType = valueType.toJvmType();
-            compileExpr(letDecl.value());
-            mv.visitFieldInsn(PUTSTATIC, className, letDecl.name(), jvmType);
-        }
-        mv.visitInsn(RETURN);
-        mv.visitMaxs(0, 0);
-        mv.visitEnd();
+        compileExpr(letDecl.value());
+        mv.visitFieldInsn(PUTSTATIC, className, letDecl.name(), jvmType);
+        staticInitializerLocals = nextLocal;
         
         mv = prevMv;
         locals.clear();
@@ -213,26 +678,16 @@ public class Compiler {
         nextLocal = prevNextLocal;
     }
     
-    private String getTypeSuffix(Type type) {
-        if (type instanceof Type.TFun(Type param, Type result)) {
-            String paramSuffix = switch (param) {
-                case Type.TInt() -> "Int";
-                case Type.TDouble() -> "Double";
-                case Type.TString() -> "String";
-                case Type.TBool() -> "Bool";
-                default -> "Generic";
-            };
-            return paramSuffix;
+    private void finishStaticInitializer() {
+        if (staticInitializer == null) {
+            return;
         }
-        return switch (type) {
-            case Type.TInt() -> "Int";
-            case Type.TDouble() -> "Double";
-            case Type.TString() -> "String";
-            case Type.TBool() -> "Bool";
-            default -> "Generic";
-        };
+        staticInitializer.visitInsn(RETURN);
+        staticInitializer.visitMaxs(0, 0);
+        staticInitializer.visitEnd();
+        staticInitializer = null;
     }
-
+    
     private void compileConstructor() {
         MethodVisitor constructor = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
         constructor.visitCode();
@@ -253,7 +708,7 @@ public class Compiler {
         
         compileExpr(expr);
 
-        Type exprType = typeMap.getOrDefault(expr, new Type.TUnit());
+        Type exprType = typeOf(expr, Type.UNIT);
         if (exprType instanceof Type.TUnit) {
             mv.visitInsn(POP);
         } else {
@@ -301,6 +756,8 @@ public class Compiler {
     }
 
     private void compileExpr(Expr expr) {
+        boolean tailPosition = inTailPosition;
+        inTailPosition = false;
         switch (expr) {
             case com.miniml.expr.Unit u -> mv.visitFieldInsn(GETSTATIC, "com/miniml/Unit", "INSTANCE", "Lcom/miniml/Unit;");
             
@@ -346,10 +803,10 @@ public class Compiler {
             case Print(Expr value) -> {
                 mv.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
                 compileExpr(value);
-                Type valueType = typeMap.getOrDefault(value, new Type.TInt());
+                Type valueType = typeOf(value, Type.INT);
                 if (value instanceof Var(String varName)) {
                     String jvmType = localTypes.getOrDefault(varName, "I");
-                    valueType = jvmType.equals("D") ? new Type.TDouble() : new Type.TInt();
+                    valueType = jvmType.equals("D") ? Type.DOUBLE : Type.INT;
                 }
                 if (value instanceof StringLit || value instanceof StringInterp) {
                     mv.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
@@ -362,21 +819,12 @@ public class Compiler {
             }
             
             case Var(String name) -> {
-                Integer local = locals.get(name);
-                if (local != null) {
-                    String type = localTypes.getOrDefault(name, "I");
-                    if (type.equals("D")) {
-                        mv.visitVarInsn(DLOAD, local);
-                    } else if (type.startsWith("L") || type.startsWith("[")) {
-                        mv.visitVarInsn(ALOAD, local);
-                    } else {
-                        mv.visitVarInsn(ILOAD, local);
-                    }
+                if (locals.containsKey(name)) {
+                    loadLocal(name);
                 } else if (letRecTypes.containsKey(name)) {
-                    Type funcType = letRecTypes.get(name);
-                    wrapFunctionAsObject(name, funcType);
+                    compileFunctionReference(name, typeOf(expr, substituteTypeVars(letRecTypes.get(name))));
                 } else {
-                    Type varType = typeMap.getOrDefault(expr, new Type.TInt());
+                    Type varType = typeOf(expr, Type.INT);
                     String jvmType = varType.toJvmType();
                     mv.visitFieldInsn(GETSTATIC, className, name, jvmType);
                 }
@@ -389,7 +837,7 @@ public class Compiler {
             
             case UnaryOp(UnOp op, Expr operand) -> {
                 compileExpr(operand);
-                Type operandType = typeMap.getOrDefault(operand, new Type.TInt());
+                Type operandType = typeOf(operand, Type.INT);
                 switch (op) {
                     case NEG -> {
                         if (operandType instanceof Type.TDouble) {
@@ -438,7 +886,7 @@ public class Compiler {
                     mv.visitLabel(endLabel);
                 } else {
                     compileExpr(left);
-                    Type leftType = typeMap.getOrDefault(left, new Type.TInt());
+                    Type leftType = typeOf(left, Type.INT);
                     
                     if (left instanceof Var(String varName) && localTypes.get(varName) != null && localTypes.get(varName).equals("Ljava/lang/Object;")) {
                         if (leftType instanceof Type.TInt) {
@@ -453,7 +901,7 @@ public class Compiler {
                     }
                     
                     compileExpr(right);
-                    Type rightType = typeMap.getOrDefault(right, new Type.TInt());
+                    Type rightType = typeOf(right, Type.INT);
                     
                     if (right instanceof Var(String varName) && localTypes.get(varName) != null && localTypes.get(varName).equals("Ljava/lang/Object;")) {
                         if (rightType instanceof Type.TInt) {
@@ -503,10 +951,12 @@ public class Compiler {
                 compileExpr(cond);
                 mv.visitJumpInsn(IFEQ, elseLabel);
                 
+                inTailPosition = tailPosition;
                 compileExpr(thenBranch);
                 mv.visitJumpInsn(GOTO, endLabel);
                 
                 mv.visitLabel(elseLabel);
+                inTailPosition = tailPosition;
                 compileExpr(elseBranch);
                 
                 mv.visitLabel(endLabel);
@@ -515,9 +965,9 @@ public class Compiler {
             case Let(String name, Expr value, Expr body) -> {
                 compileExpr(value);
                 
-                Type valueType = typeMap.get(value);
+                Type valueType = typeOf(value);
                 if (valueType == null) {
-                    valueType = new Type.TInt();
+                    valueType = Type.INT;
                 }
                 String jvmType = valueType.toJvmType();
                 
@@ -536,29 +986,39 @@ public class Compiler {
                     nextLocal += 1;
                 }
                 
+                inTailPosition = tailPosition;
                 compileExpr(body);
                 freeLocal(name);
             }
             
             case LetRec letRec -> {
-                String methodName = "lambda_" + letRec.name();
-                compileLambdaMethodFromLetRec(methodName, letRec);
+                String methodName = localFunctionMethod(letRec.name());
+                localFunctionArities.put(letRec.name(), letRec.params().size());
+                List<String> captured = capturedBy(new Lambda(letRec.params(), letRec.value()), letRec.name());
+                localFunctionCaptures.put(letRec.name(), captured);
+                compileLambdaMethodFromLetRec(methodName, captured, letRec);
+                inTailPosition = tailPosition;
                 compileExpr(letRec.body());
             }
             
             case Lambda(List<String> params, Expr lambdaBody) -> {
                 String methodName = "lambda_" + (labelCounter++);
-                compileLambdaMethod(methodName, params, lambdaBody);
-                
-                Type lambdaType = typeMap.getOrDefault(expr, new Type.TFun(new Type.TInt(), new Type.TInt()));
-                wrapLambdaAsObject(methodName, lambdaType);
+                Type lambdaType = typeOf(expr, Type.fun(Type.INT, Type.INT));
+                List<String> captured = capturedBy(expr, null);
+                FunctionSignature signature = compileLambdaMethod(methodName, captured, params, lambdaBody, lambdaType);
+                emitFunctionValue(signature, captured);
             }
             
             case App(Expr func, List<Expr> args) -> {
+                TailCallTarget tailCallTarget = tailPosition ? tailCallTargetFor(func, args) : null;
+                if (tailCallTarget != null) {
+                    compileTailCall(tailCallTarget, args);
+                    return;
+                }
                 if (func instanceof Var(String funcName)) {
                     if ("box".equals(funcName) && args.size() == 1) {
                         compileExpr(args.get(0));
-                        Type argType = typeMap.getOrDefault(args.get(0), new Type.TInt());
+                        Type argType = typeOf(args.get(0), Type.INT);
                         switch (argType) {
                             case Type.TInt i -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
                             case Type.TDouble d -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;", false);
@@ -570,30 +1030,46 @@ public class Compiler {
                     
                     if (locals.containsKey(funcName) && localTypes.get(funcName).equals("Ljava/lang/Object;")) {
                         if (args.size() == 1) {
-                            mv.visitVarInsn(ALOAD, locals.get(funcName));
-                            compileExpr(args.get(0));
-                            Type argType = typeMap.getOrDefault(args.get(0), new Type.TInt());
-                            boxIfPrimitive(argType);
-                            mv.visitMethodInsn(INVOKEINTERFACE, "java/util/function/Function", "apply", "(Ljava/lang/Object;)Ljava/lang/Object;", true);
-                            
-                            Type resultType = typeMap.getOrDefault(expr, new Type.TInt());
-                            insertCastIfNeeded(resultType);
-                            return;
+                            compileFunctionValueCall(func, args.get(0), expr);
                         } else {
-                            throw new RuntimeException("Multi-arg function application via Function interface not yet supported");
+                            compileFunctionValueCallN(func, args, expr);
                         }
+                        return;
+                    }
+                    
+                    Module.TopLevel.FnDecl topLevelFn = typedFunctions.get(funcName);
+                    if (topLevelFn != null && !locals.containsKey(funcName)) {
+                        int arity = topLevelFn.params().size();
+                        if (args.size() == arity) {
+                            compileTopLevelCall(topLevelFn, args, typeOf(expr, Type.INT));
+                        } else if (args.size() < arity) {
+                            compileExpr(func);
+                            applyFunctionValue(args, typeOf(expr, Type.INT));
+                        } else {
+                            Type resultType = typeOf(func, letRecTypes.get(funcName));
+                            for (int i = 0; i < arity && resultType instanceof Type.TFun(Type param, Type result); i++) {
+                                resultType = result;
+                            }
+                            compileTopLevelCall(topLevelFn, args.subList(0, arity), resultType);
+                            applyFunctionValue(args.subList(arity, args.size()), typeOf(expr, Type.INT));
+                        }
+                        return;
                     }
                     
-                    Type funcType = letRecTypes.get(funcName);
+                    Type funcType = topLevelFunctions.contains(funcName) ? letRecTypes.get(funcName) : substituteTypeVars(letRecTypes.get(funcName));
                     boolean isPolymorphic = funcType != null && hasTypeVars(funcType);
                     
                     List<String> argTypeDescs = new ArrayList<>();
-                    List<Type> argTypes = new ArrayList<>();
+                    if (!topLevelFunctions.contains(funcName)) {
+                        for (String name : localFunctionCaptures.getOrDefault(funcName, List.of())) {
+                            loadLocal(name);
+                            argTypeDescs.add(localTypes.getOrDefault(name, "I"));
+                        }
+                    }
                     
                     Type currentFuncType = funcType;
                     for (Expr arg : args) {
-                        Type argType = typeMap.getOrDefault(arg, new Type.TInt());
-                        argTypes.add(argType);
+                        Type argType = typeOf(arg, Type.INT);
                         
                         compileExpr(arg);
                         
@@ -613,44 +1089,24 @@ public class Compiler {
                     String methodName;
                     String returnType;
                     
-                    Type appType = typeMap.getOrDefault(expr, new Type.TInt());
+                    Type appType = typeOf(expr, Type.INT);
                     
-                    if (instantiations.containsKey(funcName) && !instantiations.get(funcName).isEmpty()) {
-                        Type firstArgType = argTypes.isEmpty() ? new Type.TInt() : argTypes.get(0);
-                        returnType = firstArgType.toJvmType();
-                        
-                        Type reconstructedType = firstArgType;
-                        for (int i = argTypes.size() - 1; i >= 0; i--) {
-                            reconstructedType = new Type.TFun(argTypes.get(i), reconstructedType);
-                        }
-                        
-                        String suffix = getTypeSuffix(reconstructedType);
-                        methodName = funcName + "$" + suffix;
-                    } else if (funcType != null) {
-                        if (topLevelFunctions.contains(funcName)) {
-                            methodName = funcName;
-                        } else {
-                            methodName = "lambda_" + funcName;
-                        }
-                        if (isPolymorphic && currentFuncType != null && isTypeVar(currentFuncType)) {
-                            returnType = "Ljava/lang/Object;";
-                        } else {
-                            returnType = appType.toJvmType();
-                        }
+                    if (funcType != null && topLevelFunctions.contains(funcName)) {
+                        methodName = funcName;
                     } else {
-                        methodName = "lambda_" + funcName;
-                        if (isPolymorphic && currentFuncType != null && isTypeVar(currentFuncType)) {
-                            returnType = "Ljava/lang/Object;";
-                        } else {
-                            returnType = appType.toJvmType();
-                        }
+                        methodName = localFunctionMethod(funcName);
+                    }
+                    if (isPolymorphic && currentFuncType != null && isTypeVar(currentFuncType)) {
+                        returnType = "Ljava/lang/Object;";
+                    } else {
+                        returnType = appType.toJvmType();
                     }
                     
                     String descriptor = "(" + String.join("", argTypeDescs) + ")" + returnType;
                     mv.visitMethodInsn(INVOKESTATIC, className, methodName, descriptor, false);
                     
                     if (isPolymorphic) {
-                        Type resultType = typeMap.getOrDefault(expr, new Type.TInt());
+                        Type resultType = typeOf(expr, Type.INT);
                         if (returnType.equals("Ljava/lang/Object;")) {
                             insertCastIfNeeded(resultType);
                         }
@@ -659,11 +1115,11 @@ public class Compiler {
                     List<String> argTypeDescs = new ArrayList<>();
                     for (Expr arg : args) {
                         compileExpr(arg);
-                        Type argType = typeMap.getOrDefault(arg, new Type.TInt());
+                        Type argType = typeOf(arg, Type.INT);
                         argTypeDescs.add(argType.toJvmType());
                     }
                     
-                    Type appType = typeMap.getOrDefault(expr, new Type.TInt());
+                    Type appType = typeOf(expr, Type.INT);
                     String returnTypeDesc = appType.toJvmType();
                     String descriptor = "(" + String.join("", argTypeDescs) + ")" + returnTypeDesc;
                     mv.visitMethodInsn(INVOKESTATIC, moduleName, memberName, descriptor, false);
@@ -674,6 +1130,7 @@ public class Compiler {
             
             case Sequence(List<Expr> exprs) -> {
                 for (int i = 0; i < exprs.size(); i++) {
+                    inTailPosition = tailPosition && i == exprs.size() - 1;
                     compileExpr(exprs.get(i));
                     if (i < exprs.size() - 1) {
                         mv.visitInsn(POP);
@@ -687,7 +1144,7 @@ public class Compiler {
                 List<Expr> args = javaCall.args();
                 
                 String actualClassName = resolveJavaClassName(className);
-                Type javaCallType = typeMap.get(javaCall);
+                Type javaCallType = typeOf(javaCall);
                 if (javaCallType instanceof Type.TJava(String fullName, List<Type> typeArgs)) {
                     actualClassName = fullName;
                 }
@@ -716,7 +1173,7 @@ public class Compiler {
             case JavaInstanceCall javaInstanceCall -> {
                 compileExpr(javaInstanceCall.instance());
                 
-                Type instanceType = typeMap.getOrDefault(javaInstanceCall.instance(), new Type.TInt());
+                Type instanceType = typeOf(javaInstanceCall.instance(), Type.INT);
                 
                 for (Expr arg : javaInstanceCall.args()) {
                     compileExpr(arg);
@@ -730,29 +1187,19 @@ public class Compiler {
             
             case JavaStaticField(String className, String fieldName) -> {
                 String jvmClassName = className.replace('.', '/');
-                Type fieldType = typeMap.getOrDefault(expr, new Type.TInt());
+                Type fieldType = typeOf(expr, Type.INT);
                 String descriptor = fieldType.toJvmType();
                 mv.visitFieldInsn(GETSTATIC, jvmClassName, fieldName, descriptor);
             }
             
             case ListLit(List<Expr> elements) -> {
-                mv.visitTypeInsn(NEW, "java/util/ArrayList");
-                mv.visitInsn(DUP);
-                mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
-                
+                Type primitiveElem = primitiveListElement(typeOf(expr));
                 for (Expr elem : elements) {
-                    mv.visitInsn(DUP);
-                    compileExpr(elem);
-                    Type elemType = typeMap.getOrDefault(elem, new Type.TInt());
-                    if (elemType instanceof Type.TInt) {
-                        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
-                    } else if (elemType instanceof Type.TDouble) {
-                        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;", false);
-                    } else if (elemType instanceof Type.TBool) {
-                        mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
-                    }
-                    mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
-                    mv.visitInsn(POP);
+                    compileListElement(elem, primitiveElem);
+                }
+                mv.visitFieldInsn(GETSTATIC, "com/miniml/runtime/ConsList", "NIL", "Lcom/miniml/runtime/ConsList;");
+                for (int i = 0; i < elements.size(); i++) {
+                    emitListCons(primitiveElem);
                 }
             }
             
@@ -762,7 +1209,7 @@ public class Compiler {
                 mv.visitInsn(DUP);
                 if (arg.isPresent()) {
                     compileExpr(arg.get());
-                    Type argType = typeMap.getOrDefault(arg.get(), new Type.TInt());
+                    Type argType = typeOf(arg.get(), Type.INT);
                     boxIfNeeded(argType);
                     mv.visitMethodInsn(INVOKESPECIAL, className, "<init>", "(Ljava/lang/Object;)V", false);
                 } else {
@@ -771,196 +1218,279 @@ public class Compiler {
             }
             
             case Cons(Expr head, Expr tail) -> {
-                mv.visitTypeInsn(NEW, "java/util/ArrayList");
-                mv.visitInsn(DUP);
-                mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
-                
-                mv.visitInsn(DUP);
-                compileExpr(head);
-                Type headType = typeMap.getOrDefault(head, new Type.TInt());
-                if (headType instanceof Type.TInt) {
-                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
-                } else if (headType instanceof Type.TDouble) {
-                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;", false);
-                } else if (headType instanceof Type.TBool) {
-                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
-                }
-                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
-                mv.visitInsn(POP);
-                
-                mv.visitInsn(DUP);
+                Type primitiveElem = primitiveListElement(typeOf(expr));
+                compileListElement(head, primitiveElem);
                 compileExpr(tail);
-                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "addAll", "(Ljava/util/Collection;)Z", true);
-                mv.visitInsn(POP);
+                if (!inferType(tail).equals("Lcom/miniml/runtime/ConsList;")) {
+                    mv.visitTypeInsn(CHECKCAST, "com/miniml/runtime/ConsList");
+                }
+                emitListCons(primitiveElem);
             }
             
             case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
-                compileExpr(scrutinee);
-                int scrutineeLocal = allocLocal("$scrutinee");
-                mv.visitVarInsn(ASTORE, scrutineeLocal);
-                String scrutineeJvmType = inferType(scrutinee);
-                localTypes.put("$scrutinee", scrutineeJvmType);
+                DecisionTree tree = DecisionTree.build(cases.stream().map(Match.MatchCase::pattern).toList(), constructorSiblings::get);
+                Set<Integer> reachable = tree.reachableArms();
+                for (int i = 0; i < cases.size(); i++) {
+                    if (!reachable.contains(i)) {
+                        warnings.add("Unreachable match case: " + cases.get(i).pattern());
+                    }
+                }
+                if (!tree.isExhaustive()) {
+                    warnings.add("Non-exhaustive match on " + typeOf(scrutinee, Type.INT));
+                }
                 
-                Label endLabel = new Label();
                 int savedNextLocal = nextLocal;
+                Type scrutineeType = typeOf(scrutinee, Type.INT);
+                String scrutineeJvmType = stackJvmType(scrutinee);
+                Map<DecisionTree.Occurrence, Integer> slots = new HashMap<>();
+                Map<DecisionTree.Occurrence, Type> occurrenceTypes = new HashMap<>();
+                if (scrutinee instanceof Var(String name) && locals.containsKey(name)
+                        && (!(scrutineeType instanceof Type.TList) || scrutineeJvmType.equals("Lcom/miniml/runtime/ConsList;"))) {
+                    slots.put(DecisionTree.Occurrence.ROOT, locals.get(name));
+                    occurrenceTypes.put(DecisionTree.Occurrence.ROOT, scrutineeJvmType.equals(scrutineeType.toJvmType()) ? scrutineeType : jvmTypeToType(scrutineeJvmType));
+                } else {
+                    compileExpr(scrutinee);
+                    if (scrutineeType instanceof Type.TList && !scrutineeJvmType.equals("Lcom/miniml/runtime/ConsList;")) {
+                        mv.visitTypeInsn(CHECKCAST, "com/miniml/runtime/ConsList");
+                        scrutineeJvmType = "Lcom/miniml/runtime/ConsList;";
+                    }
+                    storeOccurrence(DecisionTree.Occurrence.ROOT, scrutineeType, scrutineeJvmType, slots, occurrenceTypes);
+                }
                 
+                Label[] armLabels = new Label[cases.size()];
                 for (int i = 0; i < cases.size(); i++) {
-                    Match.MatchCase matchCase = cases.get(i);
-                    Label nextCaseLabel = (i < cases.size() - 1) ? new Label() : null;
-                    
+                    armLabels[i] = new Label();
+                }
+                Map<Integer, Map<String, DecisionTree.Occurrence>> armBindings = new HashMap<>();
+                emitDecisionTree(tree, slots, occurrenceTypes, armLabels, armBindings);
+                
+                Label endLabel = new Label();
+                int armNextLocal = nextLocal;
+                for (int i = 0; i < cases.size(); i++) {
+                    if (!reachable.contains(i)) {
+                        continue;
+                    }
                     Map<String, Integer> savedLocals = new HashMap<>(locals);
                     Map<String, String> savedLocalTypes = new HashMap<>(localTypes);
-                    nextLocal = savedNextLocal;
+                    nextLocal = armNextLocal;
                     
-                    compilePattern(matchCase.pattern(), scrutinee, scrutineeLocal, nextCaseLabel, endLabel);
-                    compileExpr(matchCase.body());
+                    mv.visitLabel(armLabels[i]);
+                    for (Map.Entry<String, DecisionTree.Occurrence> binding : armBindings.get(i).entrySet()) {
+                        locals.put(binding.getKey(), slots.get(binding.getValue()));
+                        localTypes.put(binding.getKey(), occurrenceJvmType(occurrenceTypes.get(binding.getValue())));
+                    }
+                    inTailPosition = tailPosition;
+                    compileExpr(cases.get(i).body());
                     mv.visitJumpInsn(GOTO, endLabel);
                     
                     locals.clear();
                     locals.putAll(savedLocals);
                     localTypes.clear();
                     localTypes.putAll(savedLocalTypes);
-                    
-                    if (nextCaseLabel != null) {
-                        mv.visitLabel(nextCaseLabel);
-                    }
                 }
                 
                 nextLocal = savedNextLocal;
                 mv.visitLabel(endLabel);
-                freeLocal("$scrutinee");
             }
         }
     }
     
-    private void compilePattern(Pattern pattern, Expr scrutinee, int scrutineeLocal, Label failLabel, Label endLabel) {
-        switch (pattern) {
-            case Pattern.Wildcard() -> {
+    private void emitDecisionTree(DecisionTree tree, Map<DecisionTree.Occurrence, Integer> slots, Map<DecisionTree.Occurrence, Type> occurrenceTypes,
+                                  Label[] armLabels, Map<Integer, Map<String, DecisionTree.Occurrence>> armBindings) {
+        switch (tree) {
+            case DecisionTree.Leaf(int arm, Map<String, DecisionTree.Occurrence> bindings) -> {
+                armBindings.putIfAbsent(arm, bindings);
+                mv.visitJumpInsn(GOTO, armLabels[arm]);
             }
             
-            case Pattern.Var(String name) -> {
-                mv.visitVarInsn(ALOAD, scrutineeLocal);
-                int varLocal = allocLocal(name);
-                mv.visitVarInsn(ASTORE, varLocal);
-                localTypes.put(name, "Ljava/util/List;");
-            }
-            
-            case Pattern.IntLit(int value) -> {
-                mv.visitVarInsn(ALOAD, scrutineeLocal);
-                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "isEmpty", "()Z", true);
-                if (failLabel != null) {
-                    mv.visitJumpInsn(IFNE, failLabel);
-                }
-                
-                mv.visitVarInsn(ALOAD, scrutineeLocal);
-                mv.visitInsn(ICONST_0);
-                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
-                mv.visitTypeInsn(CHECKCAST, "java/lang/Integer");
-                mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
-                mv.visitLdcInsn(value);
-                if (failLabel != null) {
-                    mv.visitJumpInsn(IF_ICMPNE, failLabel);
-                }
+            case DecisionTree.Fail() -> {
+                mv.visitTypeInsn(NEW, "java/lang/RuntimeException");
+                mv.visitInsn(DUP);
+                mv.visitLdcInsn("Match failure");
+                mv.visitMethodInsn(INVOKESPECIAL, "java/lang/RuntimeException", "<init>", "(Ljava/lang/String;)V", false);
+                mv.visitInsn(ATHROW);
             }
             
-            case Pattern.Nil() -> {
-                mv.visitVarInsn(ALOAD, scrutineeLocal);
-                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "isEmpty", "()Z", true);
-                if (failLabel != null) {
-                    mv.visitJumpInsn(IFEQ, failLabel);
+            case DecisionTree.Switch(DecisionTree.Occurrence occurrence, List<DecisionTree.Branch> branches, DecisionTree fallback) -> {
+                int slot = slots.get(occurrence);
+                Type type = occurrenceTypes.get(occurrence);
+                String jvmType = occurrenceJvmType(type);
+                switch (branches.get(0).head()) {
+                    case Pattern.Nil n -> emitListSwitch(occurrence, slot, type, jvmType, branches, fallback, slots, occurrenceTypes, armLabels, armBindings);
+                    case Pattern.Cons c -> emitListSwitch(occurrence, slot, type, jvmType, branches, fallback, slots, occurrenceTypes, armLabels, armBindings);
+                    case Pattern.BoolLit b -> {
+                        loadOccurrence(slot, jvmType, "Z");
+                        Label falseLabel = new Label();
+                        mv.visitJumpInsn(IFEQ, falseLabel);
+                        emitDecisionTree(branchFor(branches, new Pattern.BoolLit(true), fallback), slots, occurrenceTypes, armLabels, armBindings);
+                        mv.visitLabel(falseLabel);
+                        emitDecisionTree(branchFor(branches, new Pattern.BoolLit(false), fallback), slots, occurrenceTypes, armLabels, armBindings);
+                    }
+                    case Pattern.IntLit i -> {
+                        List<DecisionTree.Branch> sorted = new ArrayList<>(branches);
+                        sorted.sort(Comparator.comparingInt(branch -> ((Pattern.IntLit) branch.head()).value()));
+                        int[] keys = new int[sorted.size()];
+                        Label[] labels = new Label[sorted.size()];
+                        for (int k = 0; k < sorted.size(); k++) {
+                            keys[k] = ((Pattern.IntLit) sorted.get(k).head()).value();
+                            labels[k] = new Label();
+                        }
+                        Label defaultLabel = new Label();
+                        loadOccurrence(slot, jvmType, "I");
+                        mv.visitLookupSwitchInsn(defaultLabel, keys, labels);
+                        for (int k = 0; k < sorted.size(); k++) {
+                            mv.visitLabel(labels[k]);
+                            emitDecisionTree(sorted.get(k).tree(), slots, occurrenceTypes, armLabels, armBindings);
+                        }
+                        mv.visitLabel(defaultLabel);
+                        emitDecisionTree(fallback, slots, occurrenceTypes, armLabels, armBindings);
+                    }
+                    case Pattern.StringLit s -> {
+                        for (DecisionTree.Branch branch : branches) {
+                            Label next = new Label();
+                            mv.visitLdcInsn(((Pattern.StringLit) branch.head()).value());
+                            mv.visitVarInsn(ALOAD, slot);
+                            mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+                            mv.visitJumpInsn(IFEQ, next);
+                            emitDecisionTree(branch.tree(), slots, occurrenceTypes, armLabels, armBindings);
+                            mv.visitLabel(next);
+                        }
+                        emitDecisionTree(fallback, slots, occurrenceTypes, armLabels, armBindings);
+                    }
+                    case Pattern.Constructor ctor -> {
+                        for (int k = 0; k < branches.size(); k++) {
+                            DecisionTree.Branch branch = branches.get(k);
+                            String ctorClass = "com/miniml/" + ((Pattern.Constructor) branch.head()).name();
+                            Label next = new Label();
+                            boolean needsTest = fallback != null || k < branches.size() - 1;
+                            if (needsTest) {
+                                mv.visitVarInsn(ALOAD, slot);
+                                mv.visitTypeInsn(INSTANCEOF, ctorClass);
+                                mv.visitJumpInsn(IFEQ, next);
+                            }
+                            DecisionTree.Occurrence payload = occurrence.child(0);
+                            if (DecisionTree.arity(branch.head()) == 1 && branch.tree().references(payload)) {
+                                mv.visitVarInsn(ALOAD, slot);
+                                mv.visitTypeInsn(CHECKCAST, ctorClass);
+                                mv.visitMethodInsn(INVOKEVIRTUAL, ctorClass, "value", "()Ljava/lang/Object;", false);
+                                storeOccurrence(payload, null, "Ljava/lang/Object;", slots, occurrenceTypes);
+                            }
+                            emitDecisionTree(branch.tree(), slots, occurrenceTypes, armLabels, armBindings);
+                            if (needsTest) {
+                                mv.visitLabel(next);
+                            }
+                        }
+                        if (fallback != null) {
+                            emitDecisionTree(fallback, slots, occurrenceTypes, armLabels, armBindings);
+                        }
+                    }
+                    default -> throw new RuntimeException("Pattern not yet implemented: " + branches.get(0).head());
                 }
             }
-            
-            case Pattern.Cons(Pattern head, Pattern tail) -> {
-                mv.visitVarInsn(ALOAD, scrutineeLocal);
-                mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "isEmpty", "()Z", true);
-                if (failLabel != null) {
-                    mv.visitJumpInsn(IFNE, failLabel);
-                } else {
-                    Label matchOk = new Label();
-                    mv.visitJumpInsn(IFEQ, matchOk);
-                    mv.visitTypeInsn(NEW, "java/lang/RuntimeException");
-                    mv.visitInsn(DUP);
-                    mv.visitLdcInsn("Match failure: expected non-empty list");
-                    mv.visitMethodInsn(INVOKESPECIAL, "java/lang/RuntimeException", "<init>", "(Ljava/lang/String;)V", false);
-                    mv.visitInsn(ATHROW);
-                    mv.visitLabel(matchOk);
-                }
-                
-                if (head instanceof Pattern.Var(String headName)) {
-                    Type scrutineeType = typeMap.getOrDefault(scrutinee, new Type.TList(new Type.TInt()));
-                    Type elemType = (scrutineeType instanceof Type.TList(Type inner)) ? inner : new Type.TInt();
-                    
-                    mv.visitVarInsn(ALOAD, scrutineeLocal);
-                    mv.visitInsn(ICONST_0);
-                    mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
-                    
-                    String jvmType = typeToJVMType(elemType);
-                    if (jvmType.equals("I")) {
-                        mv.visitTypeInsn(CHECKCAST, "java/lang/Integer");
-                        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
-                        int headVarLocal = allocLocal(headName);
-                        mv.visitVarInsn(ISTORE, headVarLocal);
-                        localTypes.put(headName, "I");
-                    } else if (jvmType.equals("D")) {
-                        mv.visitTypeInsn(CHECKCAST, "java/lang/Double");
-                        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Double", "doubleValue", "()D", false);
-                        int headVarLocal = allocLocal(headName);
-                        mv.visitVarInsn(DSTORE, headVarLocal);
-                        localTypes.put(headName, "D");
-                    } else {
-                        mv.visitTypeInsn(CHECKCAST, typeToClassName(jvmType));
-                        int headVarLocal = allocLocal(headName);
-                        mv.visitVarInsn(ASTORE, headVarLocal);
-                        localTypes.put(headName, jvmType);
+        }
+    }
+    
+    private void emitListSwitch(DecisionTree.Occurrence occurrence, int slot, Type type, String jvmType, List<DecisionTree.Branch> branches, DecisionTree fallback,
+                                Map<DecisionTree.Occurrence, Integer> slots, Map<DecisionTree.Occurrence, Type> occurrenceTypes,
+                                Label[] armLabels, Map<Integer, Map<String, DecisionTree.Occurrence>> armBindings) {
+        loadOccurrence(slot, jvmType, "Lcom/miniml/runtime/ConsList;");
+        mv.visitMethodInsn(INVOKEVIRTUAL, "com/miniml/runtime/ConsList", "isEmpty", "()Z", false);
+        Label consLabel = new Label();
+        mv.visitJumpInsn(IFEQ, consLabel);
+        emitDecisionTree(branchFor(branches, new Pattern.Nil(), fallback), slots, occurrenceTypes, armLabels, armBindings);
+        
+        mv.visitLabel(consLabel);
+        DecisionTree consTree = branchFor(branches, new Pattern.Cons(new Pattern.Wildcard(), new Pattern.Wildcard()), fallback);
+        Type elemType = type instanceof Type.TList(Type elem) ? elem : null;
+        DecisionTree.Occurrence head = occurrence.child(0);
+        DecisionTree.Occurrence tail = occurrence.child(1);
+        if (consTree.references(head)) {
+            String headJvmType = occurrenceJvmType(elemType);
+            loadOccurrence(slot, jvmType, "Lcom/miniml/runtime/ConsList;");
+            switch (headJvmType) {
+                case "I" -> mv.visitMethodInsn(INVOKEVIRTUAL, "com/miniml/runtime/ConsList", "headInt", "()I", false);
+                case "D" -> mv.visitMethodInsn(INVOKEVIRTUAL, "com/miniml/runtime/ConsList", "headDouble", "()D", false);
+                default -> {
+                    mv.visitMethodInsn(INVOKEVIRTUAL, "com/miniml/runtime/ConsList", "head", "()Ljava/lang/Object;", false);
+                    if (headJvmType.equals("Z")) {
+                        insertCastIfNeeded(elemType);
+                    } else if (!headJvmType.equals("Ljava/lang/Object;")) {
+                        mv.visitTypeInsn(CHECKCAST, typeToClassName(headJvmType));
                     }
                 }
-                
-                if (tail instanceof Pattern.Var(String tailName)) {
-                    mv.visitVarInsn(ALOAD, scrutineeLocal);
-                    mv.visitInsn(ICONST_1);
-                    mv.visitVarInsn(ALOAD, scrutineeLocal);
-                    mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "size", "()I", true);
-                    mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "subList", "(II)Ljava/util/List;", true);
-                    int tailVarLocal = allocLocal(tailName);
-                    mv.visitVarInsn(ASTORE, tailVarLocal);
-                    localTypes.put(tailName, "Ljava/util/List;");
-                }
             }
-            
-            case Pattern.Constructor(String name, java.util.Optional<Pattern> arg) -> {
-                String className = "com/miniml/" + name;
-                mv.visitVarInsn(ALOAD, scrutineeLocal);
-                mv.visitTypeInsn(INSTANCEOF, className);
-                if (failLabel != null) {
-                    mv.visitJumpInsn(IFEQ, failLabel);
-                } else {
-                    mv.visitInsn(POP);
-                }
-                
-                if (arg.isPresent() && arg.get() instanceof Pattern.Var(String varName)) {
-                    mv.visitVarInsn(ALOAD, scrutineeLocal);
-                    mv.visitTypeInsn(CHECKCAST, className);
-                    mv.visitMethodInsn(INVOKEVIRTUAL, className, "value", "()Ljava/lang/Object;", false);
-                    int varLocal = allocLocal(varName);
-                    mv.visitVarInsn(ASTORE, varLocal);
-                    localTypes.put(varName, "Ljava/lang/Object;");
+            storeOccurrence(head, elemType, headJvmType, slots, occurrenceTypes);
+        }
+        if (consTree.references(tail)) {
+            loadOccurrence(slot, jvmType, "Lcom/miniml/runtime/ConsList;");
+            mv.visitMethodInsn(INVOKEVIRTUAL, "com/miniml/runtime/ConsList", "tail", "()Lcom/miniml/runtime/ConsList;", false);
+            storeOccurrence(tail, type instanceof Type.TList ? type : Type.list(new Type.TVar("_")), "Lcom/miniml/runtime/ConsList;", slots, occurrenceTypes);
+        }
+        emitDecisionTree(consTree, slots, occurrenceTypes, armLabels, armBindings);
+    }
+    
+    private DecisionTree branchFor(List<DecisionTree.Branch> branches, Pattern head, DecisionTree fallback) {
+        for (DecisionTree.Branch branch : branches) {
+            if (branch.head().equals(head)) {
+                return branch.tree();
+            }
+        }
+        return fallback;
+    }
+    
+    private String occurrenceJvmType(Type type) {
+        return type == null ? "Ljava/lang/Object;" : type.toJvmType();
+    }
+    
+    private void storeOccurrence(DecisionTree.Occurrence occurrence, Type type, String jvmType,
+                                 Map<DecisionTree.Occurrence, Integer> slots, Map<DecisionTree.Occurrence, Type> occurrenceTypes) {
+        Integer slot = slots.get(occurrence);
+        if (slot == null) {
+            slot = nextLocal;
+            nextLocal += jvmType.equals("D") ? 2 : 1;
+            slots.put(occurrence, slot);
+        }
+        occurrenceTypes.put(occurrence, jvmType.equals(occurrenceJvmType(type)) ? type : jvmTypeToType(jvmType));
+        switch (jvmType) {
+            case "I", "Z" -> mv.visitVarInsn(ISTORE, slot);
+            case "D" -> mv.visitVarInsn(DSTORE, slot);
+            default -> mv.visitVarInsn(ASTORE, slot);
+        }
+    }
+    
+    private void loadOccurrence(int slot, String jvmType, String expectedJvmType) {
+        switch (jvmType) {
+            case "I", "Z" -> mv.visitVarInsn(ILOAD, slot);
+            case "D" -> mv.visitVarInsn(DLOAD, slot);
+            default -> {
+                mv.visitVarInsn(ALOAD, slot);
+                if (!jvmType.equals(expectedJvmType)) {
+                    insertCastIfNeeded(jvmTypeToType(expectedJvmType));
                 }
             }
-            
-            default -> throw new RuntimeException("Pattern not yet implemented: " + pattern);
         }
     }
     
+    private Type jvmTypeToType(String jvmType) {
+        return switch (jvmType) {
+            case "I" -> Type.INT;
+            case "D" -> Type.DOUBLE;
+            case "Z" -> Type.BOOL;
+            case "Ljava/lang/String;" -> Type.STRING;
+            case "Lcom/miniml/runtime/ConsList;" -> Type.list(new Type.TVar("_"));
+            default -> null;
+        };
+    }
+    
     private String inferJavaMethodDescriptor(Expr javaCallExpr, String className, String methodName, List<Expr> args) {
         StringBuilder desc = new StringBuilder("(");
         for (Expr arg : args) {
-            Type argType = typeMap.getOrDefault(arg, new Type.TInt());
+            Type argType = typeOf(arg, Type.INT);
             desc.append(argType.toJvmType());
         }
         desc.append(")");
         
-        Type returnType = typeMap.getOrDefault(javaCallExpr, new Type.TInt());
+        Type returnType = typeOf(javaCallExpr, Type.INT);
         desc.append(returnType.toJvmType());
         
         return desc.toString();
@@ -969,7 +1499,7 @@ public class Compiler {
     private String inferJavaConstructorDescriptor(List<Expr> args) {
         StringBuilder desc = new StringBuilder("(");
         for (Expr arg : args) {
-            Type argType = typeMap.getOrDefault(arg, new Type.TInt());
+            Type argType = typeOf(arg, Type.INT);
             desc.append(argType.toJvmType());
         }
         desc.append(")V");
@@ -990,58 +1520,42 @@ public class Compiler {
     }
     
     private String inferInstanceMethodDescriptor(Expr instanceCallExpr, String className, String methodName, List<Expr> args) {
-        try {
-            Class<?> clazz = Class.forName(className);
-            java.lang.reflect.Method bestMethod = null;
+        Class<?> clazz = JavaMembers.findClass(className).orElse(null);
+        if (clazz != null) {
+            JavaMembers.Member bestMethod = null;
             
-            for (java.lang.reflect.Method method : clazz.getMethods()) {
-                if (method.getName().equals(methodName) && 
-                    method.getParameterCount() == args.size() &&
-                    java.lang.reflect.Modifier.isPublic(method.getModifiers())) {
-                    
-                    Class<?>[] paramTypes = method.getParameterTypes();
-                    boolean matches = true;
-                    for (int i = 0; i < args.size(); i++) {
-                        Type argType = typeMap.getOrDefault(args.get(i), new Type.TInt());
-                        String argJvmType = argType.toJvmType();
-                        String paramJvmType = org.objectweb.asm.Type.getDescriptor(paramTypes[i]);
-                        
-                        if (!isCompatible(argJvmType, paramJvmType)) {
-                            matches = false;
-                            break;
-                        }
+            for (JavaMembers.Member method : JavaMembers.methods(clazz, methodName, args.size())) {
+                boolean matches = true;
+                for (int i = 0; i < args.size(); i++) {
+                    Type argType = typeOf(args.get(i), Type.INT);
+                    if (!isCompatible(argType.toJvmType(), method.parameterDescriptors()[i])) {
+                        matches = false;
+                        break;
                     }
-                    
-                    if (matches) {
-                        if (bestMethod == null || method.getReturnType().equals(clazz)) {
-                            bestMethod = method;
-                            if (method.getReturnType().equals(clazz)) {
-                                break;
-                            }
+                }
+                
+                if (matches) {
+                    if (bestMethod == null || method.returnClass().equals(clazz)) {
+                        bestMethod = method;
+                        if (method.returnClass().equals(clazz)) {
+                            break;
                         }
                     }
                 }
             }
             
             if (bestMethod != null) {
-                StringBuilder desc = new StringBuilder("(");
-                for (Class<?> paramType : bestMethod.getParameterTypes()) {
-                    desc.append(org.objectweb.asm.Type.getDescriptor(paramType));
-                }
-                desc.append(")");
-                desc.append(org.objectweb.asm.Type.getDescriptor(bestMethod.getReturnType()));
-                return desc.toString();
+                return bestMethod.descriptor();
             }
-        } catch (ClassNotFoundException e) {
         }
         
         StringBuilder desc = new StringBuilder("(");
         for (Expr arg : args) {
-            Type argType = typeMap.getOrDefault(arg, new Type.TInt());
+            Type argType = typeOf(arg, Type.INT);
             desc.append(argType.toJvmType());
         }
         desc.append(")");
-        Type returnType = typeMap.getOrDefault(instanceCallExpr, new Type.TInt());
+        Type returnType = typeOf(instanceCallExpr, Type.INT);
         desc.append(returnType.toJvmType());
         return desc.toString();
     }
@@ -1138,10 +1652,10 @@ public class Compiler {
         mv.visitLabel(endLabel);
     }
 
-    private void compileLambdaMethodFromLetRec(String methodName, LetRec letRec) {
-        Type fnType = letRecTypes.get(letRec.name());
+    private void compileLambdaMethodFromLetRec(String methodName, List<String> captured, LetRec letRec) {
+        Type fnType = substituteTypeVars(letRecTypes.get(letRec.name()));
         if (fnType == null) {
-            compileLambdaMethod(methodName, letRec.params(), letRec.value());
+            compileLambdaMethod(methodName, captured, letRec.params(), letRec.value(), null);
             return;
         }
         
@@ -1151,9 +1665,17 @@ public class Compiler {
         int prevNextLocal = nextLocal;
 
         StringBuilder descriptorBuilder = new StringBuilder("(");
+        List<String> capturedTypes = captured.stream().map(name -> localTypes.getOrDefault(name, "I")).toList();
         locals.clear();
         localTypes.clear();
         nextLocal = 0;
+        for (int i = 0; i < captured.size(); i++) {
+            String jvmType = capturedTypes.get(i);
+            descriptorBuilder.append(jvmType);
+            locals.put(captured.get(i), nextLocal);
+            nextLocal += jvmType.equals("D") ? 2 : 1;
+            localTypes.put(captured.get(i), jvmType);
+        }
         
         Type currentType = fnType;
         for (String param : letRec.params()) {
@@ -1175,13 +1697,12 @@ public class Compiler {
         mv = cw.visitMethod(ACC_PRIVATE | ACC_STATIC, methodName, descriptor, null, null);
         mv.visitCode();
 
+        Map<String, TailCallTarget> prevTailCallTargets = tailCallTargets;
+        tailCallTargets = Map.of(letRec.name(), beginTailCallTarget(letRec.name(), letRec.params()));
+        inTailPosition = true;
         compileExpr(letRec.value());
-        switch (returnType) {
-            case "I", "Z" -> mv.visitInsn(IRETURN);
-            case "D" -> mv.visitInsn(DRETURN);
-            case "V" -> mv.visitInsn(RETURN);
-            default -> mv.visitInsn(ARETURN);
-        }
+        tailCallTargets = prevTailCallTargets;
+        emitReturn(returnType);
         mv.visitMaxs(0, 0);
         mv.visitEnd();
 
@@ -1193,26 +1714,57 @@ public class Compiler {
         nextLocal = prevNextLocal;
     }
     
-    private void compileLambdaMethod(String methodName, List<String> params, Expr body) {
+    private List<String> capturedBy(Expr function, String selfName) {
+        Set<String> names = new HashSet<>(locals.keySet());
+        names.addAll(localFunctionCaptures.keySet());
+        names.remove(selfName);
+        Set<String> captured = new LinkedHashSet<>();
+        for (String name : CallGraph.references(function, names)) {
+            if (locals.containsKey(name)) {
+                captured.add(name);
+            } else {
+                localFunctionCaptures.get(name).stream().filter(locals::containsKey).forEach(captured::add);
+            }
+        }
+        return new ArrayList<>(captured);
+    }
+    
+    private FunctionSignature compileLambdaMethod(String methodName, List<String> captured, List<String> params, Expr body, Type fnType) {
         MethodVisitor prevMv = mv;
         Map<String, Integer> prevLocals = new HashMap<>(locals);
         Map<String, String> prevLocalTypes = new HashMap<>(localTypes);
         int prevNextLocal = nextLocal;
 
         StringBuilder descriptorBuilder = new StringBuilder("(");
+        List<String> paramTypes = new ArrayList<>();
+        List<String> capturedTypes = captured.stream().map(name -> localTypes.getOrDefault(name, "I")).toList();
         locals.clear();
         localTypes.clear();
         nextLocal = 0;
+        for (int i = 0; i < captured.size(); i++) {
+            String jvmType = capturedTypes.get(i);
+            descriptorBuilder.append(jvmType);
+            locals.put(captured.get(i), nextLocal);
+            nextLocal += jvmType.equals("D") ? 2 : 1;
+            localTypes.put(captured.get(i), jvmType);
+        }
+        Type currentType = fnType;
         for (String param : params) {
-            Var paramVar = new Var(param);
-            Type paramType = typeMap.getOrDefault(paramVar, new Type.TInt());
+            Type paramType;
+            if (currentType instanceof Type.TFun(Type paramT, Type resultT)) {
+                paramType = paramT;
+                currentType = resultT;
+            } else {
+                paramType = typeOf(new Var(param), Type.INT);
+            }
             String jvmType = paramType.toJvmType();
             descriptorBuilder.append(jvmType);
+            paramTypes.add(jvmType);
             locals.put(param, nextLocal);
             nextLocal += jvmType.equals("D") ? 2 : 1;
             localTypes.put(param, jvmType);
         }
-        Type bodyType = typeMap.getOrDefault(body, new Type.TInt());
+        Type bodyType = typeOf(body, Type.INT);
         String returnType = bodyType.toJvmType();
         descriptorBuilder.append(")").append(returnType);
         String descriptor = descriptorBuilder.toString();
@@ -1220,13 +1772,11 @@ public class Compiler {
         mv = cw.visitMethod(ACC_PRIVATE | ACC_STATIC, methodName, descriptor, null, null);
         mv.visitCode();
 
+        Map<String, TailCallTarget> prevTailCallTargets = tailCallTargets;
+        tailCallTargets = Map.of();
         compileExpr(body);
-        switch (returnType) {
-            case "I", "Z" -> mv.visitInsn(IRETURN);
-            case "D" -> mv.visitInsn(DRETURN);
-            case "V" -> mv.visitInsn(RETURN);
-            default -> mv.visitInsn(ARETURN);
-        }
+        tailCallTargets = prevTailCallTargets;
+        emitReturn(returnType);
         mv.visitMaxs(0, 0);
         mv.visitEnd();
 
@@ -1236,8 +1786,72 @@ public class Compiler {
         localTypes.clear();
         localTypes.putAll(prevLocalTypes);
         nextLocal = prevNextLocal;
+        return new FunctionSignature(methodName, paramTypes, returnType);
     }
 
+    private TailCallTarget beginTailCallTarget(String name, List<String> params) {
+        List<Integer> slots = new ArrayList<>();
+        List<String> jvmTypes = new ArrayList<>();
+        for (String param : params) {
+            slots.add(locals.get(param));
+            jvmTypes.add(localTypes.get(param));
+        }
+        Label entry = new Label();
+        mv.visitLabel(entry);
+        return new TailCallTarget(name, slots, jvmTypes, entry);
+    }
+    
+    private TailCallTarget tailCallTargetFor(Expr func, List<Expr> args) {
+        if (func instanceof Var(String funcName) && !locals.containsKey(funcName)) {
+            TailCallTarget target = tailCallTargets.get(funcName);
+            if (target != null && args.size() == target.slots().size()) {
+                return target;
+            }
+        }
+        return null;
+    }
+    
+    private void compileTailCall(TailCallTarget tailCallTarget, List<Expr> args) {
+        for (int i = 0; i < args.size(); i++) {
+            Expr arg = args.get(i);
+            compileExpr(arg);
+            coerceToJvmType(stackJvmType(arg), tailCallTarget.jvmTypes().get(i), typeOf(arg, Type.INT));
+        }
+        for (int i = args.size() - 1; i >= 0; i--) {
+            String jvmType = tailCallTarget.jvmTypes().get(i);
+            int slot = tailCallTarget.slots().get(i);
+            switch (jvmType) {
+                case "I", "Z" -> mv.visitVarInsn(ISTORE, slot);
+                case "D" -> mv.visitVarInsn(DSTORE, slot);
+                default -> mv.visitVarInsn(ASTORE, slot);
+            }
+        }
+        mv.visitJumpInsn(GOTO, tailCallTarget.entry());
+    }
+    
+    private String stackJvmType(Expr expr) {
+        if (expr instanceof Var(String name) && localTypes.containsKey(name)) {
+            return localTypes.get(name);
+        }
+        return typeOf(expr, Type.INT).toJvmType();
+    }
+    
+    private void coerceToJvmType(String fromJvmType, String toJvmType, Type valueType) {
+        boolean fromPrimitive = fromJvmType.equals("I") || fromJvmType.equals("D") || fromJvmType.equals("Z");
+        boolean toPrimitive = toJvmType.equals("I") || toJvmType.equals("D") || toJvmType.equals("Z");
+        if (fromPrimitive && !toPrimitive) {
+            boxIfPrimitive(valueType);
+        } else if (!fromPrimitive && toPrimitive) {
+            insertCastIfNeeded(switch (toJvmType) {
+                case "D" -> Type.DOUBLE;
+                case "Z" -> Type.BOOL;
+                default -> Type.INT;
+            });
+        } else if (!fromPrimitive && !fromJvmType.equals(toJvmType) && !toJvmType.equals("Ljava/lang/Object;")) {
+            mv.visitTypeInsn(CHECKCAST, typeToClassName(toJvmType));
+        }
+    }
+    
     private int allocLocal(String name) {
         int local = nextLocal++;
         locals.put(name, local);
@@ -1270,7 +1884,7 @@ public class Compiler {
             case JavaInstanceCall(String className, String methodName, Expr inst, List<Expr> args) -> 
                 inferJavaInstanceCallReturnType(className, methodName);
             case JavaStaticField(String className, String fieldName) -> {
-                Type fieldType = typeMap.getOrDefault(expr, new Type.TInt());
+                Type fieldType = typeOf(expr, Type.INT);
                 yield fieldType.toJvmType();
             }
             case App(Expr func, List<Expr> args) -> {
@@ -1281,8 +1895,8 @@ public class Compiler {
                 }
                 yield "I";
             }
-            case ListLit l -> "Ljava/util/List;";
-            case Cons c -> "Ljava/util/List;";
+            case ListLit l -> "Lcom/miniml/runtime/ConsList;";
+            case Cons c -> "Lcom/miniml/runtime/ConsList;";
             case Constructor(String name, java.util.Optional<Expr> arg) -> "Lcom/miniml/" + name + ";";
             case Match(Expr scrutinee, List<Match.MatchCase> cases) -> 
                 cases.isEmpty() ? "I" : inferType(cases.get(0).body());
@@ -1319,7 +1933,7 @@ public class Compiler {
             case Type.TDouble() -> "D";
             case Type.TString() -> "Ljava/lang/String;";
             case Type.TUnit() -> "Lcom/miniml/Unit;";
-            case Type.TList(Type inner) -> "Ljava/util/List;";
+            case Type.TList(Type inner) -> "Lcom/miniml/runtime/ConsList;";
             default -> "Ljava/lang/Object;";
         };
     }
@@ -1402,6 +2016,30 @@ public class Compiler {
         }
     }
     
+    private Type primitiveListElement(Type listType) {
+        if (listType instanceof Type.TList(Type elem) && (elem instanceof Type.TInt || elem instanceof Type.TDouble)) {
+            return elem;
+        }
+        return null;
+    }
+    
+    private void compileListElement(Expr elem, Type primitiveElem) {
+        compileExpr(elem);
+        if (primitiveElem == null) {
+            coerceToJvmType(stackJvmType(elem), "Ljava/lang/Object;", typeOf(elem, Type.INT));
+        } else {
+            coerceToJvmType(stackJvmType(elem), primitiveElem.toJvmType(), primitiveElem);
+        }
+    }
+    
+    private void emitListCons(Type primitiveElem) {
+        switch (primitiveElem) {
+            case Type.TInt i -> mv.visitMethodInsn(INVOKESTATIC, "com/miniml/runtime/IntConsList", "cons", "(ILcom/miniml/runtime/ConsList;)Lcom/miniml/runtime/IntConsList;", false);
+            case Type.TDouble d -> mv.visitMethodInsn(INVOKESTATIC, "com/miniml/runtime/DoubleConsList", "cons", "(DLcom/miniml/runtime/ConsList;)Lcom/miniml/runtime/DoubleConsList;", false);
+            case null, default -> mv.visitMethodInsn(INVOKESTATIC, "com/miniml/runtime/ConsList", "cons", "(Ljava/lang/Object;Lcom/miniml/runtime/ConsList;)Lcom/miniml/runtime/ConsList;", false);
+        }
+    }
+    
     private void boxIfNeeded(Type type) {
         if (type instanceof Type.TInt) {
             mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
@@ -1412,6 +2050,27 @@ public class Compiler {
         }
     }
     
+    private void loadLocal(String name) {
+        int local = locals.get(name);
+        String type = localTypes.getOrDefault(name, "I");
+        if (type.equals("D")) {
+            mv.visitVarInsn(DLOAD, local);
+        } else if (type.startsWith("L") || type.startsWith("[")) {
+            mv.visitVarInsn(ALOAD, local);
+        } else {
+            mv.visitVarInsn(ILOAD, local);
+        }
+    }
+    
+    private void boxJvmType(String jvmType) {
+        switch (jvmType) {
+            case "I" -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
+            case "D" -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;", false);
+            case "Z" -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", false);
+            default -> {}
+        }
+    }
+    
     private void boxIfPrimitive(Type type) {
         switch (type) {
             case Type.TInt i -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
@@ -1436,7 +2095,7 @@ public class Compiler {
                 mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", false);
             }
             case Type.TString s -> mv.visitTypeInsn(CHECKCAST, "java/lang/String");
-            case Type.TList l -> mv.visitTypeInsn(CHECKCAST, "java/util/List");
+            case Type.TList l -> mv.visitTypeInsn(CHECKCAST, "com/miniml/runtime/ConsList");
             case Type.TResult r -> mv.visitTypeInsn(CHECKCAST, "com/miniml/Result");
             case Type.TUnit u -> mv.visitTypeInsn(CHECKCAST, "com/miniml/Unit");
             default -> {}
@@ -1454,108 +2113,204 @@ public class Compiler {
             case Type.TFun(Type param, Type result) -> hasTypeVars(param) || hasTypeVars(result);
             case Type.TList(Type elem) -> hasTypeVars(elem);
             case Type.TResult(Type ok, Type err) -> hasTypeVars(ok) || hasTypeVars(err);
+            case Type.TApp(String name, List<Type> args) -> args.stream().anyMatch(this::hasTypeVars);
+            case null -> false;
             default -> false;
         };
     }
     
-    private void wrapFunctionAsObject(String funcName, Type funcType) {
-        String methodName = "lambda_" + funcName;
-        Type currentType = funcType;
-        List<Type> paramTypeObjs = new ArrayList<>();
+    private void compileFunctionReference(String name, Type valueType) {
+        Module.TopLevel.FnDecl fn = typedFunctions.get(name);
+        if (fn != null) {
+            emitFunctionValue(topLevelTarget(fn, valueType), List.of());
+            return;
+        }
+        if (topLevelFunctions.contains(name)) {
+            throw new RuntimeException("Cannot use overloaded function as a value: " + name);
+        }
         
-        while (currentType instanceof Type.TFun(Type paramType, Type resultType)) {
-            paramTypeObjs.add(paramType);
-            currentType = resultType;
+        List<String> paramTypes = new ArrayList<>();
+        Type currentType = substituteTypeVars(letRecTypes.get(name));
+        for (int i = 0; i < localFunctionArities.getOrDefault(name, 1); i++) {
+            String jvmType = "I";
+            if (currentType instanceof Type.TFun(Type paramT, Type resultT)) {
+                jvmType = paramT.toJvmType();
+                currentType = resultT;
+            }
+            paramTypes.add(jvmType);
+        }
+        String returnType = currentType != null ? currentType.toJvmType() : "I";
+        emitFunctionValue(new FunctionSignature(localFunctionMethod(name), paramTypes, returnType),
+            localFunctionCaptures.getOrDefault(name, List.of()));
+    }
+    
+    private void emitFunctionValue(FunctionSignature target, List<String> captured) {
+        List<String> capturedTypes = captured.stream().map(name -> localTypes.getOrDefault(name, "I")).toList();
+        if (target.paramTypes().size() == 1) {
+            for (String name : captured) {
+                loadLocal(name);
+            }
+            emitFunctionObject(target.methodName(), target.paramTypes().get(0), target.returnType(), capturedTypes);
+            return;
         }
-        Type returnTypeObj = currentType;
         
-        if (paramTypeObjs.size() == 1) {
-            String paramJvmType = paramTypeObjs.get(0).toJvmType();
-            String returnJvmType = returnTypeObj.toJvmType();
-            String descriptor = "(" + paramJvmType + ")" + returnJvmType;
-            
-            Handle handle = new Handle(
+        Handle handle = new Handle(
+            Opcodes.H_INVOKESTATIC,
+            className,
+            target.methodName(),
+            "(" + String.join("", capturedTypes) + String.join("", target.paramTypes()) + ")" + target.returnType(),
+            false
+        );
+        mv.visitLdcInsn(new ConstantDynamic(
+            target.methodName(),
+            "Lcom/miniml/runtime/CurriedFn;",
+            new Handle(
                 Opcodes.H_INVOKESTATIC,
-                className,
-                methodName,
-                descriptor,
+                "com/miniml/runtime/CurriedFn",
+                "bootstrap",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;Ljava/lang/invoke/MethodHandle;)Lcom/miniml/runtime/CurriedFn;",
                 false
-            );
-            
-            String boxedParamType = boxedJvmType(paramTypeObjs.get(0));
-            String boxedReturnType = boxedJvmType(returnTypeObj);
-            
-            mv.visitInvokeDynamicInsn(
-                "apply",
-                "()Ljava/util/function/Function;",
-                new Handle(
-                    Opcodes.H_INVOKESTATIC,
-                    "java/lang/invoke/LambdaMetafactory",
-                    "metafactory",
-                    "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
-                    false
-                ),
-                org.objectweb.asm.Type.getType("(Ljava/lang/Object;)Ljava/lang/Object;"),
-                handle,
-                org.objectweb.asm.Type.getType("(" + boxedParamType + ")" + boxedReturnType)
-            );
-        } else {
-            throw new RuntimeException("Multi-parameter function wrapping not yet implemented: " + funcName);
+            ),
+            handle
+        ));
+        if (!captured.isEmpty()) {
+            mv.visitLdcInsn(captured.size());
+            mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+            for (int i = 0; i < captured.size(); i++) {
+                mv.visitInsn(DUP);
+                mv.visitLdcInsn(i);
+                loadLocal(captured.get(i));
+                boxJvmType(capturedTypes.get(i));
+                mv.visitInsn(AASTORE);
+            }
+            mv.visitMethodInsn(INVOKEINTERFACE, "com/miniml/runtime/Fn", "applyN", "([Ljava/lang/Object;)Ljava/lang/Object;", true);
         }
     }
     
-    private String boxedJvmType(Type type) {
-        return switch (type) {
-            case Type.TInt() -> "Ljava/lang/Integer;";
-            case Type.TDouble() -> "Ljava/lang/Double;";
-            case Type.TBool() -> "Ljava/lang/Boolean;";
-            default -> type.toJvmType();
-        };
+    private void applyFunctionValue(List<Expr> args, Type resultType) {
+        mv.visitTypeInsn(CHECKCAST, "com/miniml/runtime/Fn");
+        mv.visitLdcInsn(args.size());
+        mv.visitTypeInsn(ANEWARRAY, "java/lang/Object");
+        for (int i = 0; i < args.size(); i++) {
+            mv.visitInsn(DUP);
+            mv.visitLdcInsn(i);
+            compileExpr(args.get(i));
+            boxIfPrimitive(typeOf(args.get(i), Type.INT));
+            mv.visitInsn(AASTORE);
+        }
+        mv.visitMethodInsn(INVOKEINTERFACE, "com/miniml/runtime/Fn", "applyN", "([Ljava/lang/Object;)Ljava/lang/Object;", true);
+        insertCastIfNeeded(resultType);
     }
     
-    private void wrapLambdaAsObject(String methodName, Type funcType) {
-        Type currentType = funcType;
-        List<Type> paramTypeObjs = new ArrayList<>();
+    private void emitFunctionObject(String methodName, String paramJvmType, String returnJvmType, List<String> capturedTypes) {
+        String captures = String.join("", capturedTypes);
         
-        while (currentType instanceof Type.TFun(Type paramType, Type resultType)) {
-            paramTypeObjs.add(paramType);
-            currentType = resultType;
-        }
-        Type returnTypeObj = currentType;
+        Handle handle = new Handle(
+            Opcodes.H_INVOKESTATIC,
+            className,
+            methodName,
+            "(" + captures + paramJvmType + ")" + returnJvmType,
+            false
+        );
         
-        if (paramTypeObjs.size() == 1) {
-            String paramJvmType = paramTypeObjs.get(0).toJvmType();
-            String returnJvmType = returnTypeObj.toJvmType();
-            String descriptor = "(" + paramJvmType + ")" + returnJvmType;
-            
-            Handle handle = new Handle(
+        mv.visitInvokeDynamicInsn(
+            functionMethod(paramJvmType, returnJvmType),
+            "(" + captures + ")L" + functionInterface(paramJvmType, returnJvmType) + ";",
+            new Handle(
                 Opcodes.H_INVOKESTATIC,
-                className,
-                methodName,
-                descriptor,
+                "java/lang/invoke/LambdaMetafactory",
+                "metafactory",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
                 false
-            );
-            
-            String boxedParamType = boxedJvmType(paramTypeObjs.get(0));
-            String boxedReturnType = boxedJvmType(returnTypeObj);
-            
-            mv.visitInvokeDynamicInsn(
-                "apply",
-                "()Ljava/util/function/Function;",
-                new Handle(
-                    Opcodes.H_INVOKESTATIC,
-                    "java/lang/invoke/LambdaMetafactory",
-                    "metafactory",
-                    "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
-                    false
-                ),
-                org.objectweb.asm.Type.getType("(Ljava/lang/Object;)Ljava/lang/Object;"),
-                handle,
-                org.objectweb.asm.Type.getType("(" + boxedParamType + ")" + boxedReturnType)
-            );
-        } else {
-            throw new RuntimeException("Multi-parameter lambda wrapping not yet implemented");
+            ),
+            org.objectweb.asm.Type.getType("(" + erasedJvmType(paramJvmType) + ")" + erasedJvmType(returnJvmType)),
+            handle,
+            org.objectweb.asm.Type.getType("(" + paramJvmType + ")" + returnJvmType)
+        );
+    }
+    
+    private void compileFunctionValueCall(Expr func, Expr arg, Expr call) {
+        Type argType = typeOf(arg, Type.INT);
+        Type resultType = typeOf(call, Type.INT);
+        Type funcType = typeOf(func, Type.fun(argType, resultType));
+        String paramJvmType = funcType instanceof Type.TFun(Type param, Type result) ? param.toJvmType() : "Ljava/lang/Object;";
+        String returnJvmType = funcType instanceof Type.TFun(Type param, Type result) ? result.toJvmType() : "Ljava/lang/Object;";
+        
+        compileExpr(func);
+        mv.visitTypeInsn(CHECKCAST, "com/miniml/runtime/Fn");
+        compileExpr(arg);
+        if (erasedJvmType(paramJvmType).equals("Ljava/lang/Object;")) {
+            boxIfPrimitive(argType);
+        }
+        String descriptor = "(" + erasedJvmType(paramJvmType) + ")" + erasedJvmType(returnJvmType);
+        mv.visitMethodInsn(INVOKEINTERFACE, "com/miniml/runtime/Fn", functionMethod(paramJvmType, returnJvmType), descriptor, true);
+        if (erasedJvmType(returnJvmType).equals("Ljava/lang/Object;")) {
+            insertCastIfNeeded(resultType);
+        }
+    }
+    
+    private void compileFunctionValueCallN(Expr func, List<Expr> args, Expr call) {
+        Type currentType = typeOf(func);
+        StringBuilder descriptor = new StringBuilder("(");
+        List<String> paramJvmTypes = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            if (!(currentType instanceof Type.TFun(Type param, Type result)) || hasTypeVars(param)) {
+                compileExpr(func);
+                applyFunctionValue(args, typeOf(call, Type.INT));
+                return;
+            }
+            paramJvmTypes.add(param.toJvmType());
+            descriptor.append(param.toJvmType());
+            currentType = result;
+        }
+        if (hasTypeVars(currentType)) {
+            compileExpr(func);
+            applyFunctionValue(args, typeOf(call, Type.INT));
+            return;
+        }
+        descriptor.append(")").append(currentType.toJvmType());
+        
+        compileExpr(func);
+        mv.visitLdcInsn(org.objectweb.asm.Type.getMethodType(descriptor.toString()));
+        mv.visitMethodInsn(INVOKESTATIC, "com/miniml/runtime/CurriedFn", "exact",
+            "(Ljava/lang/Object;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/MethodHandle;", false);
+        for (int i = 0; i < args.size(); i++) {
+            Expr arg = args.get(i);
+            compileExpr(arg);
+            coerceToJvmType(stackJvmType(arg), paramJvmTypes.get(i), typeOf(arg, Type.INT));
+        }
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/invoke/MethodHandle", "invokeExact", descriptor.toString(), false);
+    }
+    
+    private static String functionKind(String jvmType) {
+        return switch (jvmType) {
+            case "I" -> "Int";
+            case "D" -> "Double";
+            case "Z" -> "Bool";
+            default -> "Obj";
+        };
+    }
+    
+    private static String erasedJvmType(String jvmType) {
+        return functionKind(jvmType).equals("Obj") ? "Ljava/lang/Object;" : jvmType;
+    }
+    
+    private static String functionInterface(String paramJvmType, String returnJvmType) {
+        String param = functionKind(paramJvmType);
+        String result = functionKind(returnJvmType);
+        if (param.equals("Obj") && result.equals("Obj")) {
+            return "com/miniml/runtime/Fn";
+        }
+        return "com/miniml/runtime/Fn$" + param + "To" + result;
+    }
+    
+    private static String functionMethod(String paramJvmType, String returnJvmType) {
+        String param = functionKind(paramJvmType);
+        String result = functionKind(returnJvmType);
+        if (param.equals("Obj") && result.equals("Obj")) {
+            return "apply";
         }
+        return "apply" + param + "To" + result;
     }
 
     public void writeClassFile(String outputPath) throws IOException {
@@ -1578,8 +2333,8 @@ public class Compiler {
         return switch (type) {
             case Type.TNumeric n -> replacement;
             case Type.TFun(Type param, Type result) ->
-                new Type.TFun(substituteNumericWith(param, replacement), substituteNumericWith(result, replacement));
-            case Type.TList(Type elem) -> new Type.TList(substituteNumericWith(elem, replacement));
+                Type.fun(substituteNumericWith(param, replacement), substituteNumericWith(result, replacement));
+            case Type.TList(Type elem) -> Type.list(substituteNumericWith(elem, replacement));
             default -> type;
         };
     }
@@ -1588,7 +2343,7 @@ public class Compiler {
         Type fnType = returnType;
         for (int i = params.size() - 1; i >= 0; i--) {
             Type paramType = params.get(i).typeAnnotation().orElse(returnType);
-            fnType = new Type.TFun(paramType, fnType);
+            fnType = Type.fun(paramType, fnType);
         }
         return fnType;
     }
@@ -0,0 +1,232 @@
+package com.miniml;
+
+import java.util.*;
+import java.util.function.Function;
+
+public sealed interface DecisionTree {
+    record Occurrence(Occurrence parent, int field) {
+        public static final Occurrence ROOT = new Occurrence(null, 0);
+
+        Occurrence child(int index) {
+            return new Occurrence(this, index);
+        }
+    }
+
+    record Leaf(int arm, Map<String, Occurrence> bindings) implements DecisionTree {}
+
+    record Fail() implements DecisionTree {}
+
+    record Branch(Pattern head, DecisionTree tree) {}
+
+    record Switch(Occurrence occurrence, List<Branch> branches, DecisionTree fallback) implements DecisionTree {}
+
+    static DecisionTree build(List<Pattern> arms, Function<String, List<String>> constructorSiblings) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < arms.size(); i++) {
+            rows.add(new Row(List.of(arms.get(i)), Map.of(), i));
+        }
+        return new Builder(constructorSiblings).build(rows, List.of(Occurrence.ROOT));
+    }
+
+    default boolean isExhaustive() {
+        return switch (this) {
+            case Leaf leaf -> true;
+            case Fail fail -> false;
+            case Switch(var occurrence, List<Branch> branches, DecisionTree fallback) ->
+                branches.stream().allMatch(branch -> branch.tree().isExhaustive())
+                    && (fallback == null || fallback.isExhaustive());
+        };
+    }
+
+    default Set<Integer> reachableArms() {
+        Set<Integer> arms = new TreeSet<>();
+        collectArms(this, arms);
+        return arms;
+    }
+
+    default boolean references(Occurrence occurrence) {
+        return switch (this) {
+            case Leaf(int arm, Map<String, Occurrence> bindings) -> bindings.containsValue(occurrence);
+            case Fail fail -> false;
+            case Switch(Occurrence tested, List<Branch> branches, DecisionTree fallback) ->
+                tested.equals(occurrence)
+                    || branches.stream().anyMatch(branch -> branch.tree().references(occurrence))
+                    || (fallback != null && fallback.references(occurrence));
+        };
+    }
+
+    static int arity(Pattern head) {
+        return switch (head) {
+            case Pattern.Cons c -> 2;
+            case Pattern.Constructor(String name, Optional<Pattern> arg) -> arg.isPresent() ? 1 : 0;
+            default -> 0;
+        };
+    }
+
+    private static void collectArms(DecisionTree tree, Set<Integer> arms) {
+        switch (tree) {
+            case Leaf(int arm, var bindings) -> arms.add(arm);
+            case Fail fail -> {}
+            case Switch(var occurrence, List<Branch> branches, DecisionTree fallback) -> {
+                for (Branch branch : branches) {
+                    collectArms(branch.tree(), arms);
+                }
+                if (fallback != null) {
+                    collectArms(fallback, arms);
+                }
+            }
+        }
+    }
+
+    record Row(List<Pattern> patterns, Map<String, Occurrence> bindings, int arm) {}
+
+    final class Builder {
+        private final Function<String, List<String>> constructorSiblings;
+
+        private Builder(Function<String, List<String>> constructorSiblings) {
+            this.constructorSiblings = constructorSiblings;
+        }
+
+        DecisionTree build(List<Row> rows, List<Occurrence> columns) {
+            if (rows.isEmpty()) {
+                return new Fail();
+            }
+            Row first = rows.get(0);
+            int column = -1;
+            for (int i = 0; i < columns.size(); i++) {
+                if (!isIrrefutable(first.patterns().get(i))) {
+                    column = i;
+                    break;
+                }
+            }
+            if (column < 0) {
+                Map<String, Occurrence> bindings = new LinkedHashMap<>(first.bindings());
+                for (int i = 0; i < columns.size(); i++) {
+                    bind(first.patterns().get(i), columns.get(i), bindings);
+                }
+                return new Leaf(first.arm(), bindings);
+            }
+
+            Occurrence occurrence = columns.get(column);
+            List<Pattern> heads = new ArrayList<>();
+            for (Row row : rows) {
+                Pattern pattern = row.patterns().get(column);
+                if (!isIrrefutable(pattern) && heads.stream().noneMatch(head -> sameHead(head, pattern))) {
+                    heads.add(pattern);
+                }
+            }
+
+            List<Branch> branches = new ArrayList<>();
+            for (Pattern head : heads) {
+                branches.add(new Branch(shallow(head), build(specialize(rows, column, occurrence, head), expand(columns, column, arity(head)))));
+            }
+            DecisionTree fallback = isComplete(heads) ? null : build(defaults(rows, column, occurrence), expand(columns, column, -1));
+            return new Switch(occurrence, branches, fallback);
+        }
+
+        private List<Row> specialize(List<Row> rows, int column, Occurrence occurrence, Pattern head) {
+            int arity = arity(head);
+            List<Row> result = new ArrayList<>();
+            for (Row row : rows) {
+                Pattern pattern = row.patterns().get(column);
+                List<Pattern> fields;
+                Map<String, Occurrence> bindings = row.bindings();
+                if (isIrrefutable(pattern)) {
+                    fields = Collections.nCopies(arity, new Pattern.Wildcard());
+                    bindings = bound(bindings, pattern, occurrence);
+                } else if (sameHead(head, pattern)) {
+                    fields = subpatterns(pattern);
+                } else {
+                    continue;
+                }
+                List<Pattern> patterns = new ArrayList<>(row.patterns().subList(0, column));
+                patterns.addAll(fields);
+                patterns.addAll(row.patterns().subList(column + 1, row.patterns().size()));
+                result.add(new Row(patterns, bindings, row.arm()));
+            }
+            return result;
+        }
+
+        private List<Row> defaults(List<Row> rows, int column, Occurrence occurrence) {
+            List<Row> result = new ArrayList<>();
+            for (Row row : rows) {
+                Pattern pattern = row.patterns().get(column);
+                if (isIrrefutable(pattern)) {
+                    List<Pattern> patterns = new ArrayList<>(row.patterns());
+                    patterns.remove(column);
+                    result.add(new Row(patterns, bound(row.bindings(), pattern, occurrence), row.arm()));
+                }
+            }
+            return result;
+        }
+
+        private List<Occurrence> expand(List<Occurrence> columns, int column, int arity) {
+            List<Occurrence> result = new ArrayList<>(columns.subList(0, column));
+            for (int i = 0; i < arity; i++) {
+                result.add(columns.get(column).child(i));
+            }
+            result.addAll(columns.subList(column + 1, columns.size()));
+            return result;
+        }
+
+        private boolean isComplete(List<Pattern> heads) {
+            Pattern first = heads.get(0);
+            return switch (first) {
+                case Pattern.Nil n -> heads.size() == 2;
+                case Pattern.Cons c -> heads.size() == 2;
+                case Pattern.BoolLit b -> heads.size() == 2;
+                case Pattern.Constructor(String name, var arg) -> {
+                    List<String> siblings = constructorSiblings.apply(name);
+                    yield siblings != null && heads.size() == siblings.size();
+                }
+                default -> false;
+            };
+        }
+
+        private static boolean isIrrefutable(Pattern pattern) {
+            return pattern instanceof Pattern.Wildcard || pattern instanceof Pattern.Var;
+        }
+
+        private static boolean sameHead(Pattern head, Pattern pattern) {
+            return switch (head) {
+                case Pattern.Nil n -> pattern instanceof Pattern.Nil;
+                case Pattern.Cons c -> pattern instanceof Pattern.Cons;
+                case Pattern.Constructor(String name, var arg) ->
+                    pattern instanceof Pattern.Constructor(String other, var otherArg) && name.equals(other);
+                default -> head.equals(pattern);
+            };
+        }
+
+        private static Pattern shallow(Pattern head) {
+            return switch (head) {
+                case Pattern.Cons c -> new Pattern.Cons(new Pattern.Wildcard(), new Pattern.Wildcard());
+                case Pattern.Constructor(String name, Optional<Pattern> arg) ->
+                    new Pattern.Constructor(name, arg.map(a -> new Pattern.Wildcard()));
+                default -> head;
+            };
+        }
+
+        private static List<Pattern> subpatterns(Pattern pattern) {
+            return switch (pattern) {
+                case Pattern.Cons(Pattern head, Pattern tail) -> List.of(head, tail);
+                case Pattern.Constructor(String name, Optional<Pattern> arg) -> arg.map(List::of).orElse(List.of());
+                default -> List.of();
+            };
+        }
+
+        private static Map<String, Occurrence> bound(Map<String, Occurrence> bindings, Pattern pattern, Occurrence occurrence) {
+            if (!(pattern instanceof Pattern.Var)) {
+                return bindings;
+            }
+            Map<String, Occurrence> result = new LinkedHashMap<>(bindings);
+            bind(pattern, occurrence, result);
+            return result;
+        }
+
+        private static void bind(Pattern pattern, Occurrence occurrence, Map<String, Occurrence> bindings) {
+            if (pattern instanceof Pattern.Var(String name)) {
+                bindings.put(name, occurrence);
+            }
+        }
+    }
+}
@@ -4,8 +4,9 @@ import java.util.*;
 
 public class Environment {
     private final Map<String, Integer> nameToSlot;
-    private final Object[] slots;
+    private Object[] slots;
     private final Environment parent;
+    private final Resolution resolution;
     private int nextSlot;
     private Map<String, String> javaImports;
     
@@ -22,11 +23,21 @@ public class Environment {
     public Environment(Environment parent, int initialCapacity) {
         this.parent = parent;
         this.nameToSlot = new HashMap<>();
-        this.slots = new Object[initialCapacity];
+        this.slots = new Object[Math.max(initialCapacity, 1)];
         this.nextSlot = 0;
+        this.resolution = parent != null ? parent.resolution : null;
         this.javaImports = parent != null ? parent.javaImports : new HashMap<>();
     }
     
+    private Environment(Environment parent, int size, Resolution resolution) {
+        this.parent = parent;
+        this.nameToSlot = null;
+        this.slots = new Object[size];
+        this.nextSlot = size;
+        this.resolution = resolution;
+        this.javaImports = parent.javaImports;
+    }
+    
     public static Environment fromMap(Map<String, Object> map) {
         Environment env = new Environment(null, map.size());
         for (Map.Entry<String, Object> entry : map.entrySet()) {
@@ -36,7 +47,7 @@ public class Environment {
     }
     
     public Object get(String name) {
-        Integer slot = nameToSlot.get(name);
+        Integer slot = nameToSlot != null ? nameToSlot.get(name) : null;
         if (slot != null) {
             return slots[slot];
         }
@@ -47,7 +58,7 @@ public class Environment {
     }
     
     public boolean isDefined(String name) {
-        if (nameToSlot.containsKey(name)) {
+        if (nameToSlot != null && nameToSlot.containsKey(name)) {
             return true;
         }
         if (parent != null) {
@@ -57,8 +68,16 @@ public class Environment {
     }
     
     public void define(String name, Object value) {
+        if (nameToSlot == null) {
+            throw new RuntimeException("Cannot define '" + name + "' in a resolved frame");
+        }
+        Integer existing = nameToSlot.get(name);
+        if (existing != null) {
+            slots[existing] = value;
+            return;
+        }
         if (nextSlot >= slots.length) {
-            throw new RuntimeException("Environment capacity exceeded");
+            slots = Arrays.copyOf(slots, slots.length * 2);
         }
         nameToSlot.put(name, nextSlot);
         slots[nextSlot] = value;
@@ -66,7 +85,7 @@ public class Environment {
     }
     
     public void set(String name, Object value) {
-        Integer slot = nameToSlot.get(name);
+        Integer slot = nameToSlot != null ? nameToSlot.get(name) : null;
         if (slot != null) {
             slots[slot] = value;
             return;
@@ -82,12 +101,48 @@ public class Environment {
         return new Environment(this);
     }
     
+    public Environment frame(int size) {
+        return new Environment(this, size, resolution);
+    }
+    
+    public Environment withResolution(Resolution resolution) {
+        return new Environment(this, 0, resolution);
+    }
+    
+    public Resolution resolution() {
+        return resolution;
+    }
+    
+    public long addressOf(Object node) {
+        return resolution == null ? Resolution.UNRESOLVED : resolution.get(node);
+    }
+    
+    public Object getAt(long address) {
+        return getAt(Resolution.depth(address), Resolution.slot(address));
+    }
+    
+    public Object getAt(int depth, int slot) {
+        Environment env = this;
+        for (; depth > 0; depth--) {
+            env = env.parent;
+        }
+        return env.slots[slot];
+    }
+    
+    public Object load(int slot) {
+        return slots[slot];
+    }
+    
+    public void store(int slot, Object value) {
+        slots[slot] = value;
+    }
+    
     public Environment getParent() {
         return parent;
     }
     
     public Integer getSlot(String name) {
-        Integer slot = nameToSlot.get(name);
+        Integer slot = nameToSlot != null ? nameToSlot.get(name) : null;
         if (slot != null) {
             return slot;
         }
@@ -97,13 +152,20 @@ public class Environment {
         return null;
     }
     
+    int localSlot(String name) {
+        Integer slot = nameToSlot != null ? nameToSlot.get(name) : null;
+        return slot != null ? slot : -1;
+    }
+    
     public Map<String, Object> toMap() {
         Map<String, Object> map = new HashMap<>();
         if (parent != null) {
             map.putAll(parent.toMap());
         }
-        for (Map.Entry<String, Integer> entry : nameToSlot.entrySet()) {
-            map.put(entry.getKey(), slots[entry.getValue()]);
+        if (nameToSlot != null) {
+            for (Map.Entry<String, Integer> entry : nameToSlot.entrySet()) {
+                map.put(entry.getKey(), slots[entry.getValue()]);
+            }
         }
         return map;
     }
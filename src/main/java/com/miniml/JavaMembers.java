@@ -0,0 +1,219 @@
+package com.miniml;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class JavaMembers {
+    private static final Map<String, Optional<Class<?>>> classes = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, List<Member>>> methods = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, List<Member>> constructors = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, Optional<Field>>> fields = new ConcurrentHashMap<>();
+
+    public record Member(Executable executable, boolean isStatic, Class<?>[] parameterClasses,
+                         Type[] parameterTypes, String[] parameterDescriptors,
+                         Class<?> returnClass, Type returnType, String descriptor) {
+        public int arity() {
+            return parameterClasses.length;
+        }
+    }
+
+    private JavaMembers() {}
+
+    public static Optional<Class<?>> findClass(String name) {
+        return classes.computeIfAbsent(name, JavaMembers::load);
+    }
+
+    public static Optional<Class<?>> findClassOrLang(String name) {
+        Optional<Class<?>> clazz = findClass(name);
+        if (clazz.isEmpty() && !name.contains(".")) {
+            return findClass("java.lang." + name);
+        }
+        return clazz;
+    }
+
+    public static List<Member> methods(Class<?> clazz, String name) {
+        return methods.computeIfAbsent(clazz, JavaMembers::indexMethods).getOrDefault(name, List.of());
+    }
+
+    public static List<Member> methods(Class<?> clazz, String name, int arity) {
+        List<Member> named = methods(clazz, name);
+        List<Member> result = new ArrayList<>(named.size());
+        for (Member member : named) {
+            if (member.arity() == arity) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    public static List<Member> constructors(Class<?> clazz, int arity) {
+        List<Member> all = constructors.computeIfAbsent(clazz, JavaMembers::indexConstructors);
+        List<Member> result = new ArrayList<>(all.size());
+        for (Member member : all) {
+            if (member.arity() == arity) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    public static List<Member> matching(List<Member> candidates, Type[] argTypes) {
+        List<Member> result = new ArrayList<>(candidates.size());
+        for (Member member : candidates) {
+            if (matches(member, argTypes)) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    public static Optional<Member> select(List<Member> candidates, Object[] values) {
+        Member best = null;
+        for (Member member : candidates) {
+            if (accepts(member, values) && (best == null || moreSpecific(member, best))) {
+                best = member;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public static Optional<Field> field(Class<?> clazz, String name) {
+        return fields.computeIfAbsent(clazz, c -> new ConcurrentHashMap<>())
+            .computeIfAbsent(name, n -> {
+                try {
+                    return Optional.of(clazz.getField(n));
+                } catch (NoSuchFieldException e) {
+                    return Optional.empty();
+                }
+            });
+    }
+
+    public static Type groundType(Class<?> javaType) {
+        if (javaType == int.class || javaType == Integer.class
+                || javaType == long.class || javaType == Long.class
+                || javaType == short.class || javaType == Short.class) {
+            return Type.INT;
+        } else if (javaType == double.class || javaType == Double.class
+                || javaType == float.class || javaType == Float.class) {
+            return Type.DOUBLE;
+        } else if (javaType == boolean.class || javaType == Boolean.class) {
+            return Type.BOOL;
+        } else if (javaType == String.class) {
+            return Type.STRING;
+        } else if (javaType == void.class) {
+            return Type.UNIT;
+        } else if (javaType.getTypeParameters().length > 0) {
+            return null;
+        }
+        return new Type.TJava(javaType.getName(), List.of());
+    }
+
+    private static boolean matches(Member member, Type[] argTypes) {
+        for (int i = 0; i < member.arity(); i++) {
+            Type argType = argTypes[i];
+            if (argType == null || argType instanceof Type.TVar || argType instanceof Type.TNumeric) {
+                continue;
+            }
+            Type paramType = member.parameterTypes()[i];
+            if (paramType == null) {
+                if (!(argType instanceof Type.TJava(String className, List<Type> typeArgs))
+                        || !className.equals(member.parameterClasses()[i].getName())) {
+                    return false;
+                }
+            } else if (!paramType.equals(argType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean accepts(Member member, Object[] values) {
+        for (int i = 0; i < member.arity(); i++) {
+            Class<?> param = member.parameterClasses()[i];
+            if (values[i] == null ? param.isPrimitive() : !boxed(param).isInstance(values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean moreSpecific(Member member, Member other) {
+        for (int i = 0; i < member.arity(); i++) {
+            if (!boxed(other.parameterClasses()[i]).isAssignableFrom(boxed(member.parameterClasses()[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Class<?> boxed(Class<?> javaType) {
+        if (!javaType.isPrimitive()) {
+            return javaType;
+        } else if (javaType == int.class) {
+            return Integer.class;
+        } else if (javaType == long.class) {
+            return Long.class;
+        } else if (javaType == short.class) {
+            return Short.class;
+        } else if (javaType == double.class) {
+            return Double.class;
+        } else if (javaType == float.class) {
+            return Float.class;
+        } else if (javaType == boolean.class) {
+            return Boolean.class;
+        } else if (javaType == char.class) {
+            return Character.class;
+        } else if (javaType == byte.class) {
+            return Byte.class;
+        }
+        return Void.class;
+    }
+
+    private static Optional<Class<?>> load(String name) {
+        try {
+            return Optional.of(Class.forName(name));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Map<String, List<Member>> indexMethods(Class<?> clazz) {
+        Map<String, List<Member>> index = new HashMap<>();
+        for (Method method : clazz.getMethods()) {
+            if (!Modifier.isPublic(method.getModifiers())) {
+                continue;
+            }
+            index.computeIfAbsent(method.getName(), k -> new ArrayList<>())
+                .add(member(method, Modifier.isStatic(method.getModifiers()), method.getReturnType()));
+        }
+        index.replaceAll((name, members) -> List.copyOf(members));
+        return index;
+    }
+
+    private static List<Member> indexConstructors(Class<?> clazz) {
+        List<Member> result = new ArrayList<>();
+        for (var constructor : clazz.getConstructors()) {
+            result.add(member(constructor, false, void.class));
+        }
+        return List.copyOf(result);
+    }
+
+    private static Member member(Executable executable, boolean isStatic, Class<?> returnClass) {
+        Class<?>[] parameterClasses = executable.getParameterTypes();
+        Type[] parameterTypes = new Type[parameterClasses.length];
+        String[] parameterDescriptors = new String[parameterClasses.length];
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < parameterClasses.length; i++) {
+            parameterTypes[i] = groundType(parameterClasses[i]);
+            parameterDescriptors[i] = org.objectweb.asm.Type.getDescriptor(parameterClasses[i]);
+            descriptor.append(parameterDescriptors[i]);
+        }
+        descriptor.append(")").append(org.objectweb.asm.Type.getDescriptor(returnClass));
+        return new Member(executable, isStatic, parameterClasses, parameterTypes, parameterDescriptors,
+            returnClass, groundType(returnClass), descriptor.toString());
+    }
+}
@@ -21,14 +21,20 @@ public class Lexer {
 
     public List<Token> tokenize() {
         List<Token> tokens = new ArrayList<>();
-        while (pos < source.length()) {
-            skipWhitespace();
-            if (pos >= source.length()) break;
+        Token token;
+        do {
+            token = next();
+            tokens.add(token);
+        } while (token.type != Token.Type.EOF);
+        return tokens;
+    }
 
-            tokens.add(nextToken());
+    public Token next() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            return new Token(Token.Type.EOF, "", line, column);
         }
-        tokens.add(new Token(Token.Type.EOF, "", line, column));
-        return tokens;
+        return nextToken();
     }
 
     private void skipWhitespace() {
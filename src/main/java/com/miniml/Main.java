@@ -10,12 +10,31 @@ import com.miniml.expr.Expr;
 
 public class Main {
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: miniml <source.mml>");
+        String sourceFile = null;
+        boolean mergeMutualRecursion = false;
+        boolean dumpOptimized = false;
+        boolean stream = false;
+        Integer specializationBudget = null;
+        for (String arg : args) {
+            if (arg.equals("--merge-mutual-recursion")) {
+                mergeMutualRecursion = true;
+            } else if (arg.equals("--dump-optimized")) {
+                dumpOptimized = true;
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else if (arg.startsWith("--specialization-budget=")) {
+                specializationBudget = Integer.parseInt(arg.substring("--specialization-budget=".length()));
+            } else if (sourceFile == null && !arg.startsWith("--")) {
+                sourceFile = arg;
+            } else {
+                sourceFile = null;
+                break;
+            }
+        }
+        if (sourceFile == null) {
+            System.err.println("Usage: miniml [--merge-mutual-recursion] [--dump-optimized] [--stream] [--specialization-budget=N] <source.mml>");
             System.exit(1);
         }
-        
-        String sourceFile = args[0];
 
         if (!sourceFile.startsWith("stdlib/") && !sourceFile.startsWith("tests/") && !sourceFile.startsWith("test_")) {
             try {
@@ -29,6 +48,11 @@ public class Main {
         try {
             String source = Files.readString(Path.of(sourceFile));
             
+            if (stream) {
+                compileStreaming(sourceFile, source);
+                return;
+            }
+            
             Lexer lexer = new Lexer(source, sourceFile);
             List<Token> tokens = lexer.tokenize();
             
@@ -40,43 +64,31 @@ public class Main {
             try {
                 typeInf.inferModule(module);
                 TypeDumper.dumpModule(module, typeInf.getTypeMap(), typeInf.getInstantiations());
+                module = new Optimizer(typeInf.getTypeMap()).optimizeModule(module);
+                if (dumpOptimized) {
+                    TypeDumper.dumpModule(module, typeInf.getTypeMap(), typeInf.getInstantiations(), "OPTIMIZED MODULE DUMP");
+                }
             } catch (TypeInference.TypeException e) {
                 String message = e.getFilename() + ": " + e.getMessage();
                 System.err.println("Type error: " + message);
                 System.exit(1);
             }
             
-            String fileName = Path.of(sourceFile)
-                .getFileName()
-                .toString()
-                .replace(".mml", "");
-            
-            StringBuilder className = new StringBuilder();
-            boolean capitalizeNext = true;
-            for (char c : fileName.toCharArray()) {
-                if (c == '_') {
-                    capitalizeNext = true;
-                } else {
-                    className.append(capitalizeNext ? Character.toUpperCase(c) : c);
-                    capitalizeNext = false;
-                }
-            }
-            String finalClassName = className.toString();
+            String finalClassName = classNameFor(sourceFile);
             
             Compiler compiler = new Compiler(finalClassName, typeInf.getTypeMap(), typeInf.getInstantiations());
             compiler.setLetRecTypes(typeInf.getLetRecTypes());
-            byte[] bytecode = compiler.compileModule(module);
-            
-            Path targetDir;
-            if (sourceFile.startsWith("tests/")) {
-                targetDir = Path.of("target/minimltests");
-            } else {
-                targetDir = Path.of("target");
+            compiler.setMergeMutualRecursion(mergeMutualRecursion);
+            if (specializationBudget != null) {
+                compiler.setSpecializationBudget(specializationBudget);
             }
-            if (!Files.exists(targetDir)) {
-                Files.createDirectories(targetDir);
+            byte[] bytecode = compiler.compileModule(module);
+            for (String warning : compiler.getWarnings()) {
+                System.err.println("Warning: " + sourceFile + ": " + warning);
             }
             
+            Path targetDir = targetDirFor(sourceFile);
+            
             String outputFile = targetDir + "/" + finalClassName + ".class";
             Files.write(Path.of(outputFile), bytecode);
             
@@ -105,6 +117,61 @@ public class Main {
         }
     }
     
+    private static void compileStreaming(String sourceFile, String source) throws IOException {
+        String finalClassName = classNameFor(sourceFile);
+        ModulePipeline pipeline = new ModulePipeline(finalClassName, sourceFile);
+        byte[] bytecode;
+        try {
+            bytecode = pipeline.compile(source);
+        } catch (TypeInference.TypeException e) {
+            System.err.println("Type error: " + e.getFilename() + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        for (String warning : pipeline.getWarnings()) {
+            System.err.println("Warning: " + sourceFile + ": " + warning);
+        }
+        
+        Path targetDir = targetDirFor(sourceFile);
+        String outputFile = targetDir + "/" + finalClassName + ".class";
+        Files.write(Path.of(outputFile), bytecode);
+        pipeline.getModuleInterface().writeToFile(Path.of(targetDir + "/" + finalClassName + ".mli"));
+        
+        System.out.println("Compiled " + sourceFile + " -> " + outputFile);
+    }
+    
+    private static String classNameFor(String sourceFile) {
+        String fileName = Path.of(sourceFile)
+            .getFileName()
+            .toString()
+            .replace(".mml", "");
+        
+        StringBuilder className = new StringBuilder();
+        boolean capitalizeNext = true;
+        for (char c : fileName.toCharArray()) {
+            if (c == '_') {
+                capitalizeNext = true;
+            } else {
+                className.append(capitalizeNext ? Character.toUpperCase(c) : c);
+                capitalizeNext = false;
+            }
+        }
+        return className.toString();
+    }
+    
+    private static Path targetDirFor(String sourceFile) throws IOException {
+        Path targetDir;
+        if (sourceFile.startsWith("tests/")) {
+            targetDir = Path.of("target/minimltests");
+        } else {
+            targetDir = Path.of("target");
+        }
+        if (!Files.exists(targetDir)) {
+            Files.createDirectories(targetDir);
+        }
+        return targetDir;
+    }
+    
     private static boolean containsUnresolvedTypeVars(Type type) {
         return switch (type) {
             case Type.TVar v -> true;
@@ -157,12 +224,14 @@ public class Main {
                 } catch (TypeInference.TypeException e) {
                     throw new RuntimeException("Type error in stdlib: " + e.getMessage(), e);
                 }
+                module = new Optimizer(typeInf.getTypeMap()).optimizeModule(module);
                 
                 String fileName = stdlibFile.getFileName()
                     .toString()
                     .replace(".mml", "");
                 
                 Compiler compiler = new Compiler(fileName, typeInf.getTypeMap(), typeInf.getInstantiations());
+                compiler.setLetRecTypes(typeInf.getLetRecTypes());
                 byte[] bytecode = compiler.compileModule(module);
                 
                 Path targetDir = Path.of("target");
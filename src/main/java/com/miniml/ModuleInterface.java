@@ -3,6 +3,7 @@ package com.miniml;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,7 +16,7 @@ public class ModuleInterface {
     }
     
     public Map<String, Type> getExports() {
-        return new HashMap<>(exports);
+        return Collections.unmodifiableMap(exports);
     }
     
     public Type getType(String name) {
@@ -70,8 +71,8 @@ public class ModuleInterface {
                 String paramStr = param instanceof Type.TFun ? "(" + typeToString(param) + ")" : typeToString(param);
                 yield paramStr + " -> " + typeToString(result);
             }
-            case Type.TVar(String name) -> name;
-            case Type.TNumeric(String name) -> "numeric";
+            case Type.TVar(String name, int cell) -> name;
+            case Type.TNumeric(String name, int cell) -> "numeric";
             case Type.TScheme(List<String> vars, Type innerType) -> typeToString(innerType);
             case Type.TApp(String name, List<Type> args) -> name;
             case Type.TName(String name) -> name;
@@ -94,21 +95,21 @@ public class ModuleInterface {
             
             Type paramType = parseTypeString(paramStr);
             Type resultType = parseTypeString(resultStr);
-            return new Type.TFun(paramType, resultType);
+            return Type.fun(paramType, resultType);
         }
         
         if (typeStr.endsWith(" list")) {
             String elementTypeStr = typeStr.substring(0, typeStr.length() - 5).trim();
             Type elementType = parseTypeString(elementTypeStr);
-            return new Type.TList(elementType);
+            return Type.list(elementType);
         }
         
         return switch (typeStr) {
-            case "int" -> new Type.TInt();
-            case "double" -> new Type.TDouble();
-            case "bool" -> new Type.TBool();
-            case "string" -> new Type.TString();
-            case "unit" -> new Type.TUnit();
+            case "int" -> Type.INT;
+            case "double" -> Type.DOUBLE;
+            case "bool" -> Type.BOOL;
+            case "string" -> Type.STRING;
+            case "unit" -> Type.UNIT;
             default -> new Type.TVar(typeStr);
         };
     }
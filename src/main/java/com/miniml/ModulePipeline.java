@@ -0,0 +1,102 @@
+package com.miniml;
+
+import java.util.*;
+import com.miniml.expr.Expr;
+
+public class ModulePipeline {
+    private final String className;
+    private final String filename;
+    private final ModuleInterface moduleInterface = new ModuleInterface();
+    private final List<Module.TopLevel> pending = new ArrayList<>();
+    private final Set<String> pendingNames = new HashSet<>();
+    private final Set<String> unresolved = new HashSet<>();
+    private TypeInference typeInf;
+    private Compiler compiler;
+    private List<String> imports;
+    private int flushes = 0;
+
+    public ModulePipeline(String className, String filename) {
+        this.className = className;
+        this.filename = filename;
+    }
+
+    public byte[] compile(String source) throws TypeInference.TypeException {
+        Parser parser = new Parser(new TokenStream(new Lexer(source, filename)));
+        imports = parser.parseImports();
+
+        typeInf = new TypeInference();
+        typeInf.setFilename(filename);
+        typeInf.beginModule(imports);
+
+        compiler = new Compiler(className, new IdentityHashMap<>(), typeInf.getInstantiations());
+        compiler.setLetRecTypes(typeInf.getLetRecTypes());
+        compiler.beginStreaming(imports);
+
+        Module.TopLevel decl;
+        while ((decl = parser.parseDeclaration()) != null) {
+            if (decl instanceof Module.TopLevel.FnDecl fn) {
+                addPendingFunction(fn);
+                if (unresolved.isEmpty()) {
+                    flush();
+                }
+                continue;
+            }
+            flush();
+            pending.add(decl);
+            flush();
+        }
+        flush();
+
+        Expr mainExpr = parser.parseMainExpr();
+        typeInf.finishModule(mainExpr);
+        return compiler.finishStreaming(mainExpr, typeInf.getTypeMap());
+    }
+
+    public ModuleInterface getModuleInterface() {
+        return moduleInterface;
+    }
+
+    public List<String> getWarnings() {
+        return compiler.getWarnings();
+    }
+
+    int getFlushCount() {
+        return flushes;
+    }
+
+    private void addPendingFunction(Module.TopLevel.FnDecl fn) {
+        pending.add(fn);
+        pendingNames.add(fn.name());
+        unresolved.remove(fn.name());
+        for (String name : CallGraph.freeVariables(fn)) {
+            if (!pendingNames.contains(name) && !typeInf.getTypeEnv().containsKey(name)) {
+                unresolved.add(name);
+            }
+        }
+    }
+
+    private void flush() throws TypeInference.TypeException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Module.TopLevel> chunk = List.copyOf(pending);
+        pending.clear();
+        pendingNames.clear();
+        unresolved.clear();
+        flushes++;
+
+        typeInf.inferDeclarations(chunk);
+        Map<Expr, Type> types = typeInf.releaseTypeMap();
+        Module optimized = new Optimizer(types).optimizeModule(new Module(imports, chunk, null));
+        compiler.compileDeclarations(optimized.declarations(), types);
+
+        for (Module.TopLevel decl : chunk) {
+            if (decl instanceof Module.TopLevel.FnDecl fn) {
+                Type fnType = typeInf.getTypeEnv().get(fn.name());
+                if (fnType != null) {
+                    moduleInterface.addExport(fn.name(), fnType);
+                }
+            }
+        }
+    }
+}
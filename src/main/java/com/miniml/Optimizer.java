@@ -0,0 +1,425 @@
+package com.miniml;
+
+import java.util.*;
+import com.miniml.expr.*;
+import com.miniml.expr.Expr.Op;
+import com.miniml.expr.Expr.UnOp;
+
+public class Optimizer {
+    private final Map<Expr, Type> typeMap;
+
+    public Optimizer(Map<Expr, Type> typeMap) {
+        this.typeMap = typeMap;
+    }
+
+    public Module optimizeModule(Module module) {
+        List<Module.TopLevel> declarations = new ArrayList<>();
+        for (Module.TopLevel decl : module.declarations()) {
+            switch (decl) {
+                case Module.TopLevel.FnDecl(String name, List<Module.Param> params, var returnType, Expr body) -> {
+                    Set<String> scope = new HashSet<>();
+                    params.forEach(p -> scope.add(p.name()));
+                    declarations.add(new Module.TopLevel.FnDecl(name, params, returnType, optimize(body, scope)));
+                }
+                case Module.TopLevel.LetDecl(String name, Expr value) ->
+                    declarations.add(new Module.TopLevel.LetDecl(name, optimize(value, Set.of())));
+                default -> declarations.add(decl);
+            }
+        }
+        Expr mainExpr = module.mainExpr() == null ? null : optimize(module.mainExpr(), Set.of());
+        return new Module(module.imports(), declarations, mainExpr);
+    }
+
+    public Expr optimize(Expr expr) {
+        return optimize(expr, Set.of());
+    }
+
+    private Expr optimize(Expr expr, Set<String> scope) {
+        return switch (expr) {
+            case BinOp(Op op, Expr left, Expr right) -> {
+                Expr l = optimize(left, scope);
+                Expr r = optimize(right, scope);
+                Expr folded = foldBinOp(op, l, r);
+                if (folded != null) {
+                    yield typed(folded, expr);
+                }
+                yield l == left && r == right ? expr : typed(new BinOp(op, l, r), expr);
+            }
+            case UnaryOp(UnOp op, Expr operand) -> {
+                Expr o = optimize(operand, scope);
+                Expr folded = switch (o) {
+                    case IntLit(int v) when op == UnOp.NEG -> new IntLit(-v);
+                    case FloatLit(double v) when op == UnOp.NEG -> new FloatLit(-v);
+                    case BoolLit(boolean v) when op == UnOp.NOT -> new BoolLit(!v);
+                    default -> null;
+                };
+                if (folded != null) {
+                    yield typed(folded, expr);
+                }
+                yield o == operand ? expr : typed(new UnaryOp(op, o), expr);
+            }
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                Expr c = optimize(cond, scope);
+                if (c instanceof BoolLit(boolean value)) {
+                    yield optimize(value ? thenBranch : elseBranch, scope);
+                }
+                Expr t = optimize(thenBranch, scope);
+                Expr e = optimize(elseBranch, scope);
+                yield c == cond && t == thenBranch && e == elseBranch ? expr : typed(new If(c, t, e), expr);
+            }
+            case Let(String name, Expr value, Expr body) -> {
+                Expr v = optimize(value, scope);
+                if (isPropagatable(v, scope)) {
+                    Expr substituted = substitute(body, name, v);
+                    if (substituted != null) {
+                        yield optimize(substituted, scope);
+                    }
+                }
+                Expr b = optimize(body, CallGraph.with(scope, List.of(name)));
+                if (!occursFree(name, b) && isPure(v)) {
+                    yield b;
+                }
+                yield v == value && b == body ? expr : typed(new Let(name, v, b), expr);
+            }
+            case LetRec(String name, List<String> params, Expr value, Expr body) -> {
+                Set<String> inner = CallGraph.with(scope, List.of(name));
+                Expr v = optimize(value, CallGraph.with(inner, params));
+                Expr b = optimize(body, inner);
+                yield v == value && b == body ? expr : typed(new LetRec(name, params, v, b), expr);
+            }
+            case Lambda(List<String> params, Expr body) -> {
+                Expr b = optimize(body, CallGraph.with(scope, params));
+                yield b == body ? expr : typed(new Lambda(params, b), expr);
+            }
+            case App(Expr func, List<Expr> args) -> {
+                List<Expr> a = optimizeAll(args, scope);
+                yield a == args ? expr : typed(new App(func, a), expr);
+            }
+            case Sequence(List<Expr> exprs) -> {
+                List<Expr> kept = new ArrayList<>();
+                boolean changed = false;
+                for (int i = 0; i < exprs.size(); i++) {
+                    Expr e = optimize(exprs.get(i), scope);
+                    if (i == exprs.size() - 1 || !isPure(e)) {
+                        kept.add(e);
+                    }
+                    changed |= e != exprs.get(i);
+                }
+                if (kept.size() == 1) {
+                    yield kept.get(0);
+                }
+                yield !changed && kept.size() == exprs.size() ? expr : typed(new Sequence(kept), expr);
+            }
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
+                Expr s = optimize(scrutinee, scope);
+                List<Match.MatchCase> optimizedCases = new ArrayList<>();
+                boolean changed = s != scrutinee;
+                for (Match.MatchCase matchCase : cases) {
+                    List<String> patternVars = new ArrayList<>();
+                    CallGraph.collectPatternVars(matchCase.pattern(), patternVars);
+                    Expr body = optimize(matchCase.body(), CallGraph.with(scope, patternVars));
+                    changed |= body != matchCase.body();
+                    optimizedCases.add(body == matchCase.body() ? matchCase : new Match.MatchCase(matchCase.pattern(), body));
+                }
+                yield changed ? typed(new Match(s, optimizedCases), expr) : expr;
+            }
+            case Print(Expr value) -> {
+                Expr v = optimize(value, scope);
+                yield v == value ? expr : typed(new Print(v), expr);
+            }
+            case Cons(Expr head, Expr tail) -> {
+                Expr h = optimize(head, scope);
+                Expr t = optimize(tail, scope);
+                yield h == head && t == tail ? expr : typed(new Cons(h, t), expr);
+            }
+            case ListLit(List<Expr> elements) -> {
+                List<Expr> e = optimizeAll(elements, scope);
+                yield e == elements ? expr : typed(new ListLit(e), expr);
+            }
+            case Constructor(String name, Optional<Expr> arg) -> {
+                if (arg.isEmpty()) {
+                    yield expr;
+                }
+                Expr a = optimize(arg.get(), scope);
+                yield a == arg.get() ? expr : typed(new Constructor(name, Optional.of(a)), expr);
+            }
+            case JavaCall(String className, String methodName, List<Expr> args) -> {
+                List<Expr> a = optimizeAll(args, scope);
+                yield a == args ? expr : typed(new JavaCall(className, methodName, a), expr);
+            }
+            case JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) -> {
+                Expr i = optimize(instance, scope);
+                List<Expr> a = optimizeAll(args, scope);
+                yield i == instance && a == args ? expr : typed(new JavaInstanceCall(className, methodName, i, a), expr);
+            }
+            default -> expr;
+        };
+    }
+
+    private List<Expr> optimizeAll(List<Expr> exprs, Set<String> scope) {
+        List<Expr> result = new ArrayList<>();
+        boolean changed = false;
+        for (Expr e : exprs) {
+            Expr optimized = optimize(e, scope);
+            changed |= optimized != e;
+            result.add(optimized);
+        }
+        return changed ? result : exprs;
+    }
+
+    private Expr foldBinOp(Op op, Expr left, Expr right) {
+        if (left instanceof IntLit(int l) && right instanceof IntLit(int r)) {
+            return switch (op) {
+                case ADD -> new IntLit(l + r);
+                case SUB -> new IntLit(l - r);
+                case MUL -> new IntLit(l * r);
+                case DIV -> r == 0 ? null : new IntLit(l / r);
+                case MOD -> r == 0 ? null : new IntLit(l % r);
+                case EQ -> new BoolLit(l == r);
+                case NE -> new BoolLit(l != r);
+                case LT -> new BoolLit(l < r);
+                case GT -> new BoolLit(l > r);
+                case LE -> new BoolLit(l <= r);
+                case GE -> new BoolLit(l >= r);
+                default -> null;
+            };
+        }
+        if (left instanceof FloatLit(double l) && right instanceof FloatLit(double r)) {
+            return switch (op) {
+                case ADD -> new FloatLit(l + r);
+                case SUB -> new FloatLit(l - r);
+                case MUL -> new FloatLit(l * r);
+                case DIV -> new FloatLit(l / r);
+                case MOD -> new FloatLit(l % r);
+                case EQ -> new BoolLit(l == r);
+                case NE -> new BoolLit(l != r);
+                case LT -> new BoolLit(l < r);
+                case GT -> new BoolLit(l > r);
+                case LE -> new BoolLit(l <= r);
+                case GE -> new BoolLit(l >= r);
+                default -> null;
+            };
+        }
+        if (left instanceof BoolLit(boolean l)) {
+            if (right instanceof BoolLit(boolean r) && (op == Op.EQ || op == Op.NE)) {
+                return new BoolLit(op == Op.EQ ? l == r : l != r);
+            }
+            if (op == Op.AND) {
+                return l ? right : new BoolLit(false);
+            }
+            if (op == Op.OR) {
+                return l ? new BoolLit(true) : right;
+            }
+        }
+        return null;
+    }
+
+    private Expr typed(Expr replacement, Expr original) {
+        if (!typeMap.containsKey(replacement)) {
+            Type type = switch (replacement) {
+                case IntLit i -> Type.INT;
+                case FloatLit f -> Type.DOUBLE;
+                case BoolLit b -> Type.BOOL;
+                case StringLit s -> Type.STRING;
+                default -> typeMap.get(original);
+            };
+            if (type != null) {
+                typeMap.put(replacement, type);
+            }
+        }
+        return replacement;
+    }
+
+    private boolean isPropagatable(Expr value, Set<String> scope) {
+        return switch (value) {
+            case IntLit i -> true;
+            case FloatLit f -> true;
+            case BoolLit b -> true;
+            case StringLit s -> true;
+            case Var(String name) -> scope.contains(name);
+            default -> false;
+        };
+    }
+
+    private boolean isPure(Expr expr) {
+        return switch (expr) {
+            case IntLit i -> true;
+            case FloatLit f -> true;
+            case BoolLit b -> true;
+            case StringLit s -> true;
+            case com.miniml.expr.Unit u -> true;
+            case Var v -> true;
+            case Lambda l -> true;
+            case BinOp(Op op, Expr left, Expr right) ->
+                (op != Op.DIV && op != Op.MOD || right instanceof IntLit(int r) && r != 0 || right instanceof FloatLit)
+                    && isPure(left) && isPure(right);
+            case UnaryOp(UnOp op, Expr operand) -> isPure(operand);
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> isPure(cond) && isPure(thenBranch) && isPure(elseBranch);
+            case Let(String name, Expr value, Expr body) -> isPure(value) && isPure(body);
+            case Cons(Expr head, Expr tail) -> isPure(head) && isPure(tail);
+            case ListLit(List<Expr> elements) -> elements.stream().allMatch(this::isPure);
+            case Constructor(String name, Optional<Expr> arg) -> arg.map(this::isPure).orElse(true);
+            default -> false;
+        };
+    }
+
+    private Expr substitute(Expr expr, String name, Expr replacement) {
+        String replacementVar = replacement instanceof Var(String v) ? v : null;
+        return switch (expr) {
+            case Var(String n) when n.equals(name) -> {
+                Expr copy = replacementVar != null ? new Var(replacementVar) : copyLiteral(replacement);
+                typeMap.put(copy, typeMap.containsKey(expr) ? typeMap.get(expr) : typeMap.get(replacement));
+                yield copy;
+            }
+            case BinOp(Op op, Expr left, Expr right) -> {
+                Expr l = substitute(left, name, replacement);
+                Expr r = substitute(right, name, replacement);
+                yield l == null || r == null ? null : rebuilt(l == left && r == right, expr, () -> new BinOp(op, l, r));
+            }
+            case UnaryOp(UnOp op, Expr operand) -> {
+                Expr o = substitute(operand, name, replacement);
+                yield o == null ? null : rebuilt(o == operand, expr, () -> new UnaryOp(op, o));
+            }
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                Expr c = substitute(cond, name, replacement);
+                Expr t = substitute(thenBranch, name, replacement);
+                Expr e = substitute(elseBranch, name, replacement);
+                yield c == null || t == null || e == null ? null
+                    : rebuilt(c == cond && t == thenBranch && e == elseBranch, expr, () -> new If(c, t, e));
+            }
+            case Let(String n, Expr value, Expr body) -> {
+                Expr v = substitute(value, name, replacement);
+                if (v == null) {
+                    yield null;
+                }
+                Expr b = substituteUnder(List.of(n), body, name, replacement);
+                yield b == null ? null : rebuilt(v == value && b == body, expr, () -> new Let(n, v, b));
+            }
+            case LetRec(String n, List<String> params, Expr value, Expr body) -> {
+                List<String> valueBinders = new ArrayList<>(params);
+                valueBinders.add(n);
+                Expr v = substituteUnder(valueBinders, value, name, replacement);
+                Expr b = substituteUnder(List.of(n), body, name, replacement);
+                yield v == null || b == null ? null : rebuilt(v == value && b == body, expr, () -> new LetRec(n, params, v, b));
+            }
+            case Lambda(List<String> params, Expr body) -> {
+                Expr b = substituteUnder(params, body, name, replacement);
+                yield b == null ? null : rebuilt(b == body, expr, () -> new Lambda(params, b));
+            }
+            case App(Expr func, List<Expr> args) -> {
+                Expr f = func instanceof Var(String n) && n.equals(name) && replacementVar == null ? null : substitute(func, name, replacement);
+                List<Expr> a = substituteAll(args, name, replacement);
+                yield f == null || a == null ? null : rebuilt(f == func && a == args, expr, () -> new App(f, a));
+            }
+            case Sequence(List<Expr> exprs) -> {
+                List<Expr> s = substituteAll(exprs, name, replacement);
+                yield s == null ? null : rebuilt(s == exprs, expr, () -> new Sequence(s));
+            }
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
+                Expr s = substitute(scrutinee, name, replacement);
+                if (s == null) {
+                    yield null;
+                }
+                List<Match.MatchCase> substitutedCases = new ArrayList<>();
+                boolean unchanged = s == scrutinee;
+                for (Match.MatchCase matchCase : cases) {
+                    List<String> patternVars = new ArrayList<>();
+                    CallGraph.collectPatternVars(matchCase.pattern(), patternVars);
+                    Expr body = substituteUnder(patternVars, matchCase.body(), name, replacement);
+                    if (body == null) {
+                        yield null;
+                    }
+                    unchanged &= body == matchCase.body();
+                    substitutedCases.add(body == matchCase.body() ? matchCase : new Match.MatchCase(matchCase.pattern(), body));
+                }
+                yield rebuilt(unchanged, expr, () -> new Match(s, substitutedCases));
+            }
+            case Print(Expr value) -> {
+                Expr v = substitute(value, name, replacement);
+                yield v == null ? null : rebuilt(v == value, expr, () -> new Print(v));
+            }
+            case Cons(Expr head, Expr tail) -> {
+                Expr h = substitute(head, name, replacement);
+                Expr t = substitute(tail, name, replacement);
+                yield h == null || t == null ? null : rebuilt(h == head && t == tail, expr, () -> new Cons(h, t));
+            }
+            case ListLit(List<Expr> elements) -> {
+                List<Expr> e = substituteAll(elements, name, replacement);
+                yield e == null ? null : rebuilt(e == elements, expr, () -> new ListLit(e));
+            }
+            case Constructor(String n, Optional<Expr> arg) -> {
+                if (arg.isEmpty()) {
+                    yield expr;
+                }
+                Expr a = substitute(arg.get(), name, replacement);
+                yield a == null ? null : rebuilt(a == arg.get(), expr, () -> new Constructor(n, Optional.of(a)));
+            }
+            case StringInterp(List<Object> parts) -> {
+                if (!parts.contains(new Var(name))) {
+                    yield expr;
+                }
+                if (replacementVar == null) {
+                    yield null;
+                }
+                List<Object> substitutedParts = new ArrayList<>();
+                for (Object part : parts) {
+                    substitutedParts.add(part instanceof Var(String n) && n.equals(name) ? new Var(replacementVar) : part);
+                }
+                yield typed(new StringInterp(substitutedParts), expr);
+            }
+            case JavaCall(String className, String methodName, List<Expr> args) -> {
+                List<Expr> a = substituteAll(args, name, replacement);
+                yield a == null ? null : rebuilt(a == args, expr, () -> new JavaCall(className, methodName, a));
+            }
+            case JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) -> {
+                Expr i = substitute(instance, name, replacement);
+                List<Expr> a = substituteAll(args, name, replacement);
+                yield i == null || a == null ? null
+                    : rebuilt(i == instance && a == args, expr, () -> new JavaInstanceCall(className, methodName, i, a));
+            }
+            default -> expr;
+        };
+    }
+
+    private Expr substituteUnder(List<String> binders, Expr body, String name, Expr replacement) {
+        if (binders.contains(name)) {
+            return body;
+        }
+        if (replacement instanceof Var(String v) && binders.contains(v) && occursFree(name, body)) {
+            return null;
+        }
+        return substitute(body, name, replacement);
+    }
+
+    private List<Expr> substituteAll(List<Expr> exprs, String name, Expr replacement) {
+        List<Expr> result = new ArrayList<>();
+        boolean changed = false;
+        for (Expr e : exprs) {
+            Expr substituted = substitute(e, name, replacement);
+            if (substituted == null) {
+                return null;
+            }
+            changed |= substituted != e;
+            result.add(substituted);
+        }
+        return changed ? result : exprs;
+    }
+
+    private Expr rebuilt(boolean unchanged, Expr original, java.util.function.Supplier<Expr> rebuild) {
+        return unchanged ? original : typed(rebuild.get(), original);
+    }
+
+    private Expr copyLiteral(Expr literal) {
+        return switch (literal) {
+            case IntLit(int v) -> new IntLit(v);
+            case FloatLit(double v) -> new FloatLit(v);
+            case BoolLit(boolean v) -> new BoolLit(v);
+            case StringLit(String v) -> new StringLit(v);
+            default -> throw new IllegalArgumentException("Not a literal: " + literal);
+        };
+    }
+
+    private boolean occursFree(String name, Expr expr) {
+        return CallGraph.references(expr, Set.of(name)).contains(name);
+    }
+}
@@ -0,0 +1,97 @@
+package com.miniml;
+
+import java.util.*;
+
+public class OverloadSet {
+    private static final String ANY = "*";
+    private static final String NUMERIC = "#";
+
+    private record Candidate(int order, Type scheme, List<String> heads) {}
+
+    private final List<Candidate> candidates = new ArrayList<>();
+    private final Map<String, List<Candidate>> byFirstHead = new HashMap<>();
+    private final List<Candidate> anyFirstHead = new ArrayList<>();
+
+    public void add(Type scheme) {
+        List<String> heads = new ArrayList<>();
+        Type type = scheme instanceof Type.TScheme(List<String> vars, Type inner) ? inner : scheme;
+        while (type instanceof Type.TFun(Type param, Type result)) {
+            heads.add(head(param));
+            type = result;
+        }
+        Candidate candidate = new Candidate(candidates.size(), scheme, heads);
+        candidates.add(candidate);
+        if (heads.isEmpty() || heads.get(0).equals(ANY)) {
+            anyFirstHead.add(candidate);
+        } else {
+            byFirstHead.computeIfAbsent(heads.get(0), k -> new ArrayList<>()).add(candidate);
+        }
+    }
+
+    public int size() {
+        return candidates.size();
+    }
+
+    public List<Type> matching(List<Type> argTypes) {
+        List<String> argHeads = argTypes.stream().map(OverloadSet::head).toList();
+        List<Candidate> pool;
+        if (argHeads.isEmpty() || argHeads.get(0).equals(ANY) || argHeads.get(0).equals(NUMERIC)) {
+            pool = candidates;
+        } else {
+            pool = new ArrayList<>(byFirstHead.getOrDefault(argHeads.get(0), List.of()));
+            if (isNumeric(argHeads.get(0))) {
+                pool.addAll(byFirstHead.getOrDefault(NUMERIC, List.of()));
+            }
+            pool.addAll(anyFirstHead);
+            pool.sort(Comparator.comparingInt(Candidate::order));
+        }
+
+        List<Type> result = new ArrayList<>();
+        for (Candidate candidate : pool) {
+            if (accepts(candidate.heads(), argHeads)) {
+                result.add(candidate.scheme());
+            }
+        }
+        return result;
+    }
+
+    private static boolean accepts(List<String> paramHeads, List<String> argHeads) {
+        for (int i = 0; i < argHeads.size(); i++) {
+            if (i >= paramHeads.size()) {
+                return false;
+            }
+            String param = paramHeads.get(i);
+            String arg = argHeads.get(i);
+            if (param.equals(ANY) || arg.equals(ANY) || param.equals(arg)
+                    || (param.equals(NUMERIC) && isNumeric(arg)) || (arg.equals(NUMERIC) && isNumeric(param))) {
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(String head) {
+        return head.equals("Int") || head.equals("Double");
+    }
+
+    private static String head(Type type) {
+        return switch (type) {
+            case Type.TVar v -> ANY;
+            case Type.TNumeric n -> NUMERIC;
+            case Type.TBoxed b -> "Boxed";
+            case Type.TScheme(List<String> vars, Type inner) -> head(inner);
+            case Type.TInt t -> "Int";
+            case Type.TDouble t -> "Double";
+            case Type.TString t -> "String";
+            case Type.TBool t -> "Bool";
+            case Type.TUnit t -> "Unit";
+            case Type.TList t -> "List";
+            case Type.TResult t -> "Result";
+            case Type.TFun t -> "Fun";
+            case Type.TApp t -> "App";
+            case Type.TName t -> "Name";
+            case Type.TJava t -> "Java";
+        };
+    }
+}
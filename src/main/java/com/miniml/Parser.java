@@ -8,14 +8,28 @@ import static com.miniml.expr.Expr.Op;
 import static com.miniml.expr.Expr.UnOp;
 
 public class Parser {
-    private final List<Token> tokens;
+    private final TokenStream tokens;
     private int pos = 0;
 
     public Parser(List<Token> tokens) {
+        this(new TokenStream(tokens));
+    }
+
+    public Parser(TokenStream tokens) {
         this.tokens = tokens;
     }
 
     public Module parseModule() {
+        List<String> imports = parseImports();
+        List<Module.TopLevel> declarations = new ArrayList<>();
+        Module.TopLevel decl;
+        while ((decl = parseDeclaration()) != null) {
+            declarations.add(decl);
+        }
+        return new Module(imports, declarations, parseMainExpr());
+    }
+    
+    public List<String> parseImports() {
         List<String> imports = new ArrayList<>();
         while (match(Token.Type.IMPORT)) {
             StringBuilder moduleName = new StringBuilder();
@@ -29,25 +43,30 @@ public class Parser {
             
             imports.add(moduleName.toString());
         }
-        
-        List<Module.TopLevel> declarations = new ArrayList<>();
-        while ((peek().type == Token.Type.FN && isTopLevelFn()) || 
-               (peek().type == Token.Type.LET && isTopLevelLet()) ||
-               peek().type == Token.Type.TYPE) {
-            if (peek().type == Token.Type.FN) {
-                declarations.add(parseTopLevelFn());
-            } else if (peek().type == Token.Type.TYPE) {
-                declarations.add(parseTypeDef());
-            } else {
-                declarations.add(parseTopLevelLet());
-            }
+        tokens.release(pos);
+        return imports;
+    }
+    
+    public Module.TopLevel parseDeclaration() {
+        Module.TopLevel decl;
+        if (peek().type == Token.Type.FN && isTopLevelFn()) {
+            decl = parseTopLevelFn();
+        } else if (peek().type == Token.Type.TYPE) {
+            decl = parseTypeDef();
+        } else if (peek().type == Token.Type.LET && isTopLevelLet()) {
+            decl = parseTopLevelLet();
+        } else {
+            return null;
         }
-        
-        com.miniml.expr.Expr mainExpr = null;
-        if (peek().type != Token.Type.EOF) {
-            mainExpr = expr();
+        tokens.release(pos);
+        return decl;
+    }
+    
+    public com.miniml.expr.Expr parseMainExpr() {
+        if (peek().type == Token.Type.EOF) {
+            return null;
         }
-        return new Module(imports, declarations, mainExpr);
+        return expr();
     }
     
     public com.miniml.expr.Expr parseExpr() {
@@ -124,10 +143,11 @@ public class Parser {
     
     private boolean containsInKeyword() {
         int depth = 0;
-        while (pos < tokens.size()) {
+        while (tokens.has(pos)) {
             Token.Type t = peek().type;
             if (t == Token.Type.IN && depth == 0) return true;
             if (t == Token.Type.EOF) return false;
+            if (t == Token.Type.SEMICOLON && depth == 0) return false;
             if (t == Token.Type.FN || t == Token.Type.LET) depth++;
             if (t == Token.Type.IN) {
                 depth--;
@@ -232,7 +252,7 @@ public class Parser {
         if (peek().type == Token.Type.ARROW) {
             advance();
             Type right = parseType();
-            return new Type.TFun(left, right);
+            return Type.fun(left, right);
         }
         return left;
     }
@@ -249,7 +269,7 @@ public class Parser {
                 advance();
                 Type elementType = parseType();
                 expect(Token.Type.GT);
-                return new Type.TList(elementType);
+                return Type.list(elementType);
             }
             return new Type.TVar(name);
         }
@@ -261,10 +281,10 @@ public class Parser {
         }
         advance();
         return switch (tokenType) {
-            case TYPE_INT -> new Type.TInt();
-            case TYPE_DOUBLE -> new Type.TDouble();
-            case TYPE_STRING -> new Type.TString();
-            case TYPE_BOOL -> new Type.TBool();
+            case TYPE_INT -> Type.INT;
+            case TYPE_DOUBLE -> Type.DOUBLE;
+            case TYPE_STRING -> Type.STRING;
+            case TYPE_BOOL -> Type.BOOL;
             default -> throw new RuntimeException("Expected type annotation");
         };
     }
@@ -748,11 +768,7 @@ public class Parser {
     }
     
     private Token peekAhead(int n) {
-        int idx = pos + n;
-        if (idx < tokens.size()) {
-            return tokens.get(idx);
-        }
-        return tokens.get(tokens.size() - 1);
+        return tokens.get(pos + n);
     }
 
     private Token previous() {
@@ -760,7 +776,7 @@ public class Parser {
     }
 
     private Token advance() {
-        if (pos < tokens.size()) pos++;
+        if (tokens.has(pos)) pos++;
         return previous();
     }
 
@@ -0,0 +1,71 @@
+package com.miniml;
+
+import java.util.List;
+import com.miniml.runtime.ConsList;
+
+@FunctionalInterface
+public interface PatternMatcher {
+    boolean matches(Object value, Environment frame);
+    
+    PatternMatcher ANY = (value, frame) -> true;
+    
+    static PatternMatcher compile(Pattern pattern, Resolution resolution) {
+        return switch (pattern) {
+            case Pattern.Wildcard() -> ANY;
+            
+            case Pattern.Var(String name) -> {
+                int slot = Resolution.slot(resolution.get(pattern));
+                yield (value, frame) -> {
+                    frame.store(slot, value);
+                    return true;
+                };
+            }
+            
+            case Pattern.IntLit(int expected) ->
+                (value, frame) -> value instanceof Integer i && i == expected;
+            
+            case Pattern.BoolLit(boolean expected) ->
+                (value, frame) -> value instanceof Boolean b && b == expected;
+            
+            case Pattern.StringLit(String expected) ->
+                (value, frame) -> expected.equals(value);
+            
+            case Pattern.Nil() ->
+                (value, frame) -> value instanceof List<?> list && list.isEmpty();
+            
+            case Pattern.Cons(Pattern head, Pattern tail) -> compileCons(compile(head, resolution), tail, resolution);
+            
+            case Pattern.Constructor(String name, java.util.Optional<Pattern> arg) -> {
+                PatternMatcher argMatcher = arg.isPresent() ? compile(arg.get(), resolution) : ANY;
+                if (name.equals("Ok")) {
+                    yield (value, frame) -> value instanceof Result.Ok<?, ?> ok && argMatcher.matches(ok.value(), frame);
+                }
+                if (name.equals("Error")) {
+                    yield (value, frame) -> value instanceof Result.Error<?, ?> error && argMatcher.matches(error.error(), frame);
+                }
+                yield (value, frame) -> false;
+            }
+        };
+    }
+    
+    private static PatternMatcher compileCons(PatternMatcher head, Pattern tail, Resolution resolution) {
+        if (tail instanceof Pattern.Wildcard) {
+            return (value, frame) -> value instanceof List<?> list && !list.isEmpty()
+                && head.matches(list instanceof ConsList cons ? cons.head() : list.get(0), frame);
+        }
+        if (tail instanceof Pattern.Nil) {
+            return (value, frame) -> value instanceof List<?> list && list.size() == 1
+                && head.matches(list instanceof ConsList cons ? cons.head() : list.get(0), frame);
+        }
+        PatternMatcher rest = compile(tail, resolution);
+        return (value, frame) -> {
+            if (value instanceof ConsList cons) {
+                return !cons.isEmpty() && head.matches(cons.head(), frame) && rest.matches(cons.tail(), frame);
+            }
+            if (!(value instanceof List<?> list) || list.isEmpty() || !head.matches(list.get(0), frame)) {
+                return false;
+            }
+            return rest.matches(ConsList.fromList(list).tail(), frame);
+        };
+    }
+}
@@ -90,6 +90,13 @@ public class Repl {
                     System.out.println(ast);
                 }
             }
+            case ":eval" -> {
+                try {
+                    session.setEvaluation(ReplSession.Evaluation.valueOf(arg.trim().toUpperCase().replace('-', '_')));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Usage: :eval tree_walk|closure_compiled|explicit_stack");
+                }
+            }
             default -> System.err.println("Unknown command: " + command + ". Type :help for available commands.");
         }
     }
@@ -100,6 +107,7 @@ public class Repl {
         System.out.println("  :type <expression>     Show inferred type");
         System.out.println("  :ast <expression>      Show AST");
         System.out.println("  :bytecode <expression> Show JVM bytecode");
+        System.out.println("  :eval <mode>           Evaluate let declarations with tree_walk, closure_compiled or explicit_stack");
         System.out.println("  :help                  Show this help");
         System.out.println("  :quit, :exit           Exit REPL");
     }
@@ -6,18 +6,27 @@ import org.objectweb.asm.util.TraceClassVisitor;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import com.miniml.expr.Expr;
 
 public class ReplSession {
     private int evalCount = 0;
     private final ReplClassLoader classLoader = new ReplClassLoader();
-    private final Map<String, Type> typeEnvironment = new HashMap<>();
+    private TypeEnv typeEnvironment = TypeEnv.empty();
     private final Environment environment = new Environment();
-    private final java.util.List<Module.TopLevel.LetDecl> letDeclarations = new java.util.ArrayList<>();
+    private final Map<String, Module.TopLevel.LetDecl> declarations = new LinkedHashMap<>();
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
     private final java.util.List<String> imports = new java.util.ArrayList<>();
     private final Map<String, String> javaImports = new HashMap<>();
+    private Evaluation evaluation = Evaluation.TREE_WALK;
+    
+    public enum Evaluation { TREE_WALK, CLOSURE_COMPILED, EXPLICIT_STACK }
     
     public static class EvalResult {
         public final Object value;
@@ -75,12 +84,11 @@ public class ReplSession {
             
             Map<String, Type> moduleExports = inference.getEnvironment();
             for (Map.Entry<String, Type> entry : moduleExports.entrySet()) {
-                String key = entry.getKey();
-                typeEnvironment.put(key, entry.getValue());
+                typeEnvironment = typeEnvironment.extend(entry.getKey(), entry.getValue());
             }
         }
         
-        return new EvalResult(null, new Type.TUnit(), null, true);
+        return new EvalResult(null, Type.UNIT, null, true);
     }
     
     private boolean isLetDeclaration(java.util.List<Token> tokens) {
@@ -105,39 +113,108 @@ public class ReplSession {
         Parser parser = new Parser(tokens);
         Module.TopLevel.LetDecl letDecl = parser.parseTopLevelLet();
         
-        if (typeEnvironment.containsKey(letDecl.name())) {
-            throw new RuntimeException("Variable '" + letDecl.name() + "' is already defined with type " + typeEnvironment.get(letDecl.name()));
+        String name = letDecl.name();
+        boolean redefinition = declarations.containsKey(name);
+        if (!redefinition && typeEnvironment.containsKey(name)) {
+            throw new RuntimeException("Variable '" + name + "' is already defined with type " + typeEnvironment.get(name));
         }
         
-        TypeInference inference = new TypeInference();
-        inference.setJavaImports(javaImports);
-        for (String importName : imports) {
-            inference.loadModuleInterface(importName);
+        Set<String> uses = CallGraph.references(letDecl.value(), declarations.keySet());
+        java.util.List<String> affected = affectedDeclarations(name);
+        if (uses.contains(name)) {
+            throw new RuntimeException("Declaration '" + name + "' cannot refer to its own previous definition");
+        }
+        for (String use : uses) {
+            if (affected.contains(use)) {
+                throw new RuntimeException("Declaration '" + name + "' cannot depend on '" + use + "', which depends on '" + name + "'");
+            }
         }
-        Type valueType = inference.infer(new HashMap<>(typeEnvironment), letDecl.value());
-        valueType = inference.fullyResolve(valueType);
         
-        Object value = letDecl.value().eval(environment);
+        TypeEnv updatedEnvironment = typeEnvironment;
+        Map<String, Type> updatedTypes = new LinkedHashMap<>();
+        Map<String, Map<Expr, Type>> typeMaps = new HashMap<>();
+        for (String declName : affected) {
+            Module.TopLevel.LetDecl decl = declName.equals(name) ? letDecl : declarations.get(declName);
+            TypeInference inference = newInference();
+            Type declType = inference.fullyResolve(inference.infer(updatedEnvironment, decl.value()));
+            updatedEnvironment = updatedEnvironment.extend(declName, declType);
+            updatedTypes.put(declName, declType);
+            if (evaluation == Evaluation.CLOSURE_COMPILED) {
+                inference.resolveTypeMap();
+                typeMaps.put(declName, inference.getTypeMap());
+            }
+        }
         
-        typeEnvironment.put(letDecl.name(), valueType);
-        environment.define(letDecl.name(), value);
-        letDeclarations.add(letDecl);
+        Environment staged = environment.extend();
+        Map<String, Object> updatedValues = new LinkedHashMap<>();
+        for (String declName : affected) {
+            Module.TopLevel.LetDecl decl = declName.equals(name) ? letDecl : declarations.get(declName);
+            Object declValue = evaluate(decl.value(), typeMaps.get(declName), staged);
+            staged.define(declName, declValue);
+            updatedValues.put(declName, declValue);
+        }
         
-        return new EvalResult(value, valueType, null, true);
+        for (Map.Entry<String, Object> entry : updatedValues.entrySet()) {
+            if (entry.getKey().equals(name) && !redefinition) {
+                environment.define(name, entry.getValue());
+            } else {
+                environment.set(entry.getKey(), entry.getValue());
+            }
+        }
+        typeEnvironment = updatedEnvironment;
+        declarations.put(name, letDecl);
+        for (String previous : dependencies.getOrDefault(name, Set.of())) {
+            dependents.get(previous).remove(name);
+        }
+        dependencies.put(name, uses);
+        for (String use : uses) {
+            dependents.computeIfAbsent(use, k -> new HashSet<>()).add(name);
+        }
+        
+        return new EvalResult(updatedValues.get(name), updatedTypes.get(name), null, true);
+    }
+    
+    private java.util.List<String> affectedDeclarations(String name) {
+        java.util.List<String> postOrder = new ArrayList<>();
+        collectDependents(name, new HashSet<>(), postOrder);
+        java.util.Collections.reverse(postOrder);
+        return postOrder;
+    }
+    
+    private void collectDependents(String name, Set<String> visited, java.util.List<String> postOrder) {
+        if (!visited.add(name)) {
+            return;
+        }
+        for (String dependent : dependents.getOrDefault(name, Set.of())) {
+            collectDependents(dependent, visited, postOrder);
+        }
+        postOrder.add(name);
+    }
+    
+    public void setEvaluation(Evaluation evaluation) {
+        this.evaluation = evaluation;
+    }
+    
+    private Object evaluate(Expr expr, Map<Expr, Type> types, Environment env) {
+        return switch (evaluation) {
+            case TREE_WALK -> expr.eval(env);
+            case CLOSURE_COMPILED -> new ClosureCompiler(types).run(expr, env);
+            case EXPLICIT_STACK -> StackMachine.evaluate(expr, env);
+        };
+    }
+    
+    private TypeInference newInference() {
+        TypeInference inference = new TypeInference();
+        inference.setJavaImports(javaImports);
+        return inference;
     }
     
     private EvalResult evalExpression(String input, java.util.List<Token> tokens) throws Exception {
         Parser parser = new Parser(tokens);
         Expr expr = parser.parseExpr();
         
-        Map<String, Type> localEnv = new HashMap<>(typeEnvironment);
-        
-        TypeInference inference = new TypeInference();
-        inference.setJavaImports(javaImports);
-        for (String importName : imports) {
-            inference.loadModuleInterface(importName);
-        }
-        Type type = inference.infer(localEnv, expr);
+        TypeInference inference = newInference();
+        Type type = inference.infer(typeEnvironment, expr);
         type = inference.fullyResolve(type);
         
         String className = "Repl$Expr" + evalCount++;
@@ -181,9 +258,7 @@ public class ReplSession {
         Parser parser = new Parser(tokens);
         Expr expr = parser.parseExpr();
         
-        TypeInference inference = new TypeInference();
-        inference.setJavaImports(javaImports);
-        return inference.infer(new HashMap<>(typeEnvironment), expr);
+        return newInference().infer(typeEnvironment, expr);
     }
     
     public Expr parseExpr(String input) throws Exception {
@@ -0,0 +1,78 @@
+package com.miniml;
+
+public final class Resolution {
+    public static final long UNRESOLVED = -1;
+    
+    private Object[] keys = new Object[64];
+    private long[] values = new long[64];
+    private int size = 0;
+    
+    public static long address(int depth, int slot) {
+        return ((long) depth << 32) | slot;
+    }
+    
+    public static int depth(long address) {
+        return (int) (address >>> 32);
+    }
+    
+    public static int slot(long address) {
+        return (int) address;
+    }
+    
+    public long get(Object node) {
+        int mask = keys.length - 1;
+        for (int i = slot(node, mask); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == node) {
+                return values[i];
+            }
+        }
+        return UNRESOLVED;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    void put(Object node, long value) {
+        int mask = keys.length - 1;
+        int i = slot(node, mask);
+        while (keys[i] != null) {
+            if (keys[i] == node) {
+                if (values[i] != value) {
+                    throw new IllegalStateException("Expression node is shared between scopes: " + node);
+                }
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = node;
+        values[i] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+    
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new Object[capacity];
+        values = new long[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+    
+    private static int slot(Object node, int mask) {
+        int h = System.identityHashCode(node);
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
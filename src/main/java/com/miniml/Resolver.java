@@ -0,0 +1,138 @@
+package com.miniml;
+
+import java.util.*;
+import com.miniml.expr.*;
+
+public final class Resolver {
+    private final Resolution resolution = new Resolution();
+    private final Environment globals;
+    private final List<List<String>> scopes = new ArrayList<>();
+    
+    private Resolver(Environment globals) {
+        this.globals = globals;
+    }
+    
+    public static Resolution resolve(Expr expr, Environment globals) {
+        Resolver resolver = new Resolver(globals);
+        resolver.resolve(expr);
+        return resolver.resolution;
+    }
+    
+    public static Object evaluate(Expr expr, Environment env) {
+        return expr.eval(env.withResolution(resolve(expr, env)));
+    }
+    
+    private void resolve(Expr expr) {
+        switch (expr) {
+            case Var(String name) -> {
+                long address = lookup(name);
+                if (address != Resolution.UNRESOLVED) {
+                    resolution.put(expr, address);
+                }
+            }
+            case Let(String name, Expr value, Expr body) -> {
+                resolve(value);
+                scoped(List.of(name), body);
+            }
+            case LetRec(String name, List<String> params, Expr value, Expr body) -> {
+                scopes.add(List.of(name));
+                scoped(params, value);
+                resolve(body);
+                scopes.remove(scopes.size() - 1);
+            }
+            case Lambda(List<String> params, Expr body) -> scoped(params, body);
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
+                resolve(scrutinee);
+                List<List<String>> bound = new ArrayList<>();
+                int frameSize = 0;
+                for (Match.MatchCase matchCase : cases) {
+                    List<String> names = new ArrayList<>();
+                    bindPattern(matchCase.pattern(), names);
+                    bound.add(names);
+                    frameSize = Math.max(frameSize, names.size());
+                }
+                resolution.put(expr, frameSize);
+                for (int i = 0; i < cases.size(); i++) {
+                    if (frameSize > 0) {
+                        scoped(bound.get(i), cases.get(i).body());
+                    } else {
+                        resolve(cases.get(i).body());
+                    }
+                }
+            }
+            case App(Expr func, List<Expr> args) -> {
+                resolve(func);
+                args.forEach(this::resolve);
+            }
+            case BinOp(var op, Expr left, Expr right) -> {
+                resolve(left);
+                resolve(right);
+            }
+            case UnaryOp(var op, Expr operand) -> resolve(operand);
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                resolve(cond);
+                resolve(thenBranch);
+                resolve(elseBranch);
+            }
+            case Sequence(List<Expr> exprs) -> exprs.forEach(this::resolve);
+            case Print(Expr value) -> resolve(value);
+            case ListLit(List<Expr> elements) -> elements.forEach(this::resolve);
+            case Cons(Expr head, Expr tail) -> {
+                resolve(head);
+                resolve(tail);
+            }
+            case Constructor(String name, Optional<Expr> arg) -> arg.ifPresent(this::resolve);
+            case StringInterp(List<Object> parts) -> {
+                for (Object part : parts) {
+                    if (part instanceof Expr e) {
+                        resolve(e);
+                    }
+                }
+            }
+            case JavaCall(String className, String methodName, List<Expr> args) -> args.forEach(this::resolve);
+            case JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) -> {
+                resolve(instance);
+                args.forEach(this::resolve);
+            }
+            default -> {}
+        }
+    }
+    
+    private void scoped(List<String> names, Expr body) {
+        scopes.add(names);
+        resolve(body);
+        scopes.remove(scopes.size() - 1);
+    }
+    
+    private void bindPattern(Pattern pattern, List<String> names) {
+        switch (pattern) {
+            case Pattern.Var(String name) -> {
+                resolution.put(pattern, names.size());
+                names.add(name);
+            }
+            case Pattern.Cons(Pattern head, Pattern tail) -> {
+                bindPattern(head, names);
+                bindPattern(tail, names);
+            }
+            case Pattern.Constructor(String name, Optional<Pattern> arg) -> arg.ifPresent(p -> bindPattern(p, names));
+            default -> {}
+        }
+    }
+    
+    private long lookup(String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            int slot = scopes.get(i).lastIndexOf(name);
+            if (slot >= 0) {
+                return Resolution.address(scopes.size() - 1 - i, slot);
+            }
+        }
+        int depth = scopes.size() + 1;
+        for (Environment env = globals; env != null; env = env.getParent(), depth++) {
+            int slot = env.localSlot(name);
+            if (slot >= 0) {
+                return Resolution.address(depth, slot);
+            }
+        }
+        return Resolution.UNRESOLVED;
+    }
+}
@@ -0,0 +1,382 @@
+package com.miniml;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import com.miniml.ClosureCompiler.Node;
+import com.miniml.expr.BinOp;
+import com.miniml.expr.Lambda;
+import com.miniml.expr.Expr.Op;
+
+public final class SpecializingNodes {
+    enum State { UNINITIALIZED, INT, DOUBLE, STRING, CLOSURE, INTERPRETED, CACHED, GENERIC }
+
+    private SpecializingNodes() {
+    }
+
+    interface IntOp {
+        Object apply(int a, int b);
+    }
+
+    interface DoubleOp {
+        Object apply(double a, double b);
+    }
+
+    static final class BinOpNode implements Node {
+        private final Op op;
+        private final Node left;
+        private final Node right;
+        private State state = State.UNINITIALIZED;
+        private IntOp intOp;
+        private DoubleOp doubleOp;
+
+        BinOpNode(Op op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object exec(Environment env) {
+            Object l = left.exec(env);
+            Object r = right.exec(env);
+            switch (state) {
+                case INT -> {
+                    if (l instanceof Integer a && r instanceof Integer b) {
+                        return intOp.apply(a, b);
+                    }
+                }
+                case DOUBLE -> {
+                    if (l instanceof Double a && r instanceof Double b) {
+                        return doubleOp.apply(a, b);
+                    }
+                }
+                case STRING -> {
+                    if (l instanceof String a && r instanceof String b) {
+                        return a.equals(b) == (op == Op.EQ);
+                    }
+                }
+                case GENERIC -> {
+                    return BinOp.apply(op, l, r);
+                }
+                default -> {
+                }
+            }
+            return specialize(l, r);
+        }
+
+        private Object specialize(Object l, Object r) {
+            if (state == State.UNINITIALIZED) {
+                if (l instanceof Integer && r instanceof Integer && (intOp = intOp(op)) != null) {
+                    state = State.INT;
+                    return intOp.apply((Integer) l, (Integer) r);
+                }
+                if (l instanceof Double && r instanceof Double && (doubleOp = doubleOp(op)) != null) {
+                    state = State.DOUBLE;
+                    return doubleOp.apply((Double) l, (Double) r);
+                }
+                if (l instanceof String && r instanceof String && (op == Op.EQ || op == Op.NE)) {
+                    state = State.STRING;
+                    return l.equals(r) == (op == Op.EQ);
+                }
+            }
+            state = State.GENERIC;
+            intOp = null;
+            doubleOp = null;
+            return BinOp.apply(op, l, r);
+        }
+
+        State state() {
+            return state;
+        }
+    }
+
+    static final class AppNode implements Node {
+        private final Node func;
+        private final Node[] args;
+        private final boolean tail;
+        private State state = State.UNINITIALIZED;
+        private ClosureCompiler.Closure cached;
+
+        AppNode(Node func, Node[] args, boolean tail) {
+            this.func = func;
+            this.args = args;
+            this.tail = tail;
+        }
+
+        @Override
+        public Object exec(Environment env) {
+            Object f = func.exec(env);
+            switch (state) {
+                case CACHED -> {
+                    if (f == cached) {
+                        return invoke(cached, env);
+                    }
+                }
+                case CLOSURE -> {
+                    if (f instanceof ClosureCompiler.Closure closure && closure.arity() == args.length) {
+                        return invoke(closure, env);
+                    }
+                }
+                case INTERPRETED -> {
+                    if (f instanceof Lambda.Closure closure) {
+                        return closure.apply(Arrays.asList(evaluateArgs(env)));
+                    }
+                }
+                case GENERIC -> {
+                    return generic(f, env);
+                }
+                default -> {
+                }
+            }
+            return specialize(f, env);
+        }
+
+        private Object specialize(Object f, Environment env) {
+            if (f instanceof ClosureCompiler.Closure closure && closure.arity() == args.length) {
+                if (state == State.UNINITIALIZED) {
+                    state = State.CACHED;
+                    cached = closure;
+                    return invoke(closure, env);
+                }
+                if (state == State.CACHED) {
+                    state = State.CLOSURE;
+                    cached = null;
+                    return invoke(closure, env);
+                }
+            }
+            if (f instanceof Lambda.Closure && state == State.UNINITIALIZED) {
+                state = State.INTERPRETED;
+                return ((Lambda.Closure) f).apply(Arrays.asList(evaluateArgs(env)));
+            }
+            state = State.GENERIC;
+            cached = null;
+            return generic(f, env);
+        }
+
+        private Object invoke(ClosureCompiler.Closure closure, Environment env) {
+            Environment callEnv = closure.capturedEnv().frame(args.length);
+            for (int i = 0; i < args.length; i++) {
+                callEnv.store(i, args[i].exec(env));
+            }
+            if (tail) {
+                return new ClosureCompiler.TailCall(closure.body(), callEnv);
+            }
+            return ClosureCompiler.trampoline(closure.body().exec(callEnv));
+        }
+
+        private Object generic(Object f, Environment env) {
+            if (f instanceof ClosureCompiler.Closure closure && closure.arity() == args.length) {
+                return invoke(closure, env);
+            }
+            if (f instanceof ClosureCompiler.Closure closure) {
+                return closure.apply(evaluateArgs(env));
+            }
+            if (f instanceof Lambda.Closure closure) {
+                return closure.apply(Arrays.asList(evaluateArgs(env)));
+            }
+            throw new RuntimeException("Cannot apply non-function value: " + f);
+        }
+
+        private Object[] evaluateArgs(Environment env) {
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = args[i].exec(env);
+            }
+            return values;
+        }
+
+        State state() {
+            return state;
+        }
+    }
+
+    static final class MatchNode implements Node {
+        private final Node scrutinee;
+        private final Pattern[] patterns;
+        private final PatternMatcher[] matchers;
+        private final Node[] bodies;
+        private final int frameSize;
+        private State state = State.UNINITIALIZED;
+        private Class<?> observed;
+        private int[] candidates;
+
+        MatchNode(Node scrutinee, Pattern[] patterns, PatternMatcher[] matchers, Node[] bodies, int frameSize) {
+            this.scrutinee = scrutinee;
+            this.patterns = patterns;
+            this.matchers = matchers;
+            this.bodies = bodies;
+            this.frameSize = frameSize;
+        }
+
+        @Override
+        public Object exec(Environment env) {
+            Object value = scrutinee.exec(env);
+            Environment frame = frameSize > 0 ? env.frame(frameSize) : env;
+            int[] order = select(value);
+            if (order != null) {
+                for (int i : order) {
+                    if (matchers[i].matches(value, frame)) {
+                        return bodies[i].exec(frame);
+                    }
+                }
+                throw new RuntimeException("Non-exhaustive pattern match");
+            }
+            for (int i = 0; i < patterns.length; i++) {
+                if (matchers[i].matches(value, frame)) {
+                    return bodies[i].exec(frame);
+                }
+            }
+            throw new RuntimeException("Non-exhaustive pattern match");
+        }
+
+        private int[] select(Object value) {
+            if (state == State.GENERIC) {
+                return null;
+            }
+            Class<?> kind = value != null ? kind(value.getClass()) : null;
+            if (state == State.CACHED && kind == observed) {
+                return candidates;
+            }
+            if (state == State.UNINITIALIZED && kind != null) {
+                state = State.CACHED;
+                observed = kind;
+                candidates = candidatesFor(kind);
+                return candidates;
+            }
+            state = State.GENERIC;
+            observed = null;
+            candidates = null;
+            return null;
+        }
+
+        private int[] candidatesFor(Class<?> kind) {
+            int[] kept = new int[patterns.length];
+            int count = 0;
+            for (int i = 0; i < patterns.length; i++) {
+                if (canMatch(patterns[i], kind)) {
+                    kept[count++] = i;
+                }
+            }
+            return Arrays.copyOf(kept, count);
+        }
+
+        private static boolean canMatch(Pattern pattern, Class<?> kind) {
+            return switch (pattern) {
+                case Pattern.Wildcard w -> true;
+                case Pattern.Var v -> true;
+                case Pattern.IntLit i -> kind == Integer.class;
+                case Pattern.BoolLit b -> kind == Boolean.class;
+                case Pattern.StringLit s -> kind == String.class;
+                case Pattern.Nil n -> kind == List.class;
+                case Pattern.Cons c -> kind == List.class;
+                case Pattern.Constructor c -> kind == Result.class;
+            };
+        }
+
+        private static Class<?> kind(Class<?> clazz) {
+            if (List.class.isAssignableFrom(clazz)) {
+                return List.class;
+            }
+            if (Result.class.isAssignableFrom(clazz)) {
+                return Result.class;
+            }
+            return clazz;
+        }
+
+        State state() {
+            return state;
+        }
+    }
+
+    static final class JavaInstanceCallNode implements Node {
+        private final String methodName;
+        private final Node instance;
+        private final Node[] args;
+        private final Type[] argTypes;
+        private State state = State.UNINITIALIZED;
+        private Class<?> cachedClass;
+        private List<JavaMembers.Member> cachedCandidates;
+
+        JavaInstanceCallNode(String methodName, Node instance, Node[] args) {
+            this(methodName, instance, args, new Type[args.length]);
+        }
+
+        JavaInstanceCallNode(String methodName, Node instance, Node[] args, Type[] argTypes) {
+            this.methodName = methodName;
+            this.instance = instance;
+            this.args = args;
+            this.argTypes = argTypes;
+        }
+
+        @Override
+        public Object exec(Environment env) {
+            try {
+                Object target = instance.exec(env);
+                Object[] values = new Object[args.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = args[i].exec(env);
+                }
+                Class<?> clazz = target.getClass();
+                if (state == State.CACHED && clazz == cachedClass) {
+                    return lookup(cachedCandidates, values).invoke(target, values);
+                }
+                List<JavaMembers.Member> candidates = JavaMembers.matching(JavaMembers.methods(clazz, methodName, args.length), argTypes);
+                if (state == State.UNINITIALIZED) {
+                    state = State.CACHED;
+                    cachedClass = clazz;
+                    cachedCandidates = candidates;
+                } else {
+                    state = State.GENERIC;
+                    cachedClass = null;
+                    cachedCandidates = null;
+                }
+                return lookup(candidates, values).invoke(target, values);
+            } catch (Exception e) {
+                throw new RuntimeException("Java instance call failed: " + e.getMessage(), e);
+            }
+        }
+
+        private Method lookup(List<JavaMembers.Member> candidates, Object[] values) {
+            if (candidates.size() == 1) {
+                return (Method) candidates.get(0).executable();
+            }
+            return (Method) JavaMembers.select(candidates, values).orElseThrow(() ->
+                new RuntimeException("No matching instance method found: " + methodName)).executable();
+        }
+
+        State state() {
+            return state;
+        }
+    }
+
+    static IntOp intOp(Op op) {
+        return switch (op) {
+            case ADD -> (a, b) -> a + b;
+            case SUB -> (a, b) -> a - b;
+            case MUL -> (a, b) -> a * b;
+            case DIV -> (a, b) -> a / b;
+            case MOD -> (a, b) -> a % b;
+            case EQ -> (a, b) -> a == b;
+            case NE -> (a, b) -> a != b;
+            case LT -> (a, b) -> a < b;
+            case GT -> (a, b) -> a > b;
+            case LE -> (a, b) -> a <= b;
+            case GE -> (a, b) -> a >= b;
+            default -> null;
+        };
+    }
+
+    static DoubleOp doubleOp(Op op) {
+        return switch (op) {
+            case ADD -> (a, b) -> a + b;
+            case SUB -> (a, b) -> a - b;
+            case MUL -> (a, b) -> a * b;
+            case DIV -> (a, b) -> a / b;
+            case LT -> (a, b) -> a < b;
+            case GT -> (a, b) -> a > b;
+            case LE -> (a, b) -> a <= b;
+            case GE -> (a, b) -> a >= b;
+            default -> null;
+        };
+    }
+}
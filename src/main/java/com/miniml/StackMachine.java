@@ -0,0 +1,214 @@
+package com.miniml;
+
+import java.util.*;
+import com.miniml.expr.*;
+import com.miniml.runtime.ConsList;
+
+public final class StackMachine {
+    private record Eval(Expr expr, Environment env) {
+    }
+    
+    private record Resume(Expr expr, Environment env, int arity) {
+    }
+    
+    private static final Object DISCARD = new Object();
+    
+    private final ArrayDeque<Object> control = new ArrayDeque<>();
+    private Object[] values = new Object[64];
+    private int top = 0;
+    
+    private StackMachine() {
+    }
+    
+    public static Object evaluate(Expr expr, Environment env) {
+        if (env.resolution() == null) {
+            env = env.withResolution(Resolver.resolve(expr, env));
+        }
+        return new StackMachine().run(expr, env);
+    }
+    
+    private Object run(Expr expr, Environment env) {
+        control.push(new Eval(expr, env));
+        while (!control.isEmpty()) {
+            Object task = control.pop();
+            if (task instanceof Eval eval) {
+                step(eval.expr(), eval.env());
+            } else if (task instanceof Resume resume) {
+                resume(resume.expr(), resume.env(), pop(resume.arity()));
+            } else {
+                top--;
+                values[top] = null;
+            }
+        }
+        return values[--top];
+    }
+    
+    private void step(Expr expr, Environment env) {
+        switch (expr) {
+            case BinOp(var op, Expr left, Expr right) -> {
+                control.push(new Resume(expr, env, 2));
+                control.push(new Eval(right, env));
+                control.push(new Eval(left, env));
+            }
+            case UnaryOp(var op, Expr operand) -> {
+                control.push(new Resume(expr, env, 1));
+                control.push(new Eval(operand, env));
+            }
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                control.push(new Resume(expr, env, 1));
+                control.push(new Eval(cond, env));
+            }
+            case Sequence(List<Expr> exprs) -> {
+                if (exprs.isEmpty()) {
+                    push(Unit.INSTANCE);
+                    return;
+                }
+                control.push(new Eval(exprs.get(exprs.size() - 1), env));
+                for (int i = exprs.size() - 2; i >= 0; i--) {
+                    control.push(DISCARD);
+                    control.push(new Eval(exprs.get(i), env));
+                }
+            }
+            case Let(String name, Expr value, Expr body) -> {
+                control.push(new Resume(expr, env, 1));
+                control.push(new Eval(value, env));
+            }
+            case LetRec(String name, List<String> params, Expr value, Expr body) -> {
+                Environment frame = env.frame(1);
+                frame.store(0, new Lambda.Closure(params, value, frame));
+                control.push(new Eval(body, frame));
+            }
+            case App(Expr func, List<Expr> args) -> {
+                control.push(new Resume(expr, env, args.size() + 1));
+                evalAll(args, env);
+                control.push(new Eval(func, env));
+            }
+            case Match(Expr scrutinee, List<Match.MatchCase> cases) -> {
+                control.push(new Resume(expr, env, 1));
+                control.push(new Eval(scrutinee, env));
+            }
+            case Print(Expr value) -> {
+                control.push(new Resume(expr, env, 1));
+                control.push(new Eval(value, env));
+            }
+            case StringInterp(List<Object> parts) -> {
+                List<Expr> exprs = new ArrayList<>();
+                for (Object part : parts) {
+                    if (part instanceof Expr e) {
+                        exprs.add(e);
+                    }
+                }
+                control.push(new Resume(expr, env, exprs.size()));
+                evalAll(exprs, env);
+            }
+            case ListLit(List<Expr> elements) -> {
+                control.push(new Resume(expr, env, elements.size()));
+                evalAll(elements, env);
+            }
+            case Cons(Expr head, Expr tail) -> {
+                control.push(new Resume(expr, env, 2));
+                control.push(new Eval(tail, env));
+                control.push(new Eval(head, env));
+            }
+            case Constructor(String name, Optional<Expr> arg) when arg.isPresent() -> {
+                control.push(new Resume(expr, env, 1));
+                control.push(new Eval(arg.get(), env));
+            }
+            case JavaCall(String className, String methodName, List<Expr> args) -> {
+                control.push(new Resume(expr, env, args.size()));
+                evalAll(args, env);
+            }
+            case JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) -> {
+                control.push(new Resume(expr, env, args.size() + 1));
+                evalAll(args, env);
+                control.push(new Eval(instance, env));
+            }
+            default -> push(expr.eval(env));
+        }
+    }
+    
+    private void resume(Expr expr, Environment env, Object[] operands) {
+        switch (expr) {
+            case BinOp(var op, Expr left, Expr right) -> push(BinOp.apply(op, operands[0], operands[1]));
+            case UnaryOp(var op, Expr operand) -> push(UnaryOp.apply(op, operands[0]));
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) ->
+                control.push(new Eval((boolean) operands[0] ? thenBranch : elseBranch, env));
+            case Let(String name, Expr value, Expr body) -> {
+                Environment frame = env.frame(1);
+                frame.store(0, operands[0]);
+                control.push(new Eval(body, frame));
+            }
+            case App(Expr func, List<Expr> args) -> {
+                Object f = operands[0];
+                List<Object> argValues = Arrays.asList(operands).subList(1, operands.length);
+                if (f instanceof Lambda.Closure closure) {
+                    control.push(new Eval(closure.body(), closure.bind(argValues)));
+                } else if (f instanceof ClosureCompiler.Closure closure) {
+                    push(closure.apply(argValues.toArray()));
+                } else {
+                    throw new RuntimeException("Cannot apply non-function value: " + f);
+                }
+            }
+            case Match match -> {
+                Environment frame = match.caseFrame(env);
+                control.push(new Eval(match.select(operands[0], frame).body(), frame));
+            }
+            case Print(Expr value) -> {
+                System.out.println(operands[0]);
+                push(Unit.INSTANCE);
+            }
+            case StringInterp(List<Object> parts) -> {
+                StringBuilder result = new StringBuilder();
+                int next = 0;
+                for (Object part : parts) {
+                    if (part instanceof String s) {
+                        result.append(s);
+                    } else if (part instanceof Expr) {
+                        result.append(operands[next++]);
+                    }
+                }
+                push(result.toString());
+            }
+            case ListLit(List<Expr> elements) -> push(ConsList.of(operands));
+            case Cons(Expr head, Expr tail) -> {
+                if (!(operands[1] instanceof List<?> tailList)) {
+                    throw new RuntimeException("Cons tail must be a list");
+                }
+                push(ConsList.cons(operands[0], ConsList.fromList(tailList)));
+            }
+            case Constructor(String name, Optional<Expr> arg) -> {
+                if (name.equals("Ok")) {
+                    push(new Result.Ok<Object, Object>(operands[0]));
+                } else if (name.equals("Error")) {
+                    push(new Result.Error<Object, Object>(operands[0]));
+                } else {
+                    throw new RuntimeException("Unknown constructor: " + name);
+                }
+            }
+            case JavaCall call -> push(call.invoke(env, Arrays.asList(operands)));
+            case JavaInstanceCall call ->
+                push(call.invoke(operands[0], Arrays.asList(operands).subList(1, operands.length)));
+            default -> throw new IllegalStateException("Nothing to resume for " + expr);
+        }
+    }
+    
+    private void evalAll(List<Expr> exprs, Environment env) {
+        for (int i = exprs.size() - 1; i >= 0; i--) {
+            control.push(new Eval(exprs.get(i), env));
+        }
+    }
+    
+    private void push(Object value) {
+        if (top == values.length) {
+            values = Arrays.copyOf(values, top * 2);
+        }
+        values[top++] = value;
+    }
+    
+    private Object[] pop(int count) {
+        Object[] popped = Arrays.copyOfRange(values, top - count, top);
+        Arrays.fill(values, top - count, top, null);
+        top -= count;
+        return popped;
+    }
+}
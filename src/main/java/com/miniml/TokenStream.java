@@ -0,0 +1,59 @@
+package com.miniml;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TokenStream {
+    private final Lexer lexer;
+    private Token[] buffer;
+    private int start = 0;
+    private int count = 0;
+    private boolean exhausted;
+
+    public TokenStream(Lexer lexer) {
+        this.lexer = lexer;
+        this.buffer = new Token[64];
+        this.exhausted = false;
+    }
+
+    public TokenStream(List<Token> tokens) {
+        this.lexer = null;
+        this.buffer = tokens.toArray(new Token[0]);
+        this.count = buffer.length;
+        this.exhausted = true;
+    }
+
+    public boolean has(int index) {
+        while (index - start >= count) {
+            if (exhausted) {
+                return false;
+            }
+            Token token = lexer.next();
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count++] = token;
+            exhausted = token.type == Token.Type.EOF;
+        }
+        return true;
+    }
+
+    public Token get(int index) {
+        return has(index) ? buffer[index - start] : buffer[count - 1];
+    }
+
+    public void release(int index) {
+        int drop = Math.min(index - start, count - 1);
+        if (drop <= 0) {
+            return;
+        }
+        System.arraycopy(buffer, drop, buffer, 0, count - drop);
+        Arrays.fill(buffer, count - drop, count, null);
+        count -= drop;
+        start += drop;
+    }
+
+    public int buffered() {
+        return count;
+    }
+}
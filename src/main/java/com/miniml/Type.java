@@ -4,6 +4,32 @@ import java.util.List;
 import java.util.Objects;
 
 public sealed interface Type {
+    TInt INT = new TInt();
+    TDouble DOUBLE = new TDouble();
+    TString STRING = new TString();
+    TBool BOOL = new TBool();
+    TUnit UNIT = new TUnit();
+    
+    static Type list(Type element) {
+        return TypeInterner.list(element);
+    }
+    
+    static Type fun(Type param, Type result) {
+        return TypeInterner.fun(param, result);
+    }
+    
+    static Type result(Type ok, Type error) {
+        return TypeInterner.result(ok, error);
+    }
+    
+    static Type name(String name) {
+        return TypeInterner.name(name);
+    }
+    
+    static Type intern(Type type) {
+        return TypeInterner.intern(type);
+    }
+    
     record TInt() implements Type {
         @Override
         public String toString() { return "Int"; }
@@ -43,12 +69,40 @@ public sealed interface Type {
         }
     }
     
-    record TVar(String name) implements Type {
+    record TVar(String name, int cell) implements Type {
+        public TVar(String name) {
+            this(name, -1);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TVar var && name.equals(var.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+        
         @Override
         public String toString() { return "'" + name; }
     }
     
-    record TNumeric(String name) implements Type {
+    record TNumeric(String name, int cell) implements Type {
+        public TNumeric(String name) {
+            this(name, -1);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TNumeric var && name.equals(var.name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+        
         @Override
         public String toString() { return "'" + name; }
     }
@@ -105,7 +159,7 @@ public sealed interface Type {
             case TString t -> "Ljava/lang/String;";
             case TBool t -> "Z";
             case TUnit t -> "Lcom/miniml/Unit;";
-            case TList t -> "Ljava/util/List;";
+            case TList t -> "Lcom/miniml/runtime/ConsList;";
             case TResult t -> "Lcom/miniml/Result;";
             case TVar t -> "Ljava/lang/Object;";
             case TNumeric t -> "Ljava/lang/Object;";
@@ -8,7 +8,11 @@ import static com.miniml.expr.Expr.Op;
 public class TypeDumper {
     
     public static void dumpModule(Module module, Map<Expr, Type> typeMap, Map<String, Set<Type>> instantiations) {
-        System.out.println("=== MODULE DUMP ===");
+        dumpModule(module, typeMap, instantiations, "MODULE DUMP");
+    }
+    
+    public static void dumpModule(Module module, Map<Expr, Type> typeMap, Map<String, Set<Type>> instantiations, String title) {
+        System.out.println("=== " + title + " ===");
         System.out.println("\nImports: " + module.imports());
         
         System.out.println("\nDeclarations:");
@@ -32,7 +36,7 @@ public class TypeDumper {
             System.out.println("  : " + mainType);
         }
         
-        System.out.println("\n=== END MODULE DUMP ===\n");
+        System.out.println("\n=== END " + title + " ===\n");
     }
     
     private static void dumpExpr(Expr expr, Map<Expr, Type> typeMap, int indent) {
@@ -44,8 +48,25 @@ public class TypeDumper {
                 System.out.println(prefix + value + " : " + type);
             case FloatLit(double value) ->
                 System.out.println(prefix + value + " : " + type);
+            case BoolLit(boolean value) ->
+                System.out.println(prefix + value + " : " + type);
+            case StringLit(String value) ->
+                System.out.println(prefix + "\"" + value + "\" : " + type);
             case Var(String name) ->
                 System.out.println(prefix + name + " : " + type);
+            case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
+                System.out.println(prefix + "if:");
+                dumpExpr(cond, typeMap, indent + 2);
+                dumpExpr(thenBranch, typeMap, indent + 2);
+                dumpExpr(elseBranch, typeMap, indent + 2);
+                System.out.println(prefix + "  => " + type);
+            }
+            case Let(String name, Expr value, Expr body) -> {
+                System.out.println(prefix + "let " + name + " =");
+                dumpExpr(value, typeMap, indent + 2);
+                System.out.println(prefix + "in");
+                dumpExpr(body, typeMap, indent + 2);
+            }
             case BinOp(Expr.Op op, Expr left, Expr right) -> {
                 System.out.println(prefix + "(" + op + ")");
                 dumpExpr(left, typeMap, indent + 2);
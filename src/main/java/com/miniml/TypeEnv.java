@@ -0,0 +1,136 @@
+package com.miniml;
+
+import java.util.*;
+
+public final class TypeEnv {
+    private static final TypeEnv EMPTY = new TypeEnv(new Branch(0, new Node[0]));
+
+    private sealed interface Node permits Branch, Leaf, Collision {}
+
+    private record Branch(int bitmap, Node[] children) implements Node {}
+
+    private record Leaf(int hash, String name, Type type) implements Node {}
+
+    private record Collision(int hash, List<Leaf> leaves) implements Node {}
+
+    private final Node root;
+
+    private TypeEnv(Node root) {
+        this.root = root;
+    }
+
+    public static TypeEnv empty() {
+        return EMPTY;
+    }
+
+    public static TypeEnv of(Map<String, Type> bindings) {
+        TypeEnv env = EMPTY;
+        for (Map.Entry<String, Type> entry : bindings.entrySet()) {
+            env = env.extend(entry.getKey(), entry.getValue());
+        }
+        return env;
+    }
+
+    public Type get(String name) {
+        return lookup(root, name.hashCode(), name, 0);
+    }
+
+    public boolean containsKey(String name) {
+        return get(name) != null;
+    }
+
+    public TypeEnv extend(String name, Type type) {
+        return new TypeEnv(insert(root, new Leaf(name.hashCode(), name, type), 0));
+    }
+
+    public Map<String, Type> toMap() {
+        Map<String, Type> result = new HashMap<>();
+        collect(root, result);
+        return result;
+    }
+
+    private static Type lookup(Node node, int hash, String name, int shift) {
+        return switch (node) {
+            case Branch(int bitmap, Node[] children) -> {
+                int bit = 1 << ((hash >>> shift) & 31);
+                if ((bitmap & bit) == 0) {
+                    yield null;
+                }
+                yield lookup(children[Integer.bitCount(bitmap & (bit - 1))], hash, name, shift + 5);
+            }
+            case Leaf leaf -> leaf.hash() == hash && leaf.name().equals(name) ? leaf.type() : null;
+            case Collision(int collisionHash, List<Leaf> leaves) -> {
+                if (collisionHash != hash) {
+                    yield null;
+                }
+                for (Leaf leaf : leaves) {
+                    if (leaf.name().equals(name)) {
+                        yield leaf.type();
+                    }
+                }
+                yield null;
+            }
+        };
+    }
+
+    private static Node insert(Node node, Leaf leaf, int shift) {
+        return switch (node) {
+            case Branch(int bitmap, Node[] children) -> {
+                int bit = 1 << ((leaf.hash() >>> shift) & 31);
+                int index = Integer.bitCount(bitmap & (bit - 1));
+                if ((bitmap & bit) == 0) {
+                    Node[] copy = new Node[children.length + 1];
+                    System.arraycopy(children, 0, copy, 0, index);
+                    copy[index] = leaf;
+                    System.arraycopy(children, index, copy, index + 1, children.length - index);
+                    yield new Branch(bitmap | bit, copy);
+                }
+                Node[] copy = children.clone();
+                copy[index] = insert(children[index], leaf, shift + 5);
+                yield new Branch(bitmap, copy);
+            }
+            case Leaf existing -> {
+                if (existing.hash() != leaf.hash()) {
+                    yield merge(existing, existing.hash(), leaf, shift);
+                }
+                if (existing.name().equals(leaf.name())) {
+                    yield leaf;
+                }
+                yield new Collision(leaf.hash(), List.of(existing, leaf));
+            }
+            case Collision(int hash, List<Leaf> leaves) -> {
+                if (hash != leaf.hash()) {
+                    yield merge(node, hash, leaf, shift);
+                }
+                List<Leaf> updated = new ArrayList<>(leaves);
+                updated.removeIf(existing -> existing.name().equals(leaf.name()));
+                updated.add(leaf);
+                yield new Collision(hash, List.copyOf(updated));
+            }
+        };
+    }
+
+    private static Node merge(Node existing, int existingHash, Leaf leaf, int shift) {
+        int existingBit = 1 << ((existingHash >>> shift) & 31);
+        int leafBit = 1 << ((leaf.hash() >>> shift) & 31);
+        if (existingBit == leafBit) {
+            return new Branch(existingBit, new Node[] { merge(existing, existingHash, leaf, shift + 5) });
+        }
+        Node[] children = Integer.compareUnsigned(existingBit, leafBit) < 0
+            ? new Node[] { existing, leaf }
+            : new Node[] { leaf, existing };
+        return new Branch(existingBit | leafBit, children);
+    }
+
+    private static void collect(Node node, Map<String, Type> result) {
+        switch (node) {
+            case Branch(int bitmap, Node[] children) -> {
+                for (Node child : children) {
+                    collect(child, result);
+                }
+            }
+            case Leaf(int hash, String name, Type type) -> result.put(name, type);
+            case Collision(int hash, List<Leaf> leaves) -> leaves.forEach(leaf -> result.put(leaf.name(), leaf.type()));
+        }
+    }
+}
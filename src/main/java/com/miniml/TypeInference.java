@@ -1,15 +1,20 @@
 package com.miniml;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import com.miniml.expr.*;
 import com.miniml.expr.Expr.Op;
 import com.miniml.expr.Expr.UnOp;
 
 public class TypeInference {
     private int nextVarId = 0;
+    private int currentLevel = 0;
+    private String varSuffix = "";
     private Map<Expr, Type> typeMap = new IdentityHashMap<>();
-    private Map<String, Type> env = new HashMap<>();
-    private Map<String, List<Type>> overloads = new HashMap<>();
+    private TypeEnv env = TypeEnv.empty();
+    private Map<String, OverloadSet> overloads = new HashMap<>();
     private Map<String, Set<Type>> instantiations = new HashMap<>();
     private Map<String, String> javaImports = new HashMap<>();
     private Map<String, Type> letRecTypes = new HashMap<>();
@@ -40,75 +45,88 @@ public class TypeInference {
     }
     
     private void initializeBuiltins() {
-        Type intBinOp = new Type.TFun(new Type.TInt(), 
-            new Type.TFun(new Type.TInt(), new Type.TInt()));
-        Type doubleBinOp = new Type.TFun(new Type.TDouble(), 
-            new Type.TFun(new Type.TDouble(), new Type.TDouble()));
-        Type intComparison = new Type.TFun(new Type.TInt(), 
-            new Type.TFun(new Type.TInt(), new Type.TBool()));
+        Type intBinOp = Type.fun(Type.INT, 
+            Type.fun(Type.INT, Type.INT));
+        Type doubleBinOp = Type.fun(Type.DOUBLE, 
+            Type.fun(Type.DOUBLE, Type.DOUBLE));
+        Type intComparison = Type.fun(Type.INT, 
+            Type.fun(Type.INT, Type.BOOL));
         
-        env.put("print", new Type.TScheme(List.of("a"), 
-            new Type.TFun(new Type.TVar("a"), new Type.TUnit())));
+        env = env.extend("print", new Type.TScheme(List.of("a"), 
+            Type.fun(new Type.TVar("a"), Type.UNIT)));
         
-        env.put("box", new Type.TBoxed());
+        env = env.extend("box", new Type.TBoxed());
     }
     
     public Type inferModule(Module module) throws TypeException {
+        beginModule(module.imports());
+        inferDeclarations(module.declarations());
+        return finishModule(module.mainExpr());
+    }
+    
+    public void beginModule(List<String> imports) throws TypeException {
         loadStdlibModules();
         
-        for (String importName : module.imports()) {
+        for (String importName : imports) {
             loadModuleInterface(importName);
         }
+    }
+    
+    public void inferDeclarations(List<Module.TopLevel> declarations) throws TypeException {
+        CallGraph callGraph = CallGraph.of(declarations);
+        Map<String, List<Module.TopLevel.FnDecl>> recursiveGroups = findRecursiveGroups(declarations, callGraph);
+        Set<String> groupedMembers = new HashSet<>();
+        List<InferenceUnit> pending = new ArrayList<>();
         
-        for (Module.TopLevel decl : module.declarations()) {
-            if (decl instanceof Module.TopLevel.FnDecl(String name, List<Module.Param> params, var returnType, Expr body)) {
-                TypeInference isolatedTI = new TypeInference();
-                isolatedTI.env.putAll(this.env);
-                isolatedTI.currentFilename = this.currentFilename;
-                
-                Type fnType = isolatedTI.inferTopLevelFn(name, params, returnType, body);
-                Type scheme = generalize(new HashMap<>(), fnType);
-                
-                isolatedTI.pruneTypeMap();
-                this.typeMap.putAll(isolatedTI.typeMap);
-                
-                letRecTypes.put(name, fnType);
-                
-                if (!overloads.containsKey(name)) {
-                    overloads.put(name, new ArrayList<>());
+        for (int index = 0; index < declarations.size(); index++) {
+            Module.TopLevel decl = declarations.get(index);
+            if (decl instanceof Module.TopLevel.FnDecl fn) {
+                if (groupedMembers.contains(fn.name())) {
+                    continue;
                 }
-                overloads.get(name).add(scheme);
-                
-                env.put(name, scheme);
-                
-                instantiations.put(name, new HashSet<>());
-            } else if (decl instanceof Module.TopLevel.LetDecl(String name, Expr value)) {
+                if (recursiveGroups.containsKey(fn.name())) {
+                    for (Module.TopLevel.FnDecl member : recursiveGroups.get(fn.name())) {
+                        groupedMembers.add(member.name());
+                    }
+                    pending.add(new InferenceUnit(index, recursiveGroups.get(fn.name())));
+                } else {
+                    pending.add(new InferenceUnit(index, List.of(fn)));
+                }
+                continue;
+            }
+            
+            inferUnits(pending, callGraph);
+            pending.clear();
+            if (decl instanceof Module.TopLevel.LetDecl(String name, Expr value)) {
                 Type valueType = infer(env, value);
-                Type scheme = generalize(new HashMap<>(), valueType);
-                env.put(name, scheme);
+                Type scheme = generalizeAll(valueType);
+                env = env.extend(name, scheme);
             } else if (decl instanceof Module.TopLevel.TypeDef(String typeName, List<String> typeParams, List<Module.Constructor> constructors)) {
                 for (Module.Constructor ctor : constructors) {
                     Type ctorType;
                     if (ctor.paramType().isPresent()) {
                         Type paramType = resolveTypeAnnotation(ctor.paramType().get());
                         Type resultType = typeParams.isEmpty() ? 
-                            new Type.TName(typeName) : 
+                            Type.name(typeName) : 
                             new Type.TApp(typeName, typeParams.stream().map(p -> (Type)new Type.TVar(p)).toList());
-                        ctorType = new Type.TFun(paramType, resultType);
+                        ctorType = Type.fun(paramType, resultType);
                     } else {
                         ctorType = typeParams.isEmpty() ? 
-                            new Type.TName(typeName) : 
+                            Type.name(typeName) : 
                             new Type.TApp(typeName, typeParams.stream().map(p -> (Type)new Type.TVar(p)).toList());
                     }
                     Type scheme = typeParams.isEmpty() ? ctorType : new Type.TScheme(typeParams, ctorType);
-                    env.put(ctor.name(), scheme);
+                    env = env.extend(ctor.name(), scheme);
                 }
             }
         }
-        
-        Type result = new Type.TUnit();
-        if (module.mainExpr() != null) {
-            result = infer(env, module.mainExpr());
+        inferUnits(pending, callGraph);
+    }
+    
+    public Type finishModule(Expr mainExpr) throws TypeException {
+        Type result = Type.UNIT;
+        if (mainExpr != null) {
+            result = infer(env, mainExpr);
         }
         
         finalizeInstantiations();
@@ -117,6 +135,173 @@ public class TypeInference {
         return fullyResolve(result);
     }
     
+    public Map<Expr, Type> releaseTypeMap() {
+        pruneTypeMap();
+        Map<Expr, Type> released = typeMap;
+        typeMap = new IdentityHashMap<>();
+        return released;
+    }
+    
+    private void registerTopLevelFn(String name, Type fnType) {
+        Type scheme = generalizeAll(fnType);
+        
+        letRecTypes.put(name, fnType);
+        
+        overloads.computeIfAbsent(name, k -> new OverloadSet()).add(scheme);
+        
+        env = env.extend(name, scheme);
+        
+        instantiations.put(name, new HashSet<>());
+    }
+    
+    private Map<String, List<Module.TopLevel.FnDecl>> findRecursiveGroups(List<Module.TopLevel> declarations, CallGraph callGraph) {
+        Map<String, Module.TopLevel.FnDecl> byName = new HashMap<>();
+        Set<String> overloaded = new HashSet<>();
+        for (Module.TopLevel decl : declarations) {
+            if (decl instanceof Module.TopLevel.FnDecl fn && byName.put(fn.name(), fn) != null) {
+                overloaded.add(fn.name());
+            }
+        }
+        
+        Map<String, List<Module.TopLevel.FnDecl>> groups = new HashMap<>();
+        for (List<String> component : callGraph.stronglyConnectedComponents()) {
+            if (component.size() < 2 || component.stream().anyMatch(overloaded::contains)) {
+                continue;
+            }
+            List<Module.TopLevel.FnDecl> members = component.stream().map(byName::get).toList();
+            for (String name : component) {
+                groups.put(name, members);
+            }
+        }
+        return groups;
+    }
+    
+    private record InferenceUnit(int index, List<Module.TopLevel.FnDecl> members) {}
+    
+    private record InferredUnit(TypeInference inference, List<Type> fnTypes, List<Type> schemes) {}
+    
+    private void inferUnits(List<InferenceUnit> units, CallGraph callGraph) throws TypeException {
+        if (units.isEmpty()) {
+            return;
+        }
+        TypeEnv baseEnv = env;
+        Set<String> baseInstantiated = new HashSet<>(instantiations.keySet());
+        int baseVarId = nextVarId;
+        
+        Map<String, Integer> definedBy = new HashMap<>();
+        List<CompletableFuture<InferredUnit>> futures = new ArrayList<>();
+        for (int i = 0; i < units.size(); i++) {
+            InferenceUnit unit = units.get(i);
+            Set<String> memberNames = new HashSet<>();
+            for (Module.TopLevel.FnDecl member : unit.members()) {
+                memberNames.add(member.name());
+            }
+            SortedSet<Integer> depIndices = new TreeSet<>();
+            for (Module.TopLevel.FnDecl member : unit.members()) {
+                for (String callee : callGraph.callees(member.name())) {
+                    if (!memberNames.contains(callee) && definedBy.containsKey(callee)) {
+                        depIndices.add(definedBy.get(callee));
+                    }
+                }
+            }
+            for (String name : memberNames) {
+                definedBy.put(name, i);
+            }
+            
+            List<CompletableFuture<InferredUnit>> deps = depIndices.stream().map(futures::get).toList();
+            futures.add(CompletableFuture.allOf(deps.toArray(CompletableFuture[]::new)).thenApplyAsync(ignored -> {
+                List<InferenceUnit> depUnits = depIndices.stream().map(units::get).toList();
+                List<InferredUnit> depResults = deps.stream().map(CompletableFuture::join).toList();
+                try {
+                    return inferUnit(unit, baseEnv, baseInstantiated, baseVarId, depUnits, depResults);
+                } catch (TypeException e) {
+                    throw new CompletionException(e);
+                }
+            }, ForkJoinPool.commonPool()));
+        }
+        
+        for (int i = 0; i < units.size(); i++) {
+            InferredUnit inferred;
+            try {
+                inferred = futures.get(i).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TypeException typeException) {
+                    throw typeException;
+                }
+                throw e;
+            }
+            mergeIsolated(inferred.inference());
+            List<Module.TopLevel.FnDecl> members = units.get(i).members();
+            for (int m = 0; m < members.size(); m++) {
+                registerTopLevelFn(members.get(m).name(), inferred.fnTypes().get(m));
+            }
+        }
+    }
+    
+    private InferredUnit inferUnit(InferenceUnit unit, TypeEnv baseEnv, Set<String> baseInstantiated, int baseVarId,
+                                   List<InferenceUnit> depUnits, List<InferredUnit> depResults) throws TypeException {
+        TypeInference isolatedTI = new TypeInference();
+        isolatedTI.env = baseEnv;
+        isolatedTI.currentFilename = this.currentFilename;
+        isolatedTI.nextVarId = baseVarId;
+        isolatedTI.varSuffix = "_" + unit.index();
+        for (String name : baseInstantiated) {
+            isolatedTI.instantiations.put(name, new HashSet<>());
+        }
+        for (int d = 0; d < depUnits.size(); d++) {
+            List<Module.TopLevel.FnDecl> depMembers = depUnits.get(d).members();
+            for (int m = 0; m < depMembers.size(); m++) {
+                isolatedTI.env = isolatedTI.env.extend(depMembers.get(m).name(), depResults.get(d).schemes().get(m));
+                isolatedTI.instantiations.put(depMembers.get(m).name(), new HashSet<>());
+            }
+        }
+        
+        List<Module.TopLevel.FnDecl> members = unit.members();
+        Map<String, Type> memberVars = new HashMap<>();
+        if (members.size() > 1) {
+            for (Module.TopLevel.FnDecl member : members) {
+                Type memberVar = isolatedTI.freshVar();
+                memberVars.put(member.name(), memberVar);
+                isolatedTI.env = isolatedTI.env.extend(member.name(), memberVar);
+            }
+        }
+        
+        List<Type> fnTypes = new ArrayList<>();
+        for (Module.TopLevel.FnDecl member : members) {
+            Type fnType = isolatedTI.inferTopLevelFn(member.name(), member.params(), member.returnType(), member.body());
+            if (memberVars.containsKey(member.name())) {
+                isolatedTI.unify(memberVars.get(member.name()), fnType);
+            }
+            fnTypes.add(fnType);
+        }
+        
+        List<Type> prunedTypes = new ArrayList<>();
+        List<Type> schemes = new ArrayList<>();
+        for (Type fnType : fnTypes) {
+            Type pruned = isolatedTI.fullyPrune(fnType);
+            prunedTypes.add(pruned);
+            schemes.add(isolatedTI.generalizeAll(pruned));
+        }
+        return new InferredUnit(isolatedTI, prunedTypes, schemes);
+    }
+    
+    private void mergeIsolated(TypeInference isolatedTI) {
+        nextVarId = Math.max(nextVarId, isolatedTI.nextVarId);
+        isolatedTI.pruneTypeMap();
+        this.typeMap.putAll(isolatedTI.typeMap);
+        
+        for (Map.Entry<String, Type> entry : isolatedTI.letRecTypes.entrySet()) {
+            letRecTypes.put(entry.getKey(), isolatedTI.fullyPrune(entry.getValue()));
+        }
+        
+        isolatedTI.finalizeInstantiations();
+        for (Map.Entry<String, Set<Type>> entry : isolatedTI.instantiations.entrySet()) {
+            if (instantiations.containsKey(entry.getKey())) {
+                instantiations.get(entry.getKey()).addAll(entry.getValue());
+            }
+        }
+    }
+    
     private void loadStdlibModules() {
         String[] stdlibModules = {"Math", "String", "List"};
         for (String moduleName : stdlibModules) {
@@ -136,23 +321,20 @@ public class TypeInference {
                 
                 for (Map.Entry<String, Type> entry : moduleInterface.getExports().entrySet()) {
                     String qualifiedName = moduleName + "." + entry.getKey();
-                    Type scheme = generalize(new HashMap<>(), entry.getValue());
-                    env.put(qualifiedName, scheme);
-                    env.put(entry.getKey(), scheme);
+                    Type scheme = generalizeAll(entry.getValue());
+                    env = env.extend(qualifiedName, scheme).extend(entry.getKey(), scheme);
                 }
                 return;
             } catch (java.io.IOException e) {
             }
         }
         
-        try {
-            Class<?> javaClass = Class.forName(moduleName);
-            String shortName = getShortName(moduleName);
-            javaImports.put(shortName, moduleName);
-        } catch (ClassNotFoundException e) {
+        if (JavaMembers.findClass(moduleName).isEmpty()) {
             throw new TypeException("Module not found: " + moduleName + 
                                   ". Not a MiniML module or Java class.");
         }
+        String shortName = getShortName(moduleName);
+        javaImports.put(shortName, moduleName);
     }
     
     private String getShortName(String fullName) {
@@ -178,11 +360,10 @@ public class TypeInference {
     }
     
     Type inferTopLevelFn(String name, List<Module.Param> params, Optional<Type> returnTypeAnnotation, Expr body) throws TypeException {
-        Map<String, Type> localEnv = new HashMap<>(env);
         List<Type> paramTypes = new ArrayList<>();
         
         Type fnType = freshVar();
-        localEnv.put(name, fnType);
+        TypeEnv localEnv = env.extend(name, fnType);
         
         for (Module.Param param : params) {
             Type paramType;
@@ -191,7 +372,7 @@ public class TypeInference {
             } else {
                 paramType = freshVar();
             }
-            localEnv.put(param.name(), paramType);
+            localEnv = localEnv.extend(param.name(), paramType);
             paramTypes.add(paramType);
         }
         
@@ -204,7 +385,7 @@ public class TypeInference {
         
         Type constructedFnType = resultType;
         for (int i = paramTypes.size() - 1; i >= 0; i--) {
-            constructedFnType = new Type.TFun(paramTypes.get(i), constructedFnType);
+            constructedFnType = Type.fun(paramTypes.get(i), constructedFnType);
         }
         
         unify(fnType, constructedFnType);
@@ -212,13 +393,13 @@ public class TypeInference {
         return constructedFnType;
     }
     
-    private Type inferFn(List<String> params, Expr body, Map<String, Type> parentEnv) throws TypeException {
-        Map<String, Type> localEnv = new HashMap<>(parentEnv);
+    private Type inferFn(List<String> params, Expr body, TypeEnv parentEnv) throws TypeException {
+        TypeEnv localEnv = parentEnv;
         List<Type> paramTypes = new ArrayList<>();
         
         for (String param : params) {
             Type paramType = freshVar();
-            localEnv.put(param, paramType);
+            localEnv = localEnv.extend(param, paramType);
             paramTypes.add(paramType);
         }
         
@@ -226,20 +407,20 @@ public class TypeInference {
         
         Type fnType = resultType;
         for (int i = paramTypes.size() - 1; i >= 0; i--) {
-            fnType = new Type.TFun(paramTypes.get(i), fnType);
+            fnType = Type.fun(paramTypes.get(i), fnType);
         }
         
         return fnType;
     }
     
-    public Type infer(Map<String, Type> localEnv, Expr expr) throws TypeException {
+    public Type infer(TypeEnv localEnv, Expr expr) throws TypeException {
         Type type = switch (expr) {
-            case com.miniml.expr.Unit u -> new Type.TUnit();
-            case IntLit i -> new Type.TInt();
-            case FloatLit f -> new Type.TDouble();
-            case BoolLit b -> new Type.TBool();
-            case StringLit s -> new Type.TString();
-            case StringInterp si -> new Type.TString();
+            case com.miniml.expr.Unit u -> Type.UNIT;
+            case IntLit i -> Type.INT;
+            case FloatLit f -> Type.DOUBLE;
+            case BoolLit b -> Type.BOOL;
+            case StringLit s -> Type.STRING;
+            case StringInterp si -> Type.STRING;
             
             case Var(String name) -> {
                 if (!localEnv.containsKey(name)) {
@@ -266,43 +447,50 @@ public class TypeInference {
             }
             
             case Let(String name, Expr value, Expr body) -> {
-                Type valueType = infer(localEnv, value);
-                Type scheme = generalize(localEnv, valueType);
-                Map<String, Type> newEnv = new HashMap<>(localEnv);
-                newEnv.put(name, scheme);
-                yield infer(newEnv, body);
+                Type valueType;
+                currentLevel++;
+                try {
+                    valueType = infer(localEnv, value);
+                } finally {
+                    currentLevel--;
+                }
+                Type scheme = generalize(valueType);
+                yield infer(localEnv.extend(name, scheme), body);
             }
             
             case LetRec letRec -> {
-                Type fnType = freshVar();
-                Map<String, Type> newEnv = new HashMap<>(localEnv);
-                newEnv.put(letRec.name(), fnType);
-                
-                Type inferredFnType = inferFn(letRec.params(), letRec.value(), newEnv);
-                unify(fnType, inferredFnType);
+                Type fnType;
+                currentLevel++;
+                try {
+                    fnType = freshVar();
+                    
+                    Type inferredFnType = inferFn(letRec.params(), letRec.value(), localEnv.extend(letRec.name(), fnType));
+                    unify(fnType, inferredFnType);
+                } finally {
+                    currentLevel--;
+                }
                 
                 Type prunedFnType = fullyPrune(fnType);
                 
                 letRecTypes.put(letRec.name(), prunedFnType);
                 
-                Type scheme = generalize(localEnv, prunedFnType);
-                newEnv.put(letRec.name(), scheme);
-                yield infer(newEnv, letRec.body());
+                Type scheme = generalize(prunedFnType);
+                yield infer(localEnv.extend(letRec.name(), scheme), letRec.body());
             }
             
             case Lambda(List<String> params, Expr lambdaBody) -> {
-                Map<String, Type> newEnv = new HashMap<>(localEnv);
+                TypeEnv newEnv = localEnv;
                 List<Type> paramTypes = new ArrayList<>();
                 for (String param : params) {
                     Type paramType = freshVar();
                     paramTypes.add(paramType);
-                    newEnv.put(param, paramType);
+                    newEnv = newEnv.extend(param, paramType);
                 }
                 
                 Type bodyType = infer(newEnv, lambdaBody);
                 Type fnType = bodyType;
                 for (int i = params.size() - 1; i >= 0; i--) {
-                    fnType = new Type.TFun(paramTypes.get(i), fnType);
+                    fnType = Type.fun(paramTypes.get(i), fnType);
                 }
                 yield fnType;
             }
@@ -318,9 +506,9 @@ public class TypeInference {
                 if ("box".equals(funcName) && args.size() == 1) {
                     Type argType = infer(localEnv, args.get(0));
                     Type boxedType = switch (argType) {
-                        case Type.TInt i -> new Type.TName("Integer");
-                        case Type.TDouble d -> new Type.TName("Double");
-                        case Type.TBool b -> new Type.TName("Boolean");
+                        case Type.TInt i -> Type.name("Integer");
+                        case Type.TDouble d -> Type.name("Double");
+                        case Type.TBool b -> Type.name("Boolean");
                         default -> new Type.TVar("boxed_" + nextVarId++);
                     };
                     yield boxedType;
@@ -341,7 +529,7 @@ public class TypeInference {
                 Type resultType = funcType;
                 for (Type argType : argTypes) {
                     Type freshResult = freshVar();
-                    unify(resultType, new Type.TFun(argType, freshResult));
+                    unify(resultType, Type.fun(argType, freshResult));
                     resultType = fullyPrune(freshResult);
                 }
                 
@@ -359,7 +547,7 @@ public class TypeInference {
                     if (instantiations.containsKey(funcName) && !(finalType instanceof Type.TVar)) {
                         Type reconstructed = fullyPrune(finalType);
                         for (int i = argTypes.size() - 1; i >= 0; i--) {
-                            reconstructed = new Type.TFun(fullyPrune(argTypes.get(i)), reconstructed);
+                            reconstructed = Type.fun(fullyPrune(argTypes.get(i)), reconstructed);
                         }
                         if (!containsUnresolvedVars(reconstructed)) {
                             instantiations.get(funcName).add(reconstructed);
@@ -372,7 +560,7 @@ public class TypeInference {
             
             case If(Expr cond, Expr thenBranch, Expr elseBranch) -> {
                 Type condType = infer(localEnv, cond);
-                unify(condType, new Type.TBool());
+                unify(condType, Type.BOOL);
                 
                 Type thenType = infer(localEnv, thenBranch);
                 Type elseType = infer(localEnv, elseBranch);
@@ -390,8 +578,8 @@ public class TypeInference {
                         yield numericType;
                     }
                     case NOT -> {
-                        unify(operandType, new Type.TBool());
-                        yield new Type.TBool();
+                        unify(operandType, Type.BOOL);
+                        yield Type.BOOL;
                     }
                 };
             }
@@ -409,23 +597,23 @@ public class TypeInference {
                     }
                     case EQ, NE, LT, GT, LE, GE -> {
                         unify(leftType, rightType);
-                        yield new Type.TBool();
+                        yield Type.BOOL;
                     }
                     case AND, OR -> {
-                        unify(leftType, new Type.TBool());
-                        unify(rightType, new Type.TBool());
-                        yield new Type.TBool();
+                        unify(leftType, Type.BOOL);
+                        unify(rightType, Type.BOOL);
+                        yield Type.BOOL;
                     }
                 };
             }
             
             case Print(Expr value) -> {
                 infer(localEnv, value);
-                yield new Type.TUnit();
+                yield Type.UNIT;
             }
             
             case Sequence(List<Expr> exprs) -> {
-                Type lastType = new Type.TUnit();
+                Type lastType = Type.UNIT;
                 for (Expr e : exprs) {
                     lastType = infer(localEnv, e);
                 }
@@ -454,20 +642,20 @@ public class TypeInference {
             
             case ListLit(List<Expr> elements) -> {
                 if (elements.isEmpty()) {
-                    yield new Type.TList(freshVar());
+                    yield Type.list(freshVar());
                 }
                 Type elementType = infer(localEnv, elements.get(0));
                 for (int i = 1; i < elements.size(); i++) {
                     Type elemType = infer(localEnv, elements.get(i));
                     unify(elementType, elemType);
                 }
-                yield new Type.TList(elementType);
+                yield Type.list(elementType);
             }
             
             case Cons(Expr head, Expr tail) -> {
                 Type headType = infer(localEnv, head);
                 Type tailType = infer(localEnv, tail);
-                Type listType = new Type.TList(headType);
+                Type listType = Type.list(headType);
                 unify(tailType, listType);
                 yield listType;
             }
@@ -480,7 +668,7 @@ public class TypeInference {
                 if (arg.isPresent()) {
                     Type argType = infer(localEnv, arg.get());
                     Type resultType = freshVar();
-                    unify(ctorType, new Type.TFun(argType, resultType));
+                    unify(ctorType, Type.fun(argType, resultType));
                     yield resultType;
                 } else {
                     yield ctorType;
@@ -496,8 +684,7 @@ public class TypeInference {
                 
                 Type resultType = null;
                 for (com.miniml.expr.Match.MatchCase matchCase : cases) {
-                    Map<String, Type> patternEnv = new HashMap<>(localEnv);
-                    inferPattern(matchCase.pattern(), scrutineeType, patternEnv);
+                    TypeEnv patternEnv = inferPattern(matchCase.pattern(), scrutineeType, localEnv);
                     Type caseType = infer(patternEnv, matchCase.body());
                     
                     if (resultType == null) {
@@ -516,45 +703,44 @@ public class TypeInference {
     }
     
     public void pruneTypeMap() {
-        Map<Expr, Type> prunedMap = new IdentityHashMap<>();
-        for (Map.Entry<Expr, Type> entry : typeMap.entrySet()) {
-            prunedMap.put(entry.getKey(), fullyPrune(entry.getValue()));
-        }
-        typeMap = prunedMap;
+        typeMap.replaceAll((expr, type) -> fullyPrune(type));
+    }
+    
+    public void resolveTypeMap() {
+        typeMap.replaceAll((expr, type) -> resolve(type));
     }
     
-    private void inferPattern(Pattern pattern, Type expectedType, Map<String, Type> env) throws TypeException {
+    private TypeEnv inferPattern(Pattern pattern, Type expectedType, TypeEnv env) throws TypeException {
         switch (pattern) {
             case Pattern.Wildcard() -> {
             }
             
             case Pattern.Var(String name) -> {
-                env.put(name, expectedType);
+                return env.extend(name, expectedType);
             }
             
             case Pattern.IntLit(int value) -> {
-                unify(expectedType, new Type.TInt());
+                unify(expectedType, Type.INT);
             }
             
             case Pattern.BoolLit(boolean value) -> {
-                unify(expectedType, new Type.TBool());
+                unify(expectedType, Type.BOOL);
             }
             
             case Pattern.StringLit(String value) -> {
-                unify(expectedType, new Type.TString());
+                unify(expectedType, Type.STRING);
             }
             
             case Pattern.Nil() -> {
                 Type elementType = freshVar();
-                unify(expectedType, new Type.TList(elementType));
+                unify(expectedType, Type.list(elementType));
             }
             
             case Pattern.Cons(Pattern head, Pattern tail) -> {
                 Type elementType = freshVar();
-                Type listType = new Type.TList(elementType);
+                Type listType = Type.list(elementType);
                 unify(expectedType, listType);
-                inferPattern(head, elementType, env);
-                inferPattern(tail, listType, env);
+                return inferPattern(tail, listType, inferPattern(head, elementType, env));
             }
             
             case Pattern.Constructor(String name, java.util.Optional<Pattern> arg) -> {
@@ -565,59 +751,32 @@ public class TypeInference {
                 if (arg.isPresent()) {
                     Type argType = freshVar();
                     Type resultType = freshVar();
-                    unify(ctorType, new Type.TFun(argType, resultType));
+                    unify(ctorType, Type.fun(argType, resultType));
                     unify(expectedType, resultType);
-                    inferPattern(arg.get(), argType, env);
+                    return inferPattern(arg.get(), argType, env);
                 } else {
                     unify(expectedType, ctorType);
                 }
             }
         }
+        return env;
     }
     
     private Type inferJavaCallType(String className, String methodName, List<Type> argTypes) throws TypeException {
         String shortName = getShortName(className);
         String fullClassName = javaImports.getOrDefault(shortName, className);
         
-        Class<?> clazz = null;
-        try {
-            clazz = Class.forName(fullClassName);
-        } catch (ClassNotFoundException e) {
-            if (!fullClassName.contains(".")) {
-                try {
-                    clazz = Class.forName("java.lang." + fullClassName);
-                } catch (ClassNotFoundException e2) {
-                }
-            }
-            if (clazz == null) {
-                throw new TypeException("Java class not found: " + fullClassName + 
-                                      ". Use 'import' to specify the full class name.");
-            }
-        }
+        Class<?> clazz = JavaMembers.findClassOrLang(fullClassName).orElseThrow(() ->
+            new TypeException("Java class not found: " + fullClassName + 
+                              ". Use 'import' to specify the full class name."));
         
         if (methodName.equals("new")) {
             return inferJavaConstructor(clazz, argTypes);
         }
         
-        for (java.lang.reflect.Method method : clazz.getMethods()) {
-            if (method.getName().equals(methodName) && 
-                java.lang.reflect.Modifier.isStatic(method.getModifiers()) &&
-                method.getParameterCount() == argTypes.size()) {
-                
-                Class<?>[] paramTypes = method.getParameterTypes();
-                boolean matches = true;
-                for (int i = 0; i < paramTypes.length; i++) {
-                    Type miniMLParamType = javaTypeToMiniML(paramTypes[i]);
-                    Type argType = fullyPrune(argTypes.get(i));
-                    if (!miniMLParamType.equals(argType)) {
-                        matches = false;
-                        break;
-                    }
-                }
-                
-                if (matches) {
-                    return javaTypeToMiniML(method.getReturnType());
-                }
+        for (JavaMembers.Member method : JavaMembers.methods(clazz, methodName, argTypes.size())) {
+            if (method.isStatic() && parametersMatch(method, argTypes)) {
+                return memberReturnType(method);
             }
         }
         
@@ -636,35 +795,26 @@ public class TypeInference {
         } else if (instanceType instanceof Type.TBool) {
             clazz = Boolean.class;
         } else if (instanceType instanceof Type.TJava(String className, List<Type> typeArgs)) {
-            try {
-                clazz = Class.forName(className);
-            } catch (ClassNotFoundException e) {
-                throw new TypeException("Java class not found: " + className + 
-                                      ". Ensure it's on the classpath.");
-            }
+            clazz = JavaMembers.findClass(className).orElseThrow(() ->
+                new TypeException("Java class not found: " + className + 
+                                  ". Ensure it's on the classpath."));
         } else if (instanceType instanceof Type.TName(String name)) {
-            try {
-                clazz = Class.forName("java.lang." + name);
-            } catch (ClassNotFoundException e) {
-                throw new TypeException("Java class not found: java.lang." + name);
-            }
+            clazz = JavaMembers.findClass("java.lang." + name).orElseThrow(() ->
+                new TypeException("Java class not found: java.lang." + name));
         }
         
         if (clazz != null) {
-            java.lang.reflect.Method bestMethod = null;
-            for (java.lang.reflect.Method method : clazz.getMethods()) {
-                if (method.getName().equals(methodName) && 
-                    java.lang.reflect.Modifier.isPublic(method.getModifiers())) {
-                    if (bestMethod == null || method.getReturnType().equals(clazz)) {
-                        bestMethod = method;
-                        if (method.getReturnType().equals(clazz)) {
-                            break;
-                        }
+            JavaMembers.Member bestMethod = null;
+            for (JavaMembers.Member method : JavaMembers.methods(clazz, methodName)) {
+                if (bestMethod == null || method.returnClass().equals(clazz)) {
+                    bestMethod = method;
+                    if (method.returnClass().equals(clazz)) {
+                        break;
                     }
                 }
             }
             if (bestMethod != null) {
-                return javaTypeToMiniML(bestMethod.getReturnType());
+                return memberReturnType(bestMethod);
             }
             throw new TypeException("Method '" + methodName + "' not found on Java class " + 
                                   clazz.getName());
@@ -674,35 +824,30 @@ public class TypeInference {
     }
     
     private Type inferJavaStaticFieldType(String className, String fieldName) {
-        try {
-            Class<?> clazz = Class.forName(className);
-            java.lang.reflect.Field field = clazz.getField(fieldName);
-            return javaTypeToMiniML(field.getType());
-        } catch (ClassNotFoundException | NoSuchFieldException e) {
-            return freshVar();
-        }
+        return JavaMembers.findClass(className)
+            .flatMap(clazz -> JavaMembers.field(clazz, fieldName))
+            .map(field -> javaTypeToMiniML(field.getType()))
+            .orElseGet(this::freshVar);
     }
     
     private Type javaTypeToMiniML(Class<?> javaType) {
-        if (javaType == int.class || javaType == Integer.class) {
-            return new Type.TInt();
-        } else if (javaType == long.class || javaType == Long.class) {
-            return new Type.TInt();
-        } else if (javaType == short.class || javaType == Short.class) {
-            return new Type.TInt();
-        } else if (javaType == double.class || javaType == Double.class) {
-            return new Type.TDouble();
-        } else if (javaType == float.class || javaType == Float.class) {
-            return new Type.TDouble();
-        } else if (javaType == boolean.class || javaType == Boolean.class) {
-            return new Type.TBool();
-        } else if (javaType == String.class) {
-            return new Type.TString();
-        } else if (javaType == void.class) {
-            return new Type.TUnit();
-        } else {
-            return javaTypeToTJava(javaType);
+        Type ground = JavaMembers.groundType(javaType);
+        return ground != null ? ground : javaTypeToTJava(javaType);
+    }
+    
+    private Type memberReturnType(JavaMembers.Member member) {
+        return member.returnType() != null ? member.returnType() : javaTypeToTJava(member.returnClass());
+    }
+    
+    private boolean parametersMatch(JavaMembers.Member member, List<Type> argTypes) {
+        for (int i = 0; i < member.arity(); i++) {
+            Type paramType = member.parameterTypes()[i];
+            Type miniMLParamType = paramType != null ? paramType : javaTypeToTJava(member.parameterClasses()[i]);
+            if (!miniMLParamType.equals(fullyPrune(argTypes.get(i)))) {
+                return false;
+            }
         }
+        return true;
     }
     
     private Type javaTypeToTJava(Class<?> javaType) {
@@ -718,31 +863,17 @@ public class TypeInference {
     }
     
     private Type inferJavaConstructor(Class<?> clazz, List<Type> argTypes) throws TypeException {
+        List<JavaMembers.Member> candidates = JavaMembers.constructors(clazz, argTypes.size());
         if (argTypes.isEmpty()) {
-            try {
-                clazz.getConstructor();
-                return javaTypeToTJava(clazz);
-            } catch (NoSuchMethodException e) {
+            if (candidates.isEmpty()) {
                 throw new TypeException("No no-arg constructor found for Java class " + clazz.getName());
             }
+            return javaTypeToTJava(clazz);
         }
         
-        for (java.lang.reflect.Constructor<?> constructor : clazz.getConstructors()) {
-            if (constructor.getParameterCount() == argTypes.size()) {
-                Class<?>[] paramTypes = constructor.getParameterTypes();
-                boolean matches = true;
-                for (int i = 0; i < paramTypes.length; i++) {
-                    Type miniMLParamType = javaTypeToMiniML(paramTypes[i]);
-                    Type argType = fullyPrune(argTypes.get(i));
-                    if (!miniMLParamType.equals(argType)) {
-                        matches = false;
-                        break;
-                    }
-                }
-                
-                if (matches) {
-                    return javaTypeToTJava(clazz);
-                }
+        for (JavaMembers.Member constructor : candidates) {
+            if (parametersMatch(constructor, argTypes)) {
+                return javaTypeToTJava(clazz);
             }
         }
         
@@ -751,50 +882,48 @@ public class TypeInference {
     }
     
     private Type freshVar() {
-        return new Type.TVar("t" + (nextVarId++));
+        return variables.freshVar("t" + (nextVarId++) + varSuffix, currentLevel);
     }
     
     private Type freshNumeric() {
-        return new Type.TNumeric("n" + (nextVarId++));
+        return variables.freshNumeric("n" + (nextVarId++) + varSuffix, currentLevel);
     }
     
     private Type resolveOverload(String funcName, List<Type> argTypes) throws TypeException {
-        List<Type> candidates = overloads.get(funcName);
-        if (candidates == null || candidates.isEmpty()) {
+        OverloadSet candidates = overloads.get(funcName);
+        if (candidates == null || candidates.size() == 0) {
             throw new TypeException("No overloads found for function: " + funcName);
         }
         
-        for (Type candidate : candidates) {
+        List<Type> prunedArgs = argTypes.stream().map(this::prune).toList();
+        for (Type candidate : candidates.matching(prunedArgs)) {
             int savedVarId = nextVarId;
+            int mark = variables.mark();
             Type candidateInst = instantiate(candidate);
             
-            Type checkType = candidateInst;
-            boolean matches = true;
-            for (Type argType : argTypes) {
-                if (checkType instanceof Type.TFun(Type paramType, Type resultType)) {
-                    try {
-                        unify(paramType, argType);
-                        checkType = resultType;
-                    } catch (TypeException e) {
-                        matches = false;
-                        break;
-                    }
-                } else {
-                    matches = false;
-                    break;
-                }
-            }
-            
-            if (matches) {
+            if (acceptsArguments(candidateInst, argTypes)) {
+                variables.commit(mark);
                 return candidateInst;
             }
             
+            variables.rollback(mark);
             nextVarId = savedVarId;
         }
         
         throw new TypeException("No matching overload found for " + funcName + " with argument types: " + argTypes);
     }
     
+    private boolean acceptsArguments(Type fnType, List<Type> argTypes) {
+        Type checkType = fnType;
+        for (Type argType : argTypes) {
+            if (!(checkType instanceof Type.TFun(Type paramType, Type resultType)) || tryUnify(paramType, argType) != null) {
+                return false;
+            }
+            checkType = resultType;
+        }
+        return true;
+    }
+    
     private Type instantiate(Type type) {
         if (type instanceof Type.TScheme(List<String> vars, Type innerType)) {
             Map<String, Type> subst = new HashMap<>();
@@ -806,142 +935,168 @@ public class TypeInference {
         return type;
     }
     
-    private Type generalize(Map<String, Type> env, Type type) {
-        Set<String> envVars = new HashSet<>();
-        for (Type t : env.values()) {
-            envVars.addAll(freeTypeVars(t));
-        }
-        
-        Set<String> typeVars = new HashSet<>(freeTypeVars(type));
-        typeVars.removeAll(envVars);
+    private Type generalize(Type type) {
+        return generalizeAbove(currentLevel, type);
+    }
+    
+    private Type generalizeAll(Type type) {
+        return generalizeAbove(-1, type);
+    }
+    
+    private Type generalizeAbove(int level, Type type) {
+        Type resolved = resolve(type);
+        Set<String> typeVars = new LinkedHashSet<>();
+        collectGeneralizable(resolved, level, typeVars);
         
         if (typeVars.isEmpty()) {
             return type;
         }
         
-        return new Type.TScheme(new ArrayList<>(typeVars), type);
+        return new Type.TScheme(new ArrayList<>(typeVars), resolved);
     }
     
-    private Set<String> freeTypeVars(Type type) {
-        return switch (type) {
-            case Type.TVar(String name) -> Set.of(name);
-            case Type.TNumeric(String name) -> Set.of(name);
+    private void collectGeneralizable(Type type, int level, Set<String> vars) {
+        switch (type) {
+            case Type.TVar(String name, int cell) -> {
+                if (variables.level(type) > level) {
+                    vars.add(name);
+                }
+            }
+            case Type.TNumeric(String name, int cell) -> {
+                if (variables.level(type) > level) {
+                    vars.add(name);
+                }
+            }
             case Type.TFun(Type param, Type result) -> {
-                Set<String> vars = new HashSet<>(freeTypeVars(param));
-                vars.addAll(freeTypeVars(result));
-                yield vars;
+                collectGeneralizable(param, level, vars);
+                collectGeneralizable(result, level, vars);
             }
             case Type.TScheme(List<String> boundVars, Type innerType) -> {
-                Set<String> vars = new HashSet<>(freeTypeVars(innerType));
-                vars.removeAll(boundVars);
-                yield vars;
+                Set<String> innerVars = new LinkedHashSet<>();
+                collectGeneralizable(innerType, level, innerVars);
+                innerVars.removeAll(boundVars);
+                vars.addAll(innerVars);
             }
-            default -> Set.of();
-        };
+            default -> {}
+        }
     }
     
     private void unify(Type t1, Type t2) throws TypeException {
+        String error = tryUnify(t1, t2);
+        if (error != null) {
+            throw new TypeException(error, currentFilename, null);
+        }
+    }
+    
+    private String tryUnify(Type t1, Type t2) {
         Type type1 = prune(t1);
         Type type2 = prune(t2);
         
-        if (type1 instanceof Type.TVar(String name)) {
+        if (type1 == type2) {
+            return null;
+        }
+        
+        if (type1 instanceof Type.TVar(String name, int cell)) {
             if (!type1.equals(type2)) {
                 if (occursInType(name, type2)) {
-                    throw new TypeException("Recursive type: " + name + " occurs in " + type2);
+                    return "Recursive type: " + name + " occurs in " + type2;
                 }
-                bind(name, type2);
+                bind(type1, type2);
             }
-            return;
+            return null;
         }
         
-        if (type2 instanceof Type.TVar(String name)) {
+        if (type2 instanceof Type.TVar(String name, int cell)) {
             if (occursInType(name, type1)) {
-                throw new TypeException("Recursive type: " + name + " occurs in " + type1);
+                return "Recursive type: " + name + " occurs in " + type1;
             }
-            bind(name, type1);
-            return;
+            bind(type2, type1);
+            return null;
         }
         
-        if (type1 instanceof Type.TNumeric(String name)) {
+        if (type1 instanceof Type.TNumeric(String name, int cell)) {
             if (!type1.equals(type2)) {
                 if (type2 instanceof Type.TInt || type2 instanceof Type.TDouble || type2 instanceof Type.TNumeric) {
                     if (occursInType(name, type2)) {
-                        throw new TypeException("Recursive type: " + name + " occurs in " + type2);
+                        return "Recursive type: " + name + " occurs in " + type2;
                     }
-                    bind(name, type2);
+                    bind(type1, type2);
                 } else {
-                    throw new TypeException("Type mismatch: numeric type " + type1 + " cannot unify with " + type2);
+                    return "Type mismatch: numeric type " + type1 + " cannot unify with " + type2;
                 }
             }
-            return;
+            return null;
         }
         
-        if (type2 instanceof Type.TNumeric(String name)) {
+        if (type2 instanceof Type.TNumeric(String name, int cell)) {
             if (type1 instanceof Type.TInt || type1 instanceof Type.TDouble) {
                 if (occursInType(name, type1)) {
-                    throw new TypeException("Recursive type: " + name + " occurs in " + type1);
+                    return "Recursive type: " + name + " occurs in " + type1;
                 }
-                bind(name, type1);
+                bind(type2, type1);
             } else {
-                throw new TypeException("Type mismatch: numeric type " + type2 + " cannot unify with " + type1);
+                return "Type mismatch: numeric type " + type2 + " cannot unify with " + type1;
             }
-            return;
+            return null;
         }
         
         if (type1 instanceof Type.TFun(Type p1, Type r1) && type2 instanceof Type.TFun(Type p2, Type r2)) {
-            unify(p1, p2);
-            unify(r1, r2);
-            return;
+            String error = tryUnify(p1, p2);
+            return error != null ? error : tryUnify(r1, r2);
         }
         
         if (type1 instanceof Type.TList(Type e1) && type2 instanceof Type.TList(Type e2)) {
-            unify(e1, e2);
-            return;
+            return tryUnify(e1, e2);
         }
         
         if (type1 instanceof Type.TResult(Type ok1, Type err1) && type2 instanceof Type.TResult(Type ok2, Type err2)) {
-            unify(ok1, ok2);
-            unify(err1, err2);
-            return;
+            String error = tryUnify(ok1, ok2);
+            return error != null ? error : tryUnify(err1, err2);
         }
         
         if (type1.getClass().equals(type2.getClass())) {
-            return;
+            return null;
         }
         
-        throw new TypeException("Type mismatch: cannot unify " + type1 + " with " + type2, currentFilename, null);
+        return "Type mismatch: cannot unify " + type1 + " with " + type2;
     }
     
-    private Map<String, Type> substitutions = new HashMap<>();
+    private final TypeVariables variables = new TypeVariables();
     
-    private void bind(String var, Type type) {
-        substitutions.put(var, type);
+    private void bind(Type var, Type type) {
+        variables.bind(var, type);
     }
     
     private Type prune(Type type) {
-        if (type instanceof Type.TVar(String name) && substitutions.containsKey(name)) {
-            Type pruned = prune(substitutions.get(name));
-            substitutions.put(name, pruned);
-            return pruned;
-        }
-        if (type instanceof Type.TNumeric(String name) && substitutions.containsKey(name)) {
-            Type pruned = prune(substitutions.get(name));
-            substitutions.put(name, pruned);
-            return pruned;
+        if (type instanceof Type.TVar || type instanceof Type.TNumeric) {
+            return variables.find(type);
         }
         return type;
     }
     
+    private Type resolve(Type type) {
+        Type pruned = prune(type);
+        return switch (pruned) {
+            case Type.TFun(Type param, Type result) ->
+                Type.fun(resolve(param), resolve(result));
+            case Type.TList(Type elem) ->
+                Type.list(resolve(elem));
+            case Type.TResult(Type ok, Type err) ->
+                Type.result(resolve(ok), resolve(err));
+            default -> pruned;
+        };
+    }
+    
     private Type fullyPrune(Type type) {
         Type pruned = prune(type);
         return switch (pruned) {
-            case Type.TNumeric n -> new Type.TInt();
+            case Type.TNumeric n -> Type.INT;
             case Type.TFun(Type param, Type result) ->
-                new Type.TFun(fullyPrune(param), fullyPrune(result));
+                Type.fun(fullyPrune(param), fullyPrune(result));
             case Type.TList(Type elem) ->
-                new Type.TList(fullyPrune(elem));
+                Type.list(fullyPrune(elem));
             case Type.TResult(Type ok, Type err) ->
-                new Type.TResult(fullyPrune(ok), fullyPrune(err));
+                Type.result(fullyPrune(ok), fullyPrune(err));
             default -> pruned;
         };
     }
@@ -963,10 +1118,10 @@ public class TypeInference {
     
     private boolean occursInType(String var, Type type) {
         Type pruned = prune(type);
-        if (pruned instanceof Type.TVar(String name)) {
+        if (pruned instanceof Type.TVar(String name, int cell)) {
             return name.equals(var);
         }
-        if (pruned instanceof Type.TNumeric(String name)) {
+        if (pruned instanceof Type.TNumeric(String name, int cell)) {
             return name.equals(var);
         }
         if (pruned instanceof Type.TFun(Type param, Type result)) {
@@ -980,11 +1135,11 @@ public class TypeInference {
     
     private Type applySubst(Map<String, Type> subst, Type type) {
         return switch (type) {
-            case Type.TVar(String name) -> subst.getOrDefault(name, type);
+            case Type.TVar(String name, int cell) -> subst.getOrDefault(name, type);
             case Type.TFun(Type param, Type result) -> 
-                new Type.TFun(applySubst(subst, param), applySubst(subst, result));
+                Type.fun(applySubst(subst, param), applySubst(subst, result));
             case Type.TList(Type elementType) ->
-                new Type.TList(applySubst(subst, elementType));
+                Type.list(applySubst(subst, elementType));
             default -> type;
         };
     }
@@ -1002,7 +1157,11 @@ public class TypeInference {
     }
     
     public Map<String, Type> getEnvironment() {
-        return new HashMap<>(env);
+        return env.toMap();
+    }
+    
+    public TypeEnv getTypeEnv() {
+        return env;
     }
     
     public static class TypeException extends Exception {
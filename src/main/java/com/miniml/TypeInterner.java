@@ -0,0 +1,81 @@
+package com.miniml;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+final class TypeInterner {
+    private static final int LIST = 0;
+    private static final int FUN = 1;
+    private static final int RESULT = 2;
+
+    private record Key(int tag, Type first, Type second) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && tag == other.tag && first == other.first && second == other.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * tag + System.identityHashCode(first)) + System.identityHashCode(second);
+        }
+    }
+
+    private static final ConcurrentHashMap<Key, Type> compounds = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Type> names = new ConcurrentHashMap<>();
+
+    private TypeInterner() {}
+
+    static Type list(Type element) {
+        if (!isCanonical(element)) {
+            return new Type.TList(element);
+        }
+        return compounds.computeIfAbsent(new Key(LIST, element, null), key -> new Type.TList(element));
+    }
+
+    static Type fun(Type param, Type result) {
+        if (!isCanonical(param) || !isCanonical(result)) {
+            return new Type.TFun(param, result);
+        }
+        return compounds.computeIfAbsent(new Key(FUN, param, result), key -> new Type.TFun(param, result));
+    }
+
+    static Type result(Type ok, Type error) {
+        if (!isCanonical(ok) || !isCanonical(error)) {
+            return new Type.TResult(ok, error);
+        }
+        return compounds.computeIfAbsent(new Key(RESULT, ok, error), key -> new Type.TResult(ok, error));
+    }
+
+    static Type name(String name) {
+        return names.computeIfAbsent(name, Type.TName::new);
+    }
+
+    static Type intern(Type type) {
+        return switch (type) {
+            case Type.TInt t -> Type.INT;
+            case Type.TDouble t -> Type.DOUBLE;
+            case Type.TString t -> Type.STRING;
+            case Type.TBool t -> Type.BOOL;
+            case Type.TUnit t -> Type.UNIT;
+            case Type.TName(String name) -> name(name);
+            case Type.TList(Type element) -> list(intern(element));
+            case Type.TFun(Type param, Type result) -> fun(intern(param), intern(result));
+            case Type.TResult(Type ok, Type error) -> result(intern(ok), intern(error));
+            default -> type;
+        };
+    }
+
+    static boolean isCanonical(Type type) {
+        return switch (type) {
+            case Type.TInt t -> t == Type.INT;
+            case Type.TDouble t -> t == Type.DOUBLE;
+            case Type.TString t -> t == Type.STRING;
+            case Type.TBool t -> t == Type.BOOL;
+            case Type.TUnit t -> t == Type.UNIT;
+            case Type.TName(String name) -> names.get(name) == type;
+            case Type.TList(Type element) -> compounds.get(new Key(LIST, element, null)) == type;
+            case Type.TFun(Type param, Type result) -> compounds.get(new Key(FUN, param, result)) == type;
+            case Type.TResult(Type ok, Type error) -> compounds.get(new Key(RESULT, ok, error)) == type;
+            default -> false;
+        };
+    }
+}
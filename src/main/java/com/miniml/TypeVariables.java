@@ -0,0 +1,188 @@
+package com.miniml;
+
+import java.util.*;
+
+public class TypeVariables {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private int[] parent = new int[64];
+    private int[] rank = new int[64];
+    private int[] level = new int[64];
+    private Type[] types = new Type[64];
+    private String[] names = new String[64];
+    private int size = 0;
+
+    private record Undo(int id, int parent, int rank, int level, Type type) {}
+
+    private final List<Undo> trail = new ArrayList<>();
+    private int openMarks = 0;
+
+    public Type freshVar(String name, int level) {
+        return fresh(new Type.TVar(name, size), level);
+    }
+
+    public Type freshNumeric(String name, int level) {
+        return fresh(new Type.TNumeric(name, size), level);
+    }
+
+    private Type fresh(Type var, int level) {
+        int id = register(var);
+        set(id, id, 0, level, var);
+        return var;
+    }
+
+    public Type find(Type var) {
+        int id = idOf(var);
+        if (id < 0) {
+            return var;
+        }
+        return types[root(id)];
+    }
+
+    public int level(Type var) {
+        int id = idOf(var);
+        return id < 0 ? 0 : level[root(id)];
+    }
+
+    public void bind(Type var, Type type) {
+        int root = root(register(var));
+        if (!(type instanceof Type.TVar || type instanceof Type.TNumeric)) {
+            lowerLevels(type, level[root]);
+            set(root, parent[root], rank[root], level[root], type);
+            return;
+        }
+        int other = root(register(type));
+        if (other == root) {
+            return;
+        }
+        Type representative = types[root] instanceof Type.TNumeric && !(types[other] instanceof Type.TNumeric)
+            ? types[root] : types[other];
+        int merged = Math.min(level[root], level[other]);
+        if (rank[root] < rank[other]) {
+            set(root, other, rank[root], level[root], types[root]);
+            set(other, other, rank[other], merged, representative);
+        } else {
+            set(other, root, rank[other], level[other], types[other]);
+            set(root, root, rank[root] == rank[other] ? rank[root] + 1 : rank[root], merged, representative);
+        }
+    }
+
+    public int mark() {
+        openMarks++;
+        return trail.size();
+    }
+
+    public void commit(int mark) {
+        openMarks--;
+        if (openMarks == 0) {
+            trail.clear();
+        }
+    }
+
+    public void rollback(int mark) {
+        for (int i = trail.size() - 1; i >= mark; i--) {
+            Undo undo = trail.remove(i);
+            parent[undo.id()] = undo.parent();
+            rank[undo.id()] = undo.rank();
+            level[undo.id()] = undo.level();
+            types[undo.id()] = undo.type();
+        }
+        openMarks--;
+    }
+
+    private void lowerLevels(Type type, int limit) {
+        switch (type) {
+            case Type.TVar v -> lowerLevel(v, limit);
+            case Type.TNumeric n -> lowerLevel(n, limit);
+            case Type.TFun(Type param, Type result) -> {
+                lowerLevels(param, limit);
+                lowerLevels(result, limit);
+            }
+            case Type.TList(Type elem) -> lowerLevels(elem, limit);
+            case Type.TResult(Type ok, Type err) -> {
+                lowerLevels(ok, limit);
+                lowerLevels(err, limit);
+            }
+            case Type.TApp(String name, List<Type> args) -> args.forEach(arg -> lowerLevels(arg, limit));
+            case Type.TJava(String className, List<Type> typeArgs) -> typeArgs.forEach(arg -> lowerLevels(arg, limit));
+            default -> {}
+        }
+    }
+
+    private void lowerLevel(Type var, int limit) {
+        int id = idOf(var);
+        if (id < 0) {
+            return;
+        }
+        int root = root(id);
+        if (!(types[root] instanceof Type.TVar || types[root] instanceof Type.TNumeric)) {
+            lowerLevels(types[root], limit);
+        } else if (level[root] > limit) {
+            set(root, parent[root], rank[root], limit, types[root]);
+        }
+    }
+
+    private int idOf(Type type) {
+        return switch (type) {
+            case Type.TVar(String name, int cell) -> idOf(name, cell);
+            case Type.TNumeric(String name, int cell) -> idOf(name, cell);
+            default -> -1;
+        };
+    }
+
+    private int idOf(String name, int cell) {
+        if (cell >= 0 && cell < size && name.equals(names[cell])) {
+            return cell;
+        }
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    private int register(Type var) {
+        String name = switch (var) {
+            case Type.TVar(String n, int cell) -> n;
+            case Type.TNumeric(String n, int cell) -> n;
+            default -> throw new IllegalArgumentException("Not a type variable: " + var);
+        };
+        int id = idOf(var);
+        if (id >= 0) {
+            return id;
+        }
+        if (size == parent.length) {
+            parent = Arrays.copyOf(parent, size * 2);
+            rank = Arrays.copyOf(rank, size * 2);
+            level = Arrays.copyOf(level, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        parent[size] = size;
+        rank[size] = 0;
+        level[size] = 0;
+        types[size] = var;
+        names[size] = name;
+        ids.put(name, size);
+        return size++;
+    }
+
+    private int root(int id) {
+        int root = id;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[id] != root) {
+            int next = parent[id];
+            set(id, root, rank[id], level[id], types[id]);
+            id = next;
+        }
+        return root;
+    }
+
+    private void set(int id, int newParent, int newRank, int newLevel, Type newType) {
+        if (openMarks > 0) {
+            trail.add(new Undo(id, parent[id], rank[id], level[id], types[id]));
+        }
+        parent[id] = newParent;
+        rank[id] = newRank;
+        level[id] = newLevel;
+        types[id] = newType;
+    }
+}
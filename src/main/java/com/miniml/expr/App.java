@@ -1,5 +1,6 @@
 package com.miniml.expr;
 
+import com.miniml.ClosureCompiler;
 import com.miniml.Environment;
 import java.util.List;
 import java.util.ArrayList;
@@ -9,15 +10,18 @@ public record App(Expr func, List<Expr> args) implements Expr {
     public Object eval(Environment env) {
         Object f = func.eval(env);
         
-        if (!(f instanceof Lambda.Closure closure)) {
-            throw new RuntimeException("Cannot apply non-function value: " + f);
-        }
-        
         List<Object> argValues = new ArrayList<>();
         for (Expr arg : args) {
             argValues.add(arg.eval(env));
         }
         
+        if (f instanceof ClosureCompiler.Closure compiled) {
+            return ClosureCompiler.trampoline(compiled.apply(argValues.toArray()));
+        }
+        if (!(f instanceof Lambda.Closure closure)) {
+            throw new RuntimeException("Cannot apply non-function value: " + f);
+        }
+        
         return closure.apply(argValues);
     }
 }
@@ -6,9 +6,10 @@ import java.util.Objects;
 public record BinOp(Op op, Expr left, Expr right) implements Expr {
     @Override
     public Object eval(Environment env) {
-        Object l = left.eval(env);
-        Object r = right.eval(env);
-        
+        return apply(op, left.eval(env), right.eval(env));
+    }
+    
+    public static Object apply(Op op, Object l, Object r) {
         return switch (op) {
             case ADD -> {
                 if (l instanceof Integer && r instanceof Integer) {
@@ -1,8 +1,8 @@
 package com.miniml.expr;
 
 import com.miniml.Environment;
+import com.miniml.runtime.ConsList;
 import java.util.List;
-import java.util.ArrayList;
 
 public record Cons(Expr head, Expr tail) implements Expr {
     @Override
@@ -14,9 +14,6 @@ public record Cons(Expr head, Expr tail) implements Expr {
             throw new RuntimeException("Cons tail must be a list");
         }
         
-        List<Object> result = new ArrayList<>();
-        result.add(headValue);
-        result.addAll(tailList);
-        return result;
+        return ConsList.cons(headValue, ConsList.fromList(tailList));
     }
 }
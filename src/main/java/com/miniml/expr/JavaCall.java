@@ -8,15 +8,18 @@ import java.lang.reflect.Method;
 public record JavaCall(String className, String methodName, List<Expr> args) implements Expr {
     @Override
     public Object eval(Environment env) {
+        List<Object> argValues = new ArrayList<>();
+        for (Expr arg : args) {
+            argValues.add(arg.eval(env));
+        }
+        return invoke(env, argValues);
+    }
+    
+    public Object invoke(Environment env, List<Object> argValues) {
         try {
             String fullClassName = env.resolveJavaClass(className);
             Class<?> clazz = Class.forName(fullClassName);
             
-            List<Object> argValues = new ArrayList<>();
-            for (Expr arg : args) {
-                argValues.add(arg.eval(env));
-            }
-            
             if (methodName.equals("new")) {
                 Object[] argArray = argValues.toArray();
                 if (argArray.length == 0) {
@@ -8,15 +8,18 @@ import java.lang.reflect.Method;
 public record JavaInstanceCall(String className, String methodName, Expr instance, List<Expr> args) implements Expr {
     @Override
     public Object eval(Environment env) {
+        Object instanceValue = instance.eval(env);
+        List<Object> argValues = new ArrayList<>();
+        for (Expr arg : args) {
+            argValues.add(arg.eval(env));
+        }
+        return invoke(instanceValue, argValues);
+    }
+    
+    public Object invoke(Object instanceValue, List<Object> argValues) {
         try {
-            Object instanceValue = instance.eval(env);
             Class<?> clazz = instanceValue.getClass();
             
-            List<Object> argValues = new ArrayList<>();
-            for (Expr arg : args) {
-                argValues.add(arg.eval(env));
-            }
-            
             for (Method method : clazz.getMethods()) {
                 if (method.getName().equals(methodName) &&
                     method.getParameterCount() == argValues.size()) {
@@ -1,28 +1,93 @@
 package com.miniml.expr;
 
+import com.miniml.ClosureCompiler;
 import com.miniml.Environment;
+import com.miniml.Resolver;
+import java.util.ArrayList;
 import java.util.List;
 
 public record Lambda(List<String> params, Expr body) implements Expr {
     @Override
     public Object eval(Environment env) {
+        if (env.resolution() == null) {
+            return Resolver.evaluate(this, env);
+        }
         return new Closure(params, body, env);
     }
     
     public record Closure(List<String> params, Expr body, Environment capturedEnv) {
         public Object apply(List<Object> args) {
+            Environment env = bind(args);
+            Expr expr = body;
+            
+            while (true) {
+                switch (expr) {
+                    case If(Expr cond, Expr thenBranch, Expr elseBranch) ->
+                        expr = (boolean) cond.eval(env) ? thenBranch : elseBranch;
+                    
+                    case Let(String name, Expr value, Expr letBody) -> {
+                        Environment frame = env.frame(1);
+                        frame.store(0, value.eval(env));
+                        env = frame;
+                        expr = letBody;
+                    }
+                    
+                    case LetRec(String name, List<String> recParams, Expr value, Expr recBody) -> {
+                        Environment frame = env.frame(1);
+                        frame.store(0, new Closure(recParams, value, frame));
+                        env = frame;
+                        expr = recBody;
+                    }
+                    
+                    case Sequence(List<Expr> exprs) when !exprs.isEmpty() -> {
+                        for (int i = 0; i < exprs.size() - 1; i++) {
+                            exprs.get(i).eval(env);
+                        }
+                        expr = exprs.get(exprs.size() - 1);
+                    }
+                    
+                    case Match match -> {
+                        Object value = match.scrutinee().eval(env);
+                        Environment caseEnv = match.caseFrame(env);
+                        expr = match.select(value, caseEnv).body();
+                        env = caseEnv;
+                    }
+                    
+                    case App(Expr func, List<Expr> callArgs) -> {
+                        Object f = func.eval(env);
+                        List<Object> argValues = new ArrayList<>(callArgs.size());
+                        for (Expr arg : callArgs) {
+                            argValues.add(arg.eval(env));
+                        }
+                        if (f instanceof ClosureCompiler.Closure compiled) {
+                            return ClosureCompiler.trampoline(compiled.apply(argValues.toArray()));
+                        }
+                        if (!(f instanceof Closure callee)) {
+                            throw new RuntimeException("Cannot apply non-function value: " + f);
+                        }
+                        env = callee.bind(argValues);
+                        expr = callee.body();
+                    }
+                    
+                    default -> {
+                        return expr.eval(env);
+                    }
+                }
+            }
+        }
+        
+        public Environment bind(List<Object> args) {
             if (args.size() != params.size()) {
                 throw new RuntimeException(
                     "Function expects " + params.size() + " arguments but got " + args.size()
                 );
             }
             
-            Environment callEnv = capturedEnv.extend();
+            Environment callEnv = capturedEnv.frame(params.size());
             for (int i = 0; i < params.size(); i++) {
-                callEnv.define(params.get(i), args.get(i));
+                callEnv.store(i, args.get(i));
             }
-            
-            return body.eval(callEnv);
+            return callEnv;
         }
     }
 }
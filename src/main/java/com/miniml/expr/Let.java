@@ -1,13 +1,17 @@
 package com.miniml.expr;
 
 import com.miniml.Environment;
+import com.miniml.Resolver;
 
 public record Let(String name, Expr value, Expr body) implements Expr {
     @Override
     public Object eval(Environment env) {
+        if (env.resolution() == null) {
+            return Resolver.evaluate(this, env);
+        }
         Object val = value.eval(env);
-        Environment newEnv = env.extend();
-        newEnv.define(name, val);
+        Environment newEnv = env.frame(1);
+        newEnv.store(0, val);
         return body.eval(newEnv);
     }
 }
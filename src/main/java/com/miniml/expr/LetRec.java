@@ -1,18 +1,19 @@
 package com.miniml.expr;
 
 import com.miniml.Environment;
+import com.miniml.Resolver;
 import java.util.List;
 
 public record LetRec(String name, List<String> params, Expr value, Expr body) implements Expr {
     @Override
     public Object eval(Environment env) {
-        Environment newEnv = env.extend();
+        if (env.resolution() == null) {
+            return Resolver.evaluate(this, env);
+        }
+        Environment newEnv = env.frame(1);
         
-        newEnv.define(name, null);
-        
-        Lambda lambda = new Lambda(params, value);
         Lambda.Closure closure = new Lambda.Closure(params, value, newEnv);
-        newEnv.set(name, closure);
+        newEnv.store(0, closure);
         
         return body.eval(newEnv);
     }
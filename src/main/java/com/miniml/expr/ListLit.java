@@ -1,16 +1,16 @@
 package com.miniml.expr;
 
 import com.miniml.Environment;
+import com.miniml.runtime.ConsList;
 import java.util.List;
-import java.util.ArrayList;
 
 public record ListLit(List<Expr> elements) implements Expr {
     @Override
     public Object eval(Environment env) {
-        List<Object> result = new ArrayList<>();
-        for (Expr elem : elements) {
-            result.add(elem.eval(env));
+        Object[] values = new Object[elements.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = elements.get(i).eval(env);
         }
-        return result;
+        return ConsList.of(values);
     }
 }
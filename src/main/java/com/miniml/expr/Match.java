@@ -2,11 +2,12 @@ package com.miniml.expr;
 
 import com.miniml.Environment;
 import com.miniml.Pattern;
+import com.miniml.Resolution;
+import com.miniml.Resolver;
 import com.miniml.Result;
 import com.miniml.Unit;
+import com.miniml.runtime.ConsList;
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
 
 public record Match(Expr scrutinee, List<MatchCase> cases) implements Expr {
     
@@ -14,28 +15,34 @@ public record Match(Expr scrutinee, List<MatchCase> cases) implements Expr {
     
     @Override
     public Object eval(Environment env) {
+        if (env.resolution() == null) {
+            return Resolver.evaluate(this, env);
+        }
         Object scrutineeValue = scrutinee.eval(env);
-        
+        Environment caseEnv = caseFrame(env);
+        return select(scrutineeValue, caseEnv).body().eval(caseEnv);
+    }
+    
+    public Environment caseFrame(Environment env) {
+        int frameSize = (int) env.addressOf(this);
+        return frameSize > 0 ? env.frame(frameSize) : env;
+    }
+    
+    public MatchCase select(Object value, Environment frame) {
         for (MatchCase matchCase : cases) {
-            Map<String, Object> bindings = new HashMap<>();
-            if (matchPattern(matchCase.pattern(), scrutineeValue, bindings)) {
-                Environment newEnv = env.extend();
-                for (Map.Entry<String, Object> entry : bindings.entrySet()) {
-                    newEnv.define(entry.getKey(), entry.getValue());
-                }
-                return matchCase.body().eval(newEnv);
+            if (matchPattern(matchCase.pattern(), value, frame)) {
+                return matchCase;
             }
         }
-        
         throw new RuntimeException("Non-exhaustive pattern match");
     }
     
-    private boolean matchPattern(Pattern pattern, Object value, Map<String, Object> bindings) {
+    public static boolean matchPattern(Pattern pattern, Object value, Environment frame) {
         return switch (pattern) {
             case Pattern.Wildcard() -> true;
             
             case Pattern.Var(String name) -> {
-                bindings.put(name, value);
+                frame.store(Resolution.slot(frame.addressOf(pattern)), value);
                 yield true;
             }
             
@@ -55,22 +62,21 @@ public record Match(Expr scrutinee, List<MatchCase> cases) implements Expr {
                 if (!(value instanceof List<?> list) || list.isEmpty()) {
                     yield false;
                 }
-                Object headValue = list.get(0);
-                List<?> tailValue = list.subList(1, list.size());
-                yield matchPattern(head, headValue, bindings) &&
-                      matchPattern(tail, tailValue, bindings);
+                ConsList consList = ConsList.fromList(list);
+                yield matchPattern(head, consList.head(), frame) &&
+                      matchPattern(tail, consList.tail(), frame);
             }
             
             case Pattern.Constructor(String name, java.util.Optional<Pattern> arg) -> {
                 if (value instanceof Result<?, ?> result) {
                     if (name.equals("Ok") && result instanceof Result.Ok<?, ?> ok) {
                         if (arg.isPresent()) {
-                            yield matchPattern(arg.get(), ok.value(), bindings);
+                            yield matchPattern(arg.get(), ok.value(), frame);
                         }
                         yield true;
                     } else if (name.equals("Error") && result instanceof Result.Error<?, ?> error) {
                         if (arg.isPresent()) {
-                            yield matchPattern(arg.get(), error.error(), bindings);
+                            yield matchPattern(arg.get(), error.error(), frame);
                         }
                         yield true;
                     }
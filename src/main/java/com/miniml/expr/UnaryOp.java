@@ -5,8 +5,10 @@ import com.miniml.Environment;
 public record UnaryOp(UnOp op, Expr operand) implements Expr {
     @Override
     public Object eval(Environment env) {
-        Object val = operand.eval(env);
-        
+        return apply(op, operand.eval(env));
+    }
+    
+    public static Object apply(UnOp op, Object val) {
         return switch (op) {
             case NEG -> {
                 if (val instanceof Integer) yield -(int)val;
@@ -1,10 +1,15 @@
 package com.miniml.expr;
 
 import com.miniml.Environment;
+import com.miniml.Resolution;
 
 public record Var(String name) implements Expr {
     @Override
     public Object eval(Environment env) {
-        return env.get(name);
+        long address = env.addressOf(this);
+        if (address == Resolution.UNRESOLVED) {
+            return env.get(name);
+        }
+        return env.getAt(address);
     }
 }
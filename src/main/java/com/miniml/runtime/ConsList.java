@@ -0,0 +1,168 @@
+package com.miniml.runtime;
+
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent singly-linked list backing MiniML {@code list} values.
+ *
+ * <p>Cons, head and tail are O(1) and share structure with the tail, so
+ * {@code hd :: tl} never copies. Nodes may be generic or primitive-specialized
+ * ({@link IntConsList}, {@link DoubleConsList}) and can be mixed freely in one
+ * list. The class is read-only from Java's point of view but still implements
+ * {@link List} for interop and printing.
+ */
+public abstract class ConsList extends AbstractSequentialList<Object> {
+    public static final ConsList NIL = new Nil();
+
+    private final ConsList tail;
+    private final int size;
+
+    protected ConsList(ConsList tail) {
+        this.tail = tail;
+        this.size = tail == null ? 0 : tail.size + 1;
+    }
+
+    public static ConsList cons(Object head, ConsList tail) {
+        return new Node(head, tail);
+    }
+
+    public static ConsList of(Object... elements) {
+        ConsList result = NIL;
+        for (int i = elements.length - 1; i >= 0; i--) {
+            result = cons(elements[i], result);
+        }
+        return result;
+    }
+
+    public static ConsList fromList(List<?> list) {
+        if (list instanceof ConsList consList) {
+            return consList;
+        }
+        return of(list.toArray());
+    }
+
+    public abstract Object head();
+
+    public int headInt() {
+        return (Integer) head();
+    }
+
+    public double headDouble() {
+        return (Double) head();
+    }
+
+    public ConsList tail() {
+        if (size == 0) {
+            throw new NoSuchElementException("tail of empty list");
+        }
+        return tail;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        ConsList node = this;
+        for (int i = 0; i < index; i++) {
+            node = node.tail;
+        }
+        return node.head();
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<>() {
+            private ConsList node = ConsList.this;
+
+            @Override
+            public boolean hasNext() {
+                return node.size != 0;
+            }
+
+            @Override
+            public Object next() {
+                if (node.size == 0) {
+                    throw new NoSuchElementException();
+                }
+                Object value = node.head();
+                node = node.tail;
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public ListIterator<Object> listIterator(int index) {
+        return Arrays.asList(toArray()).listIterator(index);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof List<?> other) || other.size() != size) {
+            return false;
+        }
+        Iterator<?> it = other.iterator();
+        for (ConsList node = this; node.size != 0; node = node.tail) {
+            Object head = node.head();
+            Object value = it.next();
+            if (head == null ? value != null : !head.equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (ConsList node = this; node.size != 0; node = node.tail) {
+            Object head = node.head();
+            hash = 31 * hash + (head == null ? 0 : head.hashCode());
+        }
+        return hash;
+    }
+
+    private static final class Nil extends ConsList {
+        private Nil() {
+            super(null);
+        }
+
+        @Override
+        public Object head() {
+            throw new NoSuchElementException("head of empty list");
+        }
+    }
+
+    private static final class Node extends ConsList {
+        private final Object head;
+
+        private Node(Object head, ConsList tail) {
+            super(tail);
+            this.head = head;
+        }
+
+        @Override
+        public Object head() {
+            return head;
+        }
+    }
+}
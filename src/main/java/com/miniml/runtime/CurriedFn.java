@@ -0,0 +1,103 @@
+package com.miniml.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+/**
+ * Function value over a static method of two or more parameters. Monomorphic call sites that
+ * supply every remaining argument go through {@link #exact}, which hands back the method with
+ * any applied arguments bound, so the call runs unboxed and without an argument array. The
+ * spread {@link #applyN} path is kept for partial applications and polymorphic callers.
+ */
+public final class CurriedFn implements Fn {
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final MethodHandle APPLY_N;
+
+    static {
+        try {
+            APPLY_N = MethodHandles.lookup().findVirtual(Fn.class, "applyN",
+                MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MethodHandle method;
+    private final MethodHandle target;
+    private final int arity;
+    private final Object[] applied;
+    private MethodHandle direct;
+
+    private CurriedFn(MethodHandle method, MethodHandle target, int arity, Object[] applied) {
+        this.method = method;
+        this.target = target;
+        this.arity = arity;
+        this.applied = applied;
+    }
+
+    public static CurriedFn of(MethodHandle method) {
+        int arity = method.type().parameterCount();
+        MethodHandle spread = method.asType(MethodType.genericMethodType(arity)).asSpreader(Object[].class, arity);
+        return new CurriedFn(method, spread, arity, NO_ARGS);
+    }
+
+    public static MethodHandle exact(Object fn, MethodType type) {
+        if (fn instanceof CurriedFn curried && curried.arity() == type.parameterCount()) {
+            MethodHandle direct = curried.direct();
+            return direct.type().equals(type) ? direct : direct.asType(type);
+        }
+        return APPLY_N.bindTo(fn).asCollector(Object[].class, type.parameterCount()).asType(type);
+    }
+
+    public static CurriedFn bootstrap(MethodHandles.Lookup lookup, String name, Class<?> type, MethodHandle method) {
+        return of(method);
+    }
+
+    @Override
+    public int arity() {
+        return arity - applied.length;
+    }
+
+    @Override
+    public Object apply(Object arg) {
+        return applyN(new Object[] { arg });
+    }
+
+    @Override
+    public Object applyN(Object[] args) {
+        int remaining = arity - applied.length;
+        if (args.length < remaining) {
+            return new CurriedFn(method, target, arity, concat(applied, args, args.length));
+        }
+        Object result = invoke(applied.length == 0 && args.length == remaining ? args : concat(applied, args, remaining));
+        if (args.length == remaining) {
+            return result;
+        }
+        return ((Fn) result).applyN(Arrays.copyOfRange(args, remaining, args.length));
+    }
+
+    private MethodHandle direct() {
+        if (direct == null) {
+            direct = applied.length == 0 ? method : MethodHandles.insertArguments(method, 0, applied);
+        }
+        return direct;
+    }
+
+    private Object invoke(Object[] args) {
+        try {
+            return target.invokeExact(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object[] concat(Object[] prefix, Object[] args, int count) {
+        Object[] result = Arrays.copyOf(prefix, prefix.length + count);
+        System.arraycopy(args, 0, result, prefix.length, count);
+        return result;
+    }
+}
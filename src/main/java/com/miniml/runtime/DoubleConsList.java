@@ -0,0 +1,35 @@
+package com.miniml.runtime;
+
+/**
+ * Cons node holding an unboxed {@code double} head, emitted for {@code double list}.
+ */
+public final class DoubleConsList extends ConsList {
+    private final double head;
+
+    private DoubleConsList(double head, ConsList tail) {
+        super(tail);
+        this.head = head;
+    }
+
+    public static DoubleConsList cons(double head, ConsList tail) {
+        return new DoubleConsList(head, tail);
+    }
+
+    public static ConsList ofDoubles(double... elements) {
+        ConsList result = NIL;
+        for (int i = elements.length - 1; i >= 0; i--) {
+            result = new DoubleConsList(elements[i], result);
+        }
+        return result;
+    }
+
+    @Override
+    public Object head() {
+        return head;
+    }
+
+    @Override
+    public double headDouble() {
+        return head;
+    }
+}
@@ -0,0 +1,218 @@
+package com.miniml.runtime;
+
+import java.util.function.Function;
+
+/**
+ * Function value emitted for MiniML closures. Monomorphic closures implement one of the
+ * nested primitive-specialized interfaces; the other entry points box or unbox through
+ * {@link #apply} so polymorphic code can still call any function value. Functions of two or
+ * more parameters are {@link CurriedFn} instances and are applied through {@link #applyN}.
+ */
+public interface Fn extends Function<Object, Object> {
+    default int arity() {
+        return 1;
+    }
+
+    default Object applyN(Object[] args) {
+        Object result = this;
+        for (Object arg : args) {
+            result = ((Fn) result).apply(arg);
+        }
+        return result;
+    }
+
+    default int applyIntToInt(int x) {
+        return (Integer) apply(x);
+    }
+
+    default double applyIntToDouble(int x) {
+        return (Double) apply(x);
+    }
+
+    default boolean applyIntToBool(int x) {
+        return (Boolean) apply(x);
+    }
+
+    default Object applyIntToObj(int x) {
+        return apply(x);
+    }
+
+    default int applyDoubleToInt(double x) {
+        return (Integer) apply(x);
+    }
+
+    default double applyDoubleToDouble(double x) {
+        return (Double) apply(x);
+    }
+
+    default boolean applyDoubleToBool(double x) {
+        return (Boolean) apply(x);
+    }
+
+    default Object applyDoubleToObj(double x) {
+        return apply(x);
+    }
+
+    default int applyBoolToInt(boolean x) {
+        return (Integer) apply(x);
+    }
+
+    default double applyBoolToDouble(boolean x) {
+        return (Double) apply(x);
+    }
+
+    default boolean applyBoolToBool(boolean x) {
+        return (Boolean) apply(x);
+    }
+
+    default Object applyBoolToObj(boolean x) {
+        return apply(x);
+    }
+
+    default int applyObjToInt(Object x) {
+        return (Integer) apply(x);
+    }
+
+    default double applyObjToDouble(Object x) {
+        return (Double) apply(x);
+    }
+
+    default boolean applyObjToBool(Object x) {
+        return (Boolean) apply(x);
+    }
+
+    interface IntToInt extends Fn {
+        int applyIntToInt(int x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyIntToInt((Integer) x);
+        }
+    }
+
+    interface IntToDouble extends Fn {
+        double applyIntToDouble(int x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyIntToDouble((Integer) x);
+        }
+    }
+
+    interface IntToBool extends Fn {
+        boolean applyIntToBool(int x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyIntToBool((Integer) x);
+        }
+    }
+
+    interface IntToObj extends Fn {
+        Object applyIntToObj(int x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyIntToObj((Integer) x);
+        }
+    }
+
+    interface DoubleToInt extends Fn {
+        int applyDoubleToInt(double x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyDoubleToInt((Double) x);
+        }
+    }
+
+    interface DoubleToDouble extends Fn {
+        double applyDoubleToDouble(double x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyDoubleToDouble((Double) x);
+        }
+    }
+
+    interface DoubleToBool extends Fn {
+        boolean applyDoubleToBool(double x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyDoubleToBool((Double) x);
+        }
+    }
+
+    interface DoubleToObj extends Fn {
+        Object applyDoubleToObj(double x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyDoubleToObj((Double) x);
+        }
+    }
+
+    interface BoolToInt extends Fn {
+        int applyBoolToInt(boolean x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyBoolToInt((Boolean) x);
+        }
+    }
+
+    interface BoolToDouble extends Fn {
+        double applyBoolToDouble(boolean x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyBoolToDouble((Boolean) x);
+        }
+    }
+
+    interface BoolToBool extends Fn {
+        boolean applyBoolToBool(boolean x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyBoolToBool((Boolean) x);
+        }
+    }
+
+    interface BoolToObj extends Fn {
+        Object applyBoolToObj(boolean x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyBoolToObj((Boolean) x);
+        }
+    }
+
+    interface ObjToInt extends Fn {
+        int applyObjToInt(Object x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyObjToInt(x);
+        }
+    }
+
+    interface ObjToDouble extends Fn {
+        double applyObjToDouble(Object x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyObjToDouble(x);
+        }
+    }
+
+    interface ObjToBool extends Fn {
+        boolean applyObjToBool(Object x);
+
+        @Override
+        default Object apply(Object x) {
+            return applyObjToBool(x);
+        }
+    }
+}
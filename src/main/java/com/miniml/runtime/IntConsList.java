@@ -0,0 +1,35 @@
+package com.miniml.runtime;
+
+/**
+ * Cons node holding an unboxed {@code int} head, emitted for {@code int list}.
+ */
+public final class IntConsList extends ConsList {
+    private final int head;
+
+    private IntConsList(int head, ConsList tail) {
+        super(tail);
+        this.head = head;
+    }
+
+    public static IntConsList cons(int head, ConsList tail) {
+        return new IntConsList(head, tail);
+    }
+
+    public static ConsList ofInts(int... elements) {
+        ConsList result = NIL;
+        for (int i = elements.length - 1; i >= 0; i--) {
+            result = new IntConsList(elements[i], result);
+        }
+        return result;
+    }
+
+    @Override
+    public Object head() {
+        return head;
+    }
+
+    @Override
+    public int headInt() {
+        return head;
+    }
+}
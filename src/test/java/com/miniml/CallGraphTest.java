@@ -0,0 +1,39 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallGraphTest {
+    
+    private CallGraph graph(String input) {
+        Lexer lexer = new Lexer(input);
+        Parser parser = new Parser(lexer.tokenize());
+        return CallGraph.of(parser.parseModule());
+    }
+    
+    @Test
+    void testMutualRecursionFormsOneComponent() {
+        CallGraph graph = graph("""
+            fn is_even (n: int): bool = if n == 0 then true else is_odd (n - 1);
+            fn is_odd (n: int): bool = if n == 0 then false else is_even (n - 1);
+            fn check (n: int): bool = is_even n;
+            check 4""");
+        
+        assertEquals(List.of(List.of("is_even", "is_odd"), List.of("check")), graph.stronglyConnectedComponents());
+        assertTrue(graph.isRecursive(List.of("is_even", "is_odd")));
+        assertFalse(graph.isRecursive(List.of("check")));
+    }
+    
+    @Test
+    void testShadowedNamesAreNotCalls() {
+        CallGraph graph = graph("""
+            fn f (x: int): int = let g = x in g;
+            fn g (x: int): int = match [x] with | [] -> 0 | f :: t -> f;
+            f 1""");
+        
+        assertEquals(Set.of(), graph.callees("f"));
+        assertEquals(Set.of(), graph.callees("g"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import com.miniml.expr.*;
+import static com.miniml.expr.Expr.Op;
+
+import java.util.*;
+
+public class ClosureCompilerTest {
+    private Environment environment;
+    
+    @BeforeEach
+    void setUp() {
+        environment = new Environment();
+    }
+    
+    private Object run(Expr expr) throws Exception {
+        TypeInference inference = new TypeInference();
+        inference.infer(TypeEnv.empty(), expr);
+        inference.resolveTypeMap();
+        return new ClosureCompiler(inference.getTypeMap()).run(expr, environment);
+    }
+    
+    @Test
+    void testIntArithmetic() throws Exception {
+        Expr expr = new BinOp(Op.ADD, new IntLit(40), new BinOp(Op.MUL, new IntLit(1), new IntLit(2)));
+        
+        assertEquals(42, run(expr));
+    }
+    
+    @Test
+    void testDoubleArithmetic() throws Exception {
+        Expr expr = new BinOp(Op.SUB, new FloatLit(10.5), new FloatLit(0.25));
+        
+        assertEquals(10.25, run(expr));
+    }
+    
+    @Test
+    void testStringEquality() throws Exception {
+        assertEquals(true, run(new BinOp(Op.EQ, new StringLit("a"), new StringLit("a"))));
+        assertEquals(true, run(new BinOp(Op.NE, new StringLit("a"), new StringLit("b"))));
+    }
+    
+    @Test
+    void testUntypedNodesFallBackToGenericOperations() {
+        Expr expr = new BinOp(Op.ADD, new IntLit(1), new FloatLit(0.5));
+        
+        assertEquals(1.5, new ClosureCompiler(new IdentityHashMap<>()).run(expr, environment));
+    }
+    
+    @Test
+    void testAndShortCircuits() throws Exception {
+        Expr expr = new BinOp(Op.AND, new BoolLit(false), new BinOp(Op.EQ, new BinOp(Op.DIV, new IntLit(1), new IntLit(0)), new IntLit(0)));
+        
+        assertEquals(false, run(expr));
+    }
+    
+    @Test
+    void testLetAndLambda() throws Exception {
+        Expr expr = new Let("k", new IntLit(3),
+            new Let("addK", new Lambda(List.of("x"), new BinOp(Op.ADD, new Var("x"), new Var("k"))),
+                new App(new Var("addK"), List.of(new IntLit(4)))));
+        
+        assertEquals(7, run(expr));
+    }
+    
+    @Test
+    void testRecursion() throws Exception {
+        Expr body = new If(
+            new BinOp(Op.LE, new Var("n"), new IntLit(1)),
+            new Var("n"),
+            new BinOp(Op.ADD,
+                new App(new Var("fib"), List.of(new BinOp(Op.SUB, new Var("n"), new IntLit(1)))),
+                new App(new Var("fib"), List.of(new BinOp(Op.SUB, new Var("n"), new IntLit(2))))));
+        Expr expr = new LetRec("fib", List.of("n"), body, new App(new Var("fib"), List.of(new IntLit(15))));
+        
+        assertEquals(610, run(expr));
+    }
+    
+    @Test
+    void testMatchBindsSlots() throws Exception {
+        Expr expr = new Match(new ListLit(List.of(new IntLit(5), new IntLit(6))), List.of(
+            new Match.MatchCase(new Pattern.Nil(), new IntLit(0)),
+            new Match.MatchCase(new Pattern.Cons(new Pattern.Var("h"), new Pattern.Var("t")), new Var("h"))
+        ));
+        
+        assertEquals(5, run(expr));
+    }
+    
+    @Test
+    void testStringInterpolation() throws Exception {
+        Expr expr = new Let("n", new IntLit(2), new StringInterp(List.of("n = ", new Var("n"))));
+        
+        assertEquals("n = 2", run(expr));
+    }
+    
+    @Test
+    void testGlobalsAndInterpretedClosures() {
+        environment.define("base", 10);
+        environment.define("inc", new Lambda(List.of("x"), new BinOp(Op.ADD, new Var("x"), new IntLit(1))).eval(environment));
+        Expr expr = new App(new Var("inc"), List.of(new Var("base")));
+        
+        assertEquals(11, new ClosureCompiler(new IdentityHashMap<>()).run(expr, environment));
+    }
+    
+    @Test
+    void testJavaStaticCall() throws Exception {
+        Expr expr = new JavaCall("java.lang.Math", "max", List.of(new IntLit(3), new IntLit(9)));
+        
+        assertEquals(9, new ClosureCompiler(new IdentityHashMap<>()).run(expr, environment));
+    }
+    
+    @Test
+    void testJavaCallsPickOverloadFromArguments() throws Exception {
+        Expr doubles = new JavaCall("java.lang.Math", "max", List.of(new FloatLit(3.5), new FloatLit(1.0)));
+        Expr index = new JavaInstanceCall("String", "indexOf", new StringLit("a-b"), List.of(new StringLit("-")));
+        
+        assertEquals(3.5, new ClosureCompiler(new IdentityHashMap<>()).run(doubles, environment));
+        assertEquals(1, new ClosureCompiler(new IdentityHashMap<>()).run(index, environment));
+    }
+    
+    @Test
+    void testTailCallsAreTrampolined() throws Exception {
+        Expr expr = new LetRec("loop", List.of("i", "acc"),
+            new If(new BinOp(Op.EQ, new Var("i"), new IntLit(0)),
+                new Var("acc"),
+                new App(new Var("loop"), List.of(
+                    new BinOp(Op.SUB, new Var("i"), new IntLit(1)),
+                    new BinOp(Op.ADD, new Var("acc"), new IntLit(2))))),
+            new App(new Var("loop"), List.of(new IntLit(1_000_000), new IntLit(0))));
+        
+        assertEquals(2_000_000, run(expr));
+    }
+}
@@ -1,14 +1,54 @@
 package com.miniml;
 
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import static org.junit.jupiter.api.Assertions.*;
 
 class CompilerTest {
     
-    private Object compile(String input) throws Exception {
+    private Class<?> compile(String input) throws Exception {
+        return compile(input, compiler -> {});
+    }
+    
+    private Class<?> compile(String input, Consumer<Compiler> configure) throws Exception {
+        byte[] bytecode = bytecode(input, configure);
+        
+        TestClassLoader classLoader = new TestClassLoader();
+        Class<?> clazz = classLoader.defineClass("TestClass", bytecode);
+        Method main = clazz.getMethod("main", String[].class);
+        main.invoke(null, (Object) new String[0]);
+        
+        return clazz;
+    }
+    
+    private String output(String input) throws Exception {
+        return output(input, compiler -> {});
+    }
+    
+    private String output(String input, Consumer<Compiler> configure) throws Exception {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer));
+        try {
+            compile(input, configure);
+        } finally {
+            System.setOut(originalOut);
+        }
+        return buffer.toString().trim();
+    }
+    
+    private byte[] bytecode(String input, Consumer<Compiler> configure) throws Exception {
         Lexer lexer = new Lexer(input);
         List<Token> tokens = lexer.tokenize();
         Parser parser = new Parser(tokens);
@@ -18,14 +58,9 @@ class CompilerTest {
         typeInf.inferModule(module);
         
         Compiler compiler = new Compiler("TestClass", typeInf.getTypeMap(), typeInf.getInstantiations());
-        byte[] bytecode = compiler.compileModule(module);
-        
-        TestClassLoader classLoader = new TestClassLoader();
-        Class<?> clazz = classLoader.defineClass("TestClass", bytecode);
-        Method main = clazz.getMethod("main", String[].class);
-        main.invoke(null, (Object) new String[0]);
-        
-        return null;
+        compiler.setLetRecTypes(typeInf.getLetRecTypes());
+        configure.accept(compiler);
+        return compiler.compileModule(module);
     }
     
     @Test
@@ -83,6 +118,196 @@ class CompilerTest {
         compile("match [1, 2, 3] with | [] -> 0 | h :: t -> h");
     }
     
+    @Test
+    void testConsTailPattern() throws Exception {
+        compile("match 0 :: [1, 2, 3] with | [] -> 0 | h :: t -> match t with | [] -> h | h2 :: t2 -> h2");
+    }
+    
+    @Test
+    void testSelfTailCallRunsInConstantStack() throws Exception {
+        compile("""
+            fn build (acc: list<int>) (n: int): list<int> = if n == 0 then acc else build (n :: acc) (n - 1);
+            fn count (acc: int) (xs: list<int>): int = match xs with | [] -> acc | h :: t -> count (acc + 1) t;
+            let xs = build [] 500000 in count 0 xs""");
+    }
+    
+    @Test
+    void testMutualTailCallsRunInConstantStack() throws Exception {
+        compile("""
+            fn ping (n: int): int = if n == 0 then 0 else pong (n - 1);
+            fn pong (n: int): int = if n == 0 then 1 else ping (n - 1);
+            ping 1000001""", compiler -> compiler.setMergeMutualRecursion(true));
+    }
+    
+    @Test
+    void testLambdaCapturesEnclosingVariables() throws Exception {
+        assertEquals("16", output("""
+            fn add_n (n: int) (x: int): int = let f = fun y -> y + n in f x;
+            fn scale (d: double) (x: double): double = let g = fun z -> z * d in g x;
+            print (add_n 10 5 + (if scale 1.5 4.0 > 5.0 then 1 else 0))"""));
+    }
+    
+    @Test
+    void testLocalFunctionsCaptureEnclosingVariables() throws Exception {
+        assertEquals("42", output("""
+            fn f (n: int): int = fn g (x: int): int = if x == 0 then n else g (x - 1) in g 5;
+            print (f 42)"""));
+        assertEquals("3.5", output("""
+            fn outer (d: double) (k: int): double =
+              fn step (x: double): double = x + d in
+              fn twice (x: double): double = step (step x) in
+              let h = step in
+              if k > 0 then h (twice 0.0) else 0.0;
+            print (outer 1.0 1 + 0.5)"""));
+    }
+    
+    @Test
+    void testMultiParameterFunctionValues() throws Exception {
+        assertEquals("1113", output("""
+            fn add (a: int) (b: int): int = a + b;
+            fn fold_left (f: 'b -> 'a -> 'b) (acc: 'b) (lst: list<'a>): 'b =
+              match lst with
+              | [] -> acc
+              | hd :: tl -> fold_left f (f acc hd) tl;
+            let k = 100 in
+            let mul = fun x y -> x * y + k in
+            let inc = add 1 in
+            print (fold_left add 0 [1, 2, 3] + inc 1000 + mul 2 3)"""));
+    }
+    
+    @Test
+    void testFullApplicationOfFunctionValueIsUnboxed() throws Exception {
+        String source = """
+            let k = 100 in
+            let mul = fun x y -> x * y + k in
+            let scale = fun a b -> a * b + 0.5 in
+            print (mul 2 3 + (if scale 1.5 2.0 > 2.5 then 1 else 0))""";
+        
+        assertEquals("107", output(source));
+        List<String> calls = invocations(bytecode(source, compiler -> {}));
+        assertTrue(calls.contains("java/lang/invoke/MethodHandle.invokeExact(II)I"), calls.toString());
+        assertTrue(calls.contains("java/lang/invoke/MethodHandle.invokeExact(DD)D"), calls.toString());
+        assertEquals(1, calls.stream().filter(call -> call.startsWith("com/miniml/runtime/Fn.applyN")).count(), calls.toString());
+    }
+    
+    @Test
+    void testNestedAndLiteralPatterns() throws Exception {
+        String source = """
+            fn classify (xs: list<int>): int = match xs with
+              | [] -> 0
+              | 1 :: [] -> 10
+              | x :: y :: rest -> x + y
+              | x :: rest -> 100;
+            fn code (n: int): int = match n with
+              | 0 -> 5
+              | k -> k * 2;
+            print (classify [1] + classify [3, 4] + classify [5] + classify [] + code 21 + code 0)""";
+        
+        assertEquals("164", output(source));
+        assertFalse(stringConstants(bytecode(source, compiler -> {})).contains("Match failure"));
+    }
+    
+    @Test
+    void testNonExhaustiveMatchKeepsTheFallbackThrow() throws Exception {
+        String head = """
+            fn head (xs: list<int>): int = match xs with
+              | x :: rest -> x;
+            """;
+        
+        assertEquals("7", output(head + "print (head [7, 8])"));
+        assertTrue(stringConstants(bytecode(head + "head [7]", compiler -> {})).contains("Match failure"));
+        Exception failure = assertThrows(Exception.class, () -> compile(head + "head []"));
+        assertEquals("Match failure", failure.getCause().getMessage());
+    }
+    
+    @Test
+    void testPrimitiveListElementsFromErasedCallsAndMatches() throws Exception {
+        compile("""
+            fn first (xs: list<'a>) (d: 'a): 'a = match xs with
+              | [] -> d
+              | x :: rest -> x;
+            fn pair (xs: list<int>): list<int> = match xs with
+              | [] -> []
+              | x :: rest -> [x, (match rest with | [] -> 0 | y :: r -> y)];
+            let ints = [first [1] 0, 2] in
+            let doubles = [first [1.5] 0.0, 2.0] in
+            pair ints""", compiler -> compiler.setSpecializationBudget(0));
+    }
+    
+    @Test
+    void testPolymorphicFunctionsAreSpecializedPerInstantiation() throws Exception {
+        String source = """
+            fn pick (c: bool) (a: 'a) (b: 'a): 'a = if c then a else b;
+            let s = pick (1 > 2) "x" "y" in pick (1 < 2) 1 2""";
+        
+        List<String> specialized = methodNames(compile(source));
+        assertTrue(specialized.contains("pick$Bool$Int$Int$Int"), specialized.toString());
+        assertTrue(specialized.contains("pick$Bool$String$String$String"), specialized.toString());
+        assertFalse(specialized.contains("pick"), specialized.toString());
+        
+        List<String> erased = methodNames(compile(source, compiler -> compiler.setSpecializationBudget(0)));
+        assertEquals(List.of("pick"), erased.stream().filter(name -> name.startsWith("pick")).toList());
+    }
+    
+    @Test
+    void testImportedPolymorphicFunctionsCallTheErasedMethod() throws Exception {
+        byte[] bytecode = bytecode("""
+            import List
+            fn twice (x: 'a): list<'a> = [x, x];
+            let s = twice "s" in List.length (twice 3)""", compiler -> {});
+        
+        List<String> methods = new ArrayList<>();
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                methods.add(name);
+                return null;
+            }
+        }, 0);
+        List<String> calls = invocations(bytecode);
+        
+        assertTrue(methods.stream().anyMatch(name -> name.startsWith("twice$Int$")), methods.toString());
+        assertTrue(methods.stream().anyMatch(name -> name.startsWith("twice$String$")), methods.toString());
+        assertEquals(1, calls.stream().filter(call -> call.equals("List.length(Lcom/miniml/runtime/ConsList;)I")).count(), calls.toString());
+        assertTrue(calls.stream().noneMatch(call -> call.startsWith("List.length$")), calls.toString());
+    }
+    
+    private List<String> invocations(byte[] bytecode) {
+        List<String> calls = new ArrayList<>();
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitMethodInsn(int opcode, String owner, String method, String desc, boolean isInterface) {
+                        calls.add(owner + "." + method + desc);
+                    }
+                };
+            }
+        }, 0);
+        return calls;
+    }
+    
+    private List<Object> stringConstants(byte[] bytecode) {
+        List<Object> constants = new ArrayList<>();
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9) {
+                    @Override
+                    public void visitLdcInsn(Object value) {
+                        constants.add(value);
+                    }
+                };
+            }
+        }, 0);
+        return constants;
+    }
+    
+    private List<String> methodNames(Class<?> clazz) {
+        return Arrays.stream(clazz.getDeclaredMethods()).map(Method::getName).toList();
+    }
+    
     static class TestClassLoader extends ClassLoader {
         public Class<?> defineClass(String name, byte[] bytecode) {
             return defineClass(name, bytecode, 0, bytecode.length);
@@ -0,0 +1,83 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecisionTreeTest {
+    
+    private static final Map<String, List<String>> SHAPES = Map.of(
+        "Circle", List.of("Circle", "Square"),
+        "Square", List.of("Circle", "Square"));
+    
+    private DecisionTree tree(Pattern... arms) {
+        return DecisionTree.build(List.of(arms), SHAPES::get);
+    }
+    
+    private Pattern cons(Pattern head, Pattern tail) {
+        return new Pattern.Cons(head, tail);
+    }
+    
+    @Test
+    void testListMatchIsExhaustive() {
+        DecisionTree tree = tree(new Pattern.Nil(), cons(new Pattern.Var("h"), new Pattern.Var("t")));
+        
+        assertTrue(tree.isExhaustive());
+        assertEquals(Set.of(0, 1), tree.reachableArms());
+        assertInstanceOf(DecisionTree.Switch.class, tree);
+        assertNull(((DecisionTree.Switch) tree).fallback());
+    }
+    
+    @Test
+    void testMissingConstructorIsNotExhaustive() {
+        DecisionTree tree = tree(new Pattern.Constructor("Circle", java.util.Optional.of(new Pattern.Var("r"))));
+        
+        assertFalse(tree.isExhaustive());
+    }
+    
+    @Test
+    void testCoveredArmIsUnreachable() {
+        DecisionTree tree = tree(
+            cons(new Pattern.Wildcard(), new Pattern.Wildcard()),
+            cons(new Pattern.IntLit(1), new Pattern.Nil()),
+            new Pattern.Var("xs"));
+        
+        assertTrue(tree.isExhaustive());
+        assertEquals(Set.of(0, 2), tree.reachableArms());
+    }
+    
+    @Test
+    void testEachSubtermIsTestedOnce() {
+        DecisionTree tree = tree(
+            cons(new Pattern.IntLit(1), new Pattern.Nil()),
+            cons(new Pattern.IntLit(1), new Pattern.Var("rest")),
+            cons(new Pattern.Var("x"), new Pattern.Var("rest")),
+            new Pattern.Nil());
+        
+        DecisionTree.Switch root = (DecisionTree.Switch) tree;
+        assertEquals(DecisionTree.Occurrence.ROOT, root.occurrence());
+        assertEquals(2, root.branches().size());
+        DecisionTree.Switch head = (DecisionTree.Switch) root.branches().get(0).tree();
+        assertEquals(DecisionTree.Occurrence.ROOT.child(0), head.occurrence());
+        assertEquals(1, head.branches().size());
+        assertEquals(Map.of("x", DecisionTree.Occurrence.ROOT.child(0), "rest", DecisionTree.Occurrence.ROOT.child(1)),
+            ((DecisionTree.Leaf) head.fallback()).bindings());
+    }
+    
+    @Test
+    void testConstructorArmsCoverTheType() {
+        DecisionTree tree = tree(
+            new Pattern.Constructor("Circle", java.util.Optional.of(new Pattern.Var("r"))),
+            new Pattern.Constructor("Square", java.util.Optional.empty()));
+        
+        assertTrue(tree.isExhaustive());
+        assertEquals(Set.of(0, 1), tree.reachableArms());
+        DecisionTree.Switch root = (DecisionTree.Switch) tree;
+        assertEquals(2, root.branches().size());
+        assertNull(root.fallback());
+        assertEquals(Map.of("r", DecisionTree.Occurrence.ROOT.child(0)),
+            ((DecisionTree.Leaf) root.branches().get(0).tree()).bindings());
+    }
+}
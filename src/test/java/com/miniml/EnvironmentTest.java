@@ -140,4 +140,28 @@ public class EnvironmentTest {
         assertNotNull(child.getSlot("x"));
         assertNotNull(child.getSlot("y"));
     }
+    
+    @Test
+    void testNamedFramesGrow() {
+        for (int i = 0; i < 40; i++) {
+            env.define("v" + i, i);
+        }
+        
+        assertEquals(0, env.get("v0"));
+        assertEquals(39, env.get("v39"));
+    }
+    
+    @Test
+    void testSlotFrames() {
+        env.define("x", 10);
+        Environment view = env.withResolution(new Resolution());
+        Environment frame = view.frame(2);
+        frame.store(0, "a");
+        frame.store(1, "b");
+        
+        assertEquals("b", frame.getAt(Resolution.address(0, 1)));
+        assertEquals(10, frame.getAt(Resolution.address(2, 0)));
+        assertEquals(10, frame.get("x"));
+        assertThrows(RuntimeException.class, () -> frame.define("y", 1));
+    }
 }
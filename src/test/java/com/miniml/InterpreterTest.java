@@ -7,6 +7,8 @@ import com.miniml.expr.*;
 import static com.miniml.expr.Expr.Op;
 import static com.miniml.expr.Expr.UnOp;
 
+import com.miniml.runtime.ConsList;
+
 import java.util.*;
 
 public class InterpreterTest {
@@ -314,6 +316,17 @@ public class InterpreterTest {
         assertEquals(3, list.get(2));
     }
     
+    @Test
+    void testConsSharesTail() {
+        environment.define("xs", new ListLit(List.of(new IntLit(2), new IntLit(3))).eval(environment));
+        Object result = new Cons(new IntLit(1), new Var("xs")).eval(environment);
+        
+        assertTrue(result instanceof com.miniml.runtime.ConsList);
+        com.miniml.runtime.ConsList list = (com.miniml.runtime.ConsList) result;
+        assertEquals(List.of(1, 2, 3), list);
+        assertSame(environment.get("xs"), list.tail());
+    }
+    
     @Test
     void testSequenceEmpty() {
         Expr expr = new Sequence(List.of());
@@ -375,6 +388,32 @@ public class InterpreterTest {
         assertEquals(30, expr.eval(environment));
     }
     
+    @Test
+    void testTailCallsRunInConstantStack() {
+        Expr expr = new LetRec("loop", List.of("i", "acc"),
+            new If(new BinOp(Op.EQ, new Var("i"), new IntLit(0)),
+                new Var("acc"),
+                new App(new Var("loop"), List.of(
+                    new BinOp(Op.SUB, new Var("i"), new IntLit(1)),
+                    new BinOp(Op.ADD, new Var("acc"), new IntLit(2))))),
+            new App(new Var("loop"), List.of(new IntLit(1_000_000), new IntLit(0))));
+        
+        assertEquals(2_000_000, expr.eval(environment));
+    }
+    
+    @Test
+    void testTailCallsThroughMatch() {
+        environment.define("xs", ConsList.of(new Object[200_000]));
+        Expr expr = new LetRec("len", List.of("ys", "n"),
+            new Match(new Var("ys"), List.of(
+                new Match.MatchCase(new Pattern.Nil(), new Var("n")),
+                new Match.MatchCase(new Pattern.Cons(new Pattern.Wildcard(), new Pattern.Var("t")),
+                    new App(new Var("len"), List.of(new Var("t"), new BinOp(Op.ADD, new Var("n"), new IntLit(1))))))),
+            new App(new Var("len"), List.of(new Var("xs"), new IntLit(0))));
+        
+        assertEquals(200_000, expr.eval(environment));
+    }
+    
     private static String formatValue(Object value) {
         if (value == null) return "null";
         if (value instanceof com.miniml.Unit) return "()";
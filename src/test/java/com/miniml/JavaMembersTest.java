@@ -0,0 +1,49 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JavaMembersTest {
+
+    @Test
+    void testFindClassCachesHitsAndMisses() {
+        assertEquals(String.class, JavaMembers.findClass("java.lang.String").orElseThrow());
+        assertTrue(JavaMembers.findClass("com.example.DoesNotExist").isEmpty());
+        assertTrue(JavaMembers.findClass("com.example.DoesNotExist").isEmpty());
+        assertEquals(Math.class, JavaMembers.findClassOrLang("Math").orElseThrow());
+    }
+
+    @Test
+    void testMethodsAreIndexedByNameAndArity() {
+        List<JavaMembers.Member> abs = JavaMembers.methods(Math.class, "abs", 1);
+
+        assertEquals(4, abs.size());
+        assertTrue(abs.stream().allMatch(JavaMembers.Member::isStatic));
+        assertTrue(JavaMembers.methods(Math.class, "abs", 2).isEmpty());
+        assertSame(JavaMembers.methods(Math.class, "abs"), JavaMembers.methods(Math.class, "abs"));
+    }
+
+    @Test
+    void testMembersCarryPrecomputedSignatures() {
+        JavaMembers.Member substring = JavaMembers.methods(String.class, "substring", 2).get(0);
+
+        assertEquals("(II)Ljava/lang/String;", substring.descriptor());
+        assertArrayEquals(new String[] { "I", "I" }, substring.parameterDescriptors());
+        assertArrayEquals(new Type[] { Type.INT, Type.INT }, substring.parameterTypes());
+        assertEquals(Type.STRING, substring.returnType());
+    }
+
+    @Test
+    void testGenericClassesHaveNoGroundType() {
+        assertNull(JavaMembers.groundType(java.util.ArrayList.class));
+        assertEquals(new Type.TJava("java.lang.StringBuilder", List.of()), JavaMembers.groundType(StringBuilder.class));
+    }
+
+    @Test
+    void testConstructorsAndFields() {
+        assertFalse(JavaMembers.constructors(StringBuilder.class, 0).isEmpty());
+        assertEquals(double.class, JavaMembers.field(Math.class, "PI").orElseThrow().getType());
+        assertTrue(JavaMembers.field(Math.class, "TAU_NOT_THERE").isEmpty());
+    }
+}
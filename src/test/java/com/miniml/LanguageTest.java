@@ -17,6 +17,7 @@ class LanguageTest {
         typeInf.inferModule(module);
         
         Compiler compiler = new Compiler("TestClass", typeInf.getTypeMap(), typeInf.getInstantiations());
+        compiler.setLetRecTypes(typeInf.getLetRecTypes());
         byte[] bytecode = compiler.compileModule(module);
         
         TestClassLoader classLoader = new TestClassLoader();
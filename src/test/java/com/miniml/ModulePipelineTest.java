@@ -0,0 +1,63 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import java.lang.reflect.Method;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModulePipelineTest {
+    
+    private Class<?> load(ModulePipeline pipeline, String source) throws Exception {
+        byte[] bytecode = pipeline.compile(source);
+        Class<?> clazz = new CompilerTest.TestClassLoader().defineClass("StreamClass", bytecode);
+        Method main = clazz.getMethod("main", String[].class);
+        main.invoke(null, (Object) new String[0]);
+        return clazz;
+    }
+    
+    @Test
+    void testCompilesDeclarationsOneAtATime() throws Exception {
+        ModulePipeline pipeline = new ModulePipeline("StreamClass", "<test>");
+        Class<?> clazz = load(pipeline, """
+            fn twice (x: int): int = x * 2;
+            let limit = twice 5;
+            fn clamp (x: int): int = if x > limit then limit else x;
+            clamp 42""");
+        
+        assertEquals(3, pipeline.getFlushCount());
+        assertEquals(10, clazz.getField("limit").getInt(null));
+        assertEquals(10, clazz.getMethod("clamp", int.class).invoke(null, 42));
+    }
+    
+    @Test
+    void testForwardReferencesAreBufferedUntilResolved() throws Exception {
+        ModulePipeline pipeline = new ModulePipeline("StreamClass", "<test>");
+        Class<?> clazz = load(pipeline, """
+            fn id (x: int): int = x;
+            fn ping (n: int): int = if n == 0 then 0 else pong (n - 1);
+            fn pong (n: int): int = if n == 0 then 1 else ping (n - 1);
+            ping 7""");
+        
+        assertEquals(2, pipeline.getFlushCount());
+        assertEquals(1, clazz.getMethod("ping", int.class).invoke(null, 7));
+    }
+    
+    @Test
+    void testPolymorphicFunctionsAreCompiledGenerically() throws Exception {
+        ModulePipeline pipeline = new ModulePipeline("StreamClass", "<test>");
+        Class<?> clazz = load(pipeline, """
+            fn first (a: 'a) (b: 'b): 'a = a;
+            fn pick (x: int): int = first x 0;
+            pick 3""");
+        
+        assertEquals(3, clazz.getMethod("pick", int.class).invoke(null, 3));
+        assertTrue(pipeline.getModuleInterface().getExports().containsKey("first"));
+    }
+    
+    @Test
+    void testTypeErrorsAreReported() {
+        ModulePipeline pipeline = new ModulePipeline("StreamClass", "<test>");
+        assertThrows(TypeInference.TypeException.class, () -> pipeline.compile("""
+            fn bad (x: int): int = x + "one";
+            bad 1"""));
+    }
+}
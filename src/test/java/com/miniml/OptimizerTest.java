@@ -0,0 +1,67 @@
+package com.miniml;
+
+import com.miniml.expr.*;
+import org.junit.jupiter.api.Test;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizerTest {
+
+    private final Map<Expr, Type> typeMap = new IdentityHashMap<>();
+
+    private Expr optimize(String input) throws TypeInference.TypeException {
+        Lexer lexer = new Lexer(input);
+        List<Token> tokens = lexer.tokenize();
+        Parser parser = new Parser(tokens);
+        Expr expr = parser.parseExpr();
+        TypeInference inference = new TypeInference();
+        inference.infer(TypeEnv.empty(), expr);
+        inference.pruneTypeMap();
+        typeMap.putAll(inference.getTypeMap());
+        return new Optimizer(typeMap).optimize(expr);
+    }
+
+    @Test
+    void testFoldsArithmetic() throws TypeInference.TypeException {
+        Expr result = optimize("2 * 3 + 4");
+        assertEquals(new IntLit(10), result);
+        assertTrue(typeMap.get(result) instanceof Type.TInt);
+    }
+
+    @Test
+    void testDoesNotFoldDivisionByZero() throws TypeInference.TypeException {
+        Expr result = optimize("1 / 0");
+        assertTrue(result instanceof BinOp);
+    }
+
+    @Test
+    void testPrunesConstantBranch() throws TypeInference.TypeException {
+        assertEquals(new IntLit(1), optimize("if 1 < 2 then 1 else 2"));
+    }
+
+    @Test
+    void testPropagatesConstantsAndDropsLet() throws TypeInference.TypeException {
+        assertEquals(new IntLit(7), optimize("let x = 3 in x + 4"));
+    }
+
+    @Test
+    void testRemovesDeadPureLet() throws TypeInference.TypeException {
+        Expr result = optimize("let unused = [1, 2] in print 5");
+        assertTrue(result instanceof Print);
+    }
+
+    @Test
+    void testKeepsLetWithSideEffects() throws TypeInference.TypeException {
+        Expr result = optimize("let unused = print 1 in 5");
+        assertTrue(result instanceof Let);
+    }
+
+    @Test
+    void testCopyPropagationAvoidsCapture() throws TypeInference.TypeException {
+        Expr result = optimize("fun y -> let x = y in let y = 1 in x + y");
+        assertTrue(result instanceof Lambda(var params, Let(String name, Var(String value), var body))
+            && name.equals("x") && value.equals("y"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverloadSetTest {
+    
+    private final Type intFn = new Type.TFun(new Type.TInt(), new Type.TInt());
+    private final Type doubleFn = new Type.TFun(new Type.TDouble(), new Type.TDouble());
+    private final Type stringFn = new Type.TFun(new Type.TString(), new Type.TInt());
+    private final Type genericFn = new Type.TScheme(List.of("a"), new Type.TFun(new Type.TVar("a"), new Type.TVar("a")));
+    
+    private OverloadSet overloads() {
+        OverloadSet set = new OverloadSet();
+        set.add(doubleFn);
+        set.add(intFn);
+        set.add(genericFn);
+        set.add(stringFn);
+        return set;
+    }
+    
+    @Test
+    void testConcreteArgumentSelectsMatchingHeads() {
+        assertEquals(List.of(intFn, genericFn), overloads().matching(List.of(new Type.TInt())));
+        assertEquals(List.of(genericFn, stringFn), overloads().matching(List.of(new Type.TString())));
+    }
+    
+    @Test
+    void testNumericArgumentMatchesIntAndDouble() {
+        assertEquals(List.of(doubleFn, intFn, genericFn), overloads().matching(List.of(new Type.TNumeric("n"))));
+    }
+    
+    @Test
+    void testUnknownArgumentKeepsDeclarationOrder() {
+        assertEquals(List.of(doubleFn, intFn, genericFn, stringFn), overloads().matching(List.of(new Type.TVar("t"))));
+    }
+    
+    @Test
+    void testTooManyArgumentsMatchNothing() {
+        assertEquals(List.of(), overloads().matching(List.of(new Type.TInt(), new Type.TInt())));
+    }
+}
@@ -0,0 +1,83 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import com.miniml.expr.*;
+import com.miniml.runtime.ConsList;
+
+import java.util.*;
+
+public class PatternMatcherTest {
+    private final Environment environment = new Environment();
+    
+    private Environment frameFor(Pattern pattern, Resolution[] out) {
+        Match match = new Match(new com.miniml.expr.Unit(), List.of(new Match.MatchCase(pattern, new com.miniml.expr.Unit())));
+        Resolution resolution = Resolver.resolve(match, environment);
+        out[0] = resolution;
+        int size = (int) resolution.get(match);
+        return environment.withResolution(resolution).frame(size);
+    }
+    
+    @Test
+    void testLiteralsAndWildcard() {
+        Resolution empty = new Resolution();
+        
+        assertTrue(PatternMatcher.compile(new Pattern.IntLit(3), empty).matches(3, environment));
+        assertFalse(PatternMatcher.compile(new Pattern.IntLit(3), empty).matches(4, environment));
+        assertFalse(PatternMatcher.compile(new Pattern.IntLit(3), empty).matches("3", environment));
+        assertTrue(PatternMatcher.compile(new Pattern.StringLit("a"), empty).matches("a", environment));
+        assertTrue(PatternMatcher.compile(new Pattern.BoolLit(false), empty).matches(false, environment));
+        assertTrue(PatternMatcher.compile(new Pattern.Wildcard(), empty).matches(null, environment));
+        assertTrue(PatternMatcher.compile(new Pattern.Nil(), empty).matches(ConsList.NIL, environment));
+    }
+    
+    @Test
+    void testConsBindsIntoSlots() {
+        Pattern pattern = new Pattern.Cons(new Pattern.Var("a"), new Pattern.Cons(new Pattern.Var("b"), new Pattern.Var("rest")));
+        Resolution[] resolution = new Resolution[1];
+        Environment frame = frameFor(pattern, resolution);
+        PatternMatcher matcher = PatternMatcher.compile(pattern, resolution[0]);
+        
+        assertTrue(matcher.matches(ConsList.of(1, 2, 3), frame));
+        assertEquals(1, frame.load(0));
+        assertEquals(2, frame.load(1));
+        assertEquals(ConsList.of(3), frame.load(2));
+        assertFalse(matcher.matches(ConsList.of(1), frame));
+    }
+    
+    @Test
+    void testConsOverJavaLists() {
+        Pattern pattern = new Pattern.Cons(new Pattern.Var("x"), new Pattern.Var("xs"));
+        Resolution[] resolution = new Resolution[1];
+        Environment frame = frameFor(pattern, resolution);
+        PatternMatcher matcher = PatternMatcher.compile(pattern, resolution[0]);
+        
+        assertTrue(matcher.matches(new ArrayList<>(List.of(7, 8)), frame));
+        assertEquals(7, frame.load(0));
+        assertEquals(ConsList.of(8), frame.load(1));
+    }
+    
+    @Test
+    void testSingletonAndHeadOnlyShapes() {
+        Resolution empty = new Resolution();
+        PatternMatcher singleton = PatternMatcher.compile(new Pattern.Cons(new Pattern.IntLit(1), new Pattern.Nil()), empty);
+        PatternMatcher headOnly = PatternMatcher.compile(new Pattern.Cons(new Pattern.IntLit(1), new Pattern.Wildcard()), empty);
+        
+        assertTrue(singleton.matches(ConsList.of(1), environment));
+        assertFalse(singleton.matches(ConsList.of(1, 2), environment));
+        assertTrue(headOnly.matches(ConsList.of(1, 2), environment));
+        assertFalse(headOnly.matches(ConsList.NIL, environment));
+    }
+    
+    @Test
+    void testResultConstructors() {
+        Pattern pattern = new Pattern.Constructor("Ok", Optional.of(new Pattern.Var("v")));
+        Resolution[] resolution = new Resolution[1];
+        Environment frame = frameFor(pattern, resolution);
+        PatternMatcher matcher = PatternMatcher.compile(pattern, resolution[0]);
+        
+        assertTrue(matcher.matches(new Result.Ok<Object, Object>(5), frame));
+        assertEquals(5, frame.load(0));
+        assertFalse(matcher.matches(new Result.Error<Object, Object>("bad"), frame));
+    }
+}
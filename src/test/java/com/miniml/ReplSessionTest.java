@@ -135,4 +135,83 @@ public class ReplSessionTest {
         assertThrows(Exception.class, () -> repl.eval("undefined_var"));
     }
 
+    @Test
+    public void testRedefinitionReinfersDependents() throws Exception {
+        repl.eval("let x = 1");
+        repl.eval("let y = x + x");
+        repl.eval("let z = 10");
+        
+        ReplSession.EvalResult result = repl.eval("let x = 2.5");
+        System.setOut(originalOut);
+        
+        assertEquals(new Type.TDouble(), result.type);
+        assertEquals(new Type.TDouble(), repl.inferType("y"));
+        assertEquals(new Type.TInt(), repl.inferType("z"));
+    }
+
+    @Test
+    public void testFailedRedefinitionKeepsPreviousTypes() throws Exception {
+        repl.eval("let x = 1");
+        repl.eval("let y = x + 1");
+        
+        assertThrows(Exception.class, () -> repl.eval("let x = \"one\""));
+        System.setOut(originalOut);
+        
+        assertEquals(new Type.TInt(), repl.inferType("x"));
+        assertEquals(new Type.TInt(), repl.inferType("y"));
+    }
+
+    @Test
+    public void testRedefinitionFailingInDependentKeepsPreviousValues() throws Exception {
+        repl.eval("let x = 1");
+        repl.eval("let y = 100 / (x + 0)");
+        
+        assertThrows(ArithmeticException.class, () -> repl.eval("let x = 0"));
+        ReplSession.EvalResult z = repl.eval("let z = x + 0");
+        ReplSession.EvalResult w = repl.eval("let w = y + 0");
+        repl.eval("let x = 4");
+        ReplSession.EvalResult v = repl.eval("let v = y + 0");
+        System.setOut(originalOut);
+        
+        assertEquals(1, z.value);
+        assertEquals(100, w.value);
+        assertEquals(25, v.value);
+    }
+
+    @Test
+    public void testRedefinitionCannotCreateCycle() throws Exception {
+        repl.eval("let x = 1");
+        repl.eval("let y = x + 1");
+        System.setOut(originalOut);
+        
+        assertThrows(Exception.class, () -> repl.eval("let x = y"));
+        assertThrows(Exception.class, () -> repl.eval("let x = x + 1"));
+    }
+
+    @Test
+    public void testClosureCompiledLetDeclarations() throws Exception {
+        repl.setEvaluation(ReplSession.Evaluation.CLOSURE_COMPILED);
+        repl.eval("let square = fun x -> x * x");
+        ReplSession.EvalResult result = repl.eval("let y = square 7");
+        System.setOut(originalOut);
+        
+        assertEquals(49, result.value);
+        assertEquals(new Type.TInt(), result.type);
+    }
+
+    @Test
+    public void testSwitchingEvaluationKeepsCompiledClosuresCallable() throws Exception {
+        repl.setEvaluation(ReplSession.Evaluation.CLOSURE_COMPILED);
+        repl.eval("let sq = fun x -> x * x");
+        repl.setEvaluation(ReplSession.Evaluation.TREE_WALK);
+        ReplSession.EvalResult result = repl.eval("let y = sq 7");
+        repl.eval("let twice = fun x -> sq (sq x)");
+        ReplSession.EvalResult call = repl.eval("let z = twice 3");
+        System.setOut(originalOut);
+        
+        assertEquals(49, result.value);
+        assertEquals(new Type.TInt(), result.type);
+        assertEquals(81, call.value);
+    }
+
 }
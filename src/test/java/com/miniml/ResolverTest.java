@@ -0,0 +1,106 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import com.miniml.expr.*;
+import static com.miniml.expr.Expr.Op;
+
+import java.util.*;
+
+public class ResolverTest {
+    
+    @Test
+    void testLocalsResolveToDepthAndSlot() {
+        Var x = new Var("x");
+        Var y = new Var("y");
+        Expr expr = new Let("x", new IntLit(1), new Let("y", new IntLit(2), new BinOp(Op.ADD, x, y)));
+        
+        Resolution resolution = Resolver.resolve(expr, new Environment());
+        
+        assertEquals(Resolution.address(1, 0), resolution.get(x));
+        assertEquals(Resolution.address(0, 0), resolution.get(y));
+    }
+    
+    @Test
+    void testGlobalsResolvePastTheResolutionFrame() {
+        Environment env = new Environment();
+        env.define("a", 1);
+        env.define("b", 40);
+        Var b = new Var("b");
+        Expr expr = new Let("x", new IntLit(2), new BinOp(Op.ADD, b, new Var("x")));
+        
+        Resolution resolution = Resolver.resolve(expr, env);
+        
+        assertEquals(Resolution.address(2, 1), resolution.get(b));
+        assertEquals(42, expr.eval(env));
+    }
+    
+    @Test
+    void testUnknownNamesStayUnresolved() {
+        Var z = new Var("z");
+        
+        Resolution resolution = Resolver.resolve(new Lambda(List.of("x"), z), new Environment());
+        
+        assertEquals(Resolution.UNRESOLVED, resolution.get(z));
+    }
+    
+    @Test
+    void testLambdaParametersAreSlots() {
+        Var first = new Var("a");
+        Var second = new Var("b");
+        Expr lambda = new Lambda(List.of("a", "b"), new BinOp(Op.SUB, first, second));
+        
+        Resolution resolution = Resolver.resolve(lambda, new Environment());
+        
+        assertEquals(Resolution.address(0, 0), resolution.get(first));
+        assertEquals(Resolution.address(0, 1), resolution.get(second));
+        assertEquals(7, new App(lambda, List.of(new IntLit(10), new IntLit(3))).eval(new Environment()));
+    }
+    
+    @Test
+    void testMatchFrameIsSizedForLargestCase() {
+        Pattern.Var h = new Pattern.Var("h");
+        Pattern.Var t = new Pattern.Var("t");
+        Match match = new Match(new ListLit(List.of(new IntLit(5), new IntLit(6))), List.of(
+            new Match.MatchCase(new Pattern.Nil(), new IntLit(0)),
+            new Match.MatchCase(new Pattern.Cons(h, t), new Var("h"))
+        ));
+        
+        Resolution resolution = Resolver.resolve(match, new Environment());
+        
+        assertEquals(2, resolution.get(match));
+        assertEquals(0, resolution.get(h));
+        assertEquals(1, resolution.get(t));
+        assertEquals(5, match.eval(new Environment()));
+    }
+    
+    @Test
+    void testClosuresCaptureResolvedFrames() {
+        Expr expr = new Let("n", new IntLit(10),
+            new Let("add", new Lambda(List.of("x"), new BinOp(Op.ADD, new Var("x"), new Var("n"))),
+                new Let("n", new IntLit(100),
+                    new App(new Var("add"), List.of(new Var("n"))))));
+        
+        assertEquals(110, expr.eval(new Environment()));
+    }
+    
+    @Test
+    void testRecursiveFunctionsUseSlots() {
+        Expr body = new If(
+            new BinOp(Op.LE, new Var("n"), new IntLit(1)),
+            new IntLit(1),
+            new BinOp(Op.MUL, new Var("n"),
+                new App(new Var("fact"), List.of(new BinOp(Op.SUB, new Var("n"), new IntLit(1))))));
+        Expr expr = new LetRec("fact", List.of("n"), body, new App(new Var("fact"), List.of(new IntLit(5))));
+        
+        assertEquals(120, expr.eval(new Environment()));
+    }
+    
+    @Test
+    void testSharedNodeInDifferentScopesIsRejected() {
+        Var x = new Var("x");
+        Expr expr = new Let("x", new IntLit(1), new Let("y", new IntLit(2), new Sequence(List.of(x, new Let("z", new IntLit(3), x)))));
+        
+        assertThrows(IllegalStateException.class, () -> Resolver.resolve(expr, new Environment()));
+    }
+}
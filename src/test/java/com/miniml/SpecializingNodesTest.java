@@ -0,0 +1,105 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import com.miniml.ClosureCompiler.Node;
+import com.miniml.SpecializingNodes.State;
+import com.miniml.expr.*;
+import static com.miniml.expr.Expr.Op;
+
+import java.util.*;
+
+public class SpecializingNodesTest {
+    private final Environment environment = new Environment();
+    
+    private static Node values(Object... values) {
+        Iterator<Object> iterator = Arrays.asList(values).iterator();
+        return env -> iterator.next();
+    }
+    
+    @Test
+    void testBinOpSpecializesToInt() {
+        SpecializingNodes.BinOpNode node = new SpecializingNodes.BinOpNode(Op.ADD, values(1, 2), values(10, 20));
+        
+        assertEquals(State.UNINITIALIZED, node.state());
+        assertEquals(11, node.exec(environment));
+        assertEquals(State.INT, node.state());
+        assertEquals(22, node.exec(environment));
+        assertEquals(State.INT, node.state());
+    }
+    
+    @Test
+    void testBinOpDeoptimizesOnGuardMiss() {
+        SpecializingNodes.BinOpNode node = new SpecializingNodes.BinOpNode(Op.MUL, values(2, 1.5, 3), values(4, 2, 5));
+        
+        assertEquals(8, node.exec(environment));
+        assertEquals(3.0, node.exec(environment));
+        assertEquals(State.GENERIC, node.state());
+        assertEquals(15, node.exec(environment));
+        assertEquals(State.GENERIC, node.state());
+    }
+    
+    @Test
+    void testBinOpSpecializesStringEquality() {
+        SpecializingNodes.BinOpNode node = new SpecializingNodes.BinOpNode(Op.NE, values("a", "a"), values("b", "a"));
+        
+        assertEquals(true, node.exec(environment));
+        assertEquals(State.STRING, node.state());
+        assertEquals(false, node.exec(environment));
+    }
+    
+    @Test
+    void testAppCachesMonomorphicCallee() {
+        Environment view = environment.withResolution(new Resolution());
+        ClosureCompiler.Closure inc = new ClosureCompiler.Closure(1, env -> (int) env.load(0) + 1, view);
+        ClosureCompiler.Closure dec = new ClosureCompiler.Closure(1, env -> (int) env.load(0) - 1, view);
+        SpecializingNodes.AppNode node = new SpecializingNodes.AppNode(values(inc, inc, dec), new Node[] { values(1, 2, 3) }, false);
+        
+        assertEquals(2, node.exec(view));
+        assertEquals(State.CACHED, node.state());
+        assertEquals(3, node.exec(view));
+        assertEquals(2, node.exec(view));
+        assertEquals(State.CLOSURE, node.state());
+    }
+    
+    @Test
+    void testMatchSkipsArmsThatCannotMatchObservedKind() {
+        Pattern[] patterns = { new Pattern.IntLit(0), new Pattern.Nil(), new Pattern.Wildcard() };
+        Node[] bodies = { env -> "zero", env -> "empty", env -> "other" };
+        PatternMatcher[] matchers = new PatternMatcher[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            matchers[i] = PatternMatcher.compile(patterns[i], new Resolution());
+        }
+        SpecializingNodes.MatchNode node = new SpecializingNodes.MatchNode(values(0, 7, List.of()), patterns, matchers, bodies, 0);
+        
+        assertEquals("zero", node.exec(environment));
+        assertEquals(State.CACHED, node.state());
+        assertEquals("other", node.exec(environment));
+        assertEquals("empty", node.exec(environment));
+        assertEquals(State.GENERIC, node.state());
+    }
+    
+    @Test
+    void testJavaInstanceCallCachesReceiverClass() {
+        SpecializingNodes.JavaInstanceCallNode node = new SpecializingNodes.JavaInstanceCallNode("isEmpty", values("", "a", new ArrayList<>(List.of(1))), new Node[0]);
+        
+        assertEquals(true, node.exec(environment));
+        assertEquals(State.CACHED, node.state());
+        assertEquals(false, node.exec(environment));
+        assertEquals(false, node.exec(environment));
+        assertEquals(State.GENERIC, node.state());
+    }
+    
+    @Test
+    void testUntypedFibonacciRunsThroughSpecializedNodes() {
+        Expr body = new If(
+            new BinOp(Op.LE, new Var("n"), new IntLit(1)),
+            new Var("n"),
+            new BinOp(Op.ADD,
+                new App(new Var("fib"), List.of(new BinOp(Op.SUB, new Var("n"), new IntLit(1)))),
+                new App(new Var("fib"), List.of(new BinOp(Op.SUB, new Var("n"), new IntLit(2))))));
+        Expr expr = new LetRec("fib", List.of("n"), body, new App(new Var("fib"), List.of(new IntLit(20))));
+        
+        assertEquals(6765, new ClosureCompiler(new IdentityHashMap<>()).run(expr, environment));
+    }
+}
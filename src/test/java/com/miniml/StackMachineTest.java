@@ -0,0 +1,77 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import com.miniml.expr.*;
+import com.miniml.runtime.ConsList;
+import static com.miniml.expr.Expr.Op;
+
+import java.util.*;
+
+public class StackMachineTest {
+    private final Environment environment = new Environment();
+    
+    @Test
+    void testArithmeticAndLet() {
+        Expr expr = new Let("x", new IntLit(6), new BinOp(Op.MUL, new Var("x"), new BinOp(Op.ADD, new IntLit(3), new IntLit(4))));
+        
+        assertEquals(42, StackMachine.evaluate(expr, environment));
+    }
+    
+    @Test
+    void testSequenceKeepsLastValue() {
+        Expr expr = new Sequence(List.of(new IntLit(1), new StringLit("two"), new BoolLit(true)));
+        
+        assertEquals(true, StackMachine.evaluate(expr, environment));
+        assertEquals(com.miniml.Unit.INSTANCE, StackMachine.evaluate(new Sequence(List.of()), environment));
+    }
+    
+    @Test
+    void testListsInterpolationAndConstructors() {
+        Expr list = new Cons(new IntLit(1), new ListLit(List.of(new IntLit(2), new IntLit(3))));
+        Expr interp = new Let("n", new IntLit(5), new StringInterp(List.of("n=", new Var("n"), "!")));
+        
+        assertEquals(ConsList.of(1, 2, 3), StackMachine.evaluate(list, environment));
+        assertEquals("n=5!", StackMachine.evaluate(interp, environment));
+        assertEquals(new Result.Ok<Object, Object>(7), StackMachine.evaluate(new Constructor("Ok", Optional.of(new IntLit(7))), environment));
+    }
+    
+    @Test
+    void testJavaCalls() {
+        Expr expr = new JavaInstanceCall("String", "length", new JavaCall("java.lang.String", "valueOf", List.of(new IntLit(12345))), List.of());
+        
+        assertEquals(5, StackMachine.evaluate(expr, environment));
+    }
+    
+    @Test
+    void testNonTailRecursionUsesHeapStack() {
+        Expr body = new If(
+            new BinOp(Op.EQ, new Var("n"), new IntLit(0)),
+            new IntLit(0),
+            new BinOp(Op.ADD, new IntLit(1), new App(new Var("count"), List.of(new BinOp(Op.SUB, new Var("n"), new IntLit(1))))));
+        Expr expr = new LetRec("count", List.of("n"), body, new App(new Var("count"), List.of(new IntLit(200_000))));
+        
+        assertEquals(200_000, StackMachine.evaluate(expr, environment));
+    }
+    
+    @Test
+    void testRecursiveListFunctionOverLongList() {
+        environment.define("xs", ConsList.of(new Object[300_000]));
+        Expr expr = new LetRec("len", List.of("ys"),
+            new Match(new Var("ys"), List.of(
+                new Match.MatchCase(new Pattern.Nil(), new IntLit(0)),
+                new Match.MatchCase(new Pattern.Cons(new Pattern.Wildcard(), new Pattern.Var("t")),
+                    new BinOp(Op.ADD, new IntLit(1), new App(new Var("len"), List.of(new Var("t"))))))),
+            new App(new Var("len"), List.of(new Var("xs"))));
+        
+        assertEquals(300_000, StackMachine.evaluate(expr, environment));
+    }
+    
+    @Test
+    void testClosuresInteroperateWithTreeWalker() {
+        environment.define("twice", new Lambda(List.of("x"), new BinOp(Op.MUL, new Var("x"), new IntLit(2))).eval(environment));
+        Expr expr = new App(new Var("twice"), List.of(new IntLit(21)));
+        
+        assertEquals(42, StackMachine.evaluate(expr, environment));
+    }
+}
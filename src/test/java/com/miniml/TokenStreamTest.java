@@ -0,0 +1,39 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenStreamTest {
+    
+    @Test
+    void testPullsTokensLazily() {
+        TokenStream tokens = new TokenStream(new Lexer("fn f x = x + 1;"));
+        
+        assertEquals(Token.Type.FN, tokens.get(0).type);
+        assertEquals(1, tokens.buffered());
+        assertEquals(Token.Type.IDENT, tokens.get(2).type);
+        assertEquals(3, tokens.buffered());
+    }
+    
+    @Test
+    void testReleaseDropsConsumedTokens() {
+        TokenStream tokens = new TokenStream(new Lexer("a b c d"));
+        
+        assertEquals("d", tokens.get(3).value);
+        tokens.release(3);
+        
+        assertEquals(1, tokens.buffered());
+        assertEquals("d", tokens.get(3).value);
+        assertEquals(Token.Type.EOF, tokens.get(4).type);
+    }
+    
+    @Test
+    void testReadsPastEndReturnEof() {
+        TokenStream tokens = new TokenStream(new Lexer("x"));
+        
+        assertFalse(tokens.has(5));
+        assertEquals(Token.Type.EOF, tokens.get(5).type);
+        tokens.release(10);
+        assertEquals(Token.Type.EOF, tokens.get(10).type);
+    }
+}
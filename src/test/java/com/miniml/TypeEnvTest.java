@@ -0,0 +1,44 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeEnvTest {
+    
+    @Test
+    void testExtendLeavesOriginalUnchanged() {
+        TypeEnv outer = TypeEnv.empty().extend("x", new Type.TInt());
+        TypeEnv inner = outer.extend("x", new Type.TString()).extend("y", new Type.TBool());
+        
+        assertEquals(new Type.TInt(), outer.get("x"));
+        assertFalse(outer.containsKey("y"));
+        assertEquals(new Type.TString(), inner.get("x"));
+        assertEquals(new Type.TBool(), inner.get("y"));
+    }
+    
+    @Test
+    void testManyBindings() {
+        TypeEnv env = TypeEnv.empty();
+        for (int i = 0; i < 5000; i++) {
+            env = env.extend("v" + i, new Type.TVar("t" + i));
+        }
+        
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(new Type.TVar("t" + i), env.get("v" + i));
+        }
+        assertEquals(5000, env.toMap().size());
+        assertNull(env.get("v5000"));
+    }
+    
+    @Test
+    void testCollidingHashes() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        TypeEnv env = TypeEnv.empty().extend("Aa", new Type.TInt()).extend("BB", new Type.TDouble());
+        TypeEnv shadowed = env.extend("Aa", new Type.TString());
+        
+        assertEquals(new Type.TInt(), env.get("Aa"));
+        assertEquals(new Type.TDouble(), env.get("BB"));
+        assertEquals(new Type.TString(), shadowed.get("Aa"));
+        assertEquals(new Type.TDouble(), shadowed.get("BB"));
+    }
+}
@@ -2,7 +2,6 @@ package com.miniml;
 import com.miniml.expr.*;
 
 import org.junit.jupiter.api.Test;
-import java.util.HashMap;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -14,7 +13,43 @@ class TypeInferenceTest {
         Parser parser = new Parser(tokens);
         Expr expr = parser.parseExpr();
         TypeInference inference = new TypeInference();
-        return inference.infer(new HashMap<>(), expr);
+        return inference.infer(TypeEnv.empty(), expr);
+    }
+    
+    private TypeInference inferModule(String input) throws TypeInference.TypeException {
+        Parser parser = new Parser(new Lexer(input).tokenize());
+        TypeInference inference = new TypeInference();
+        inference.inferModule(parser.parseModule());
+        return inference;
+    }
+    
+    @Test
+    void testIndependentFunctionsInferInAnyOrder() throws TypeInference.TypeException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            source.append("fn f").append(i).append(" (x: int): int = x + ").append(i).append(";\n");
+            source.append("fn g").append(i).append(" (y: int): int = f").append(i).append(" y * 2;\n");
+        }
+        source.append("g49 1");
+        
+        TypeInference inference = inferModule(source.toString());
+        
+        Type expected = new Type.TFun(new Type.TInt(), new Type.TInt());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(expected, inference.getLetRecTypes().get("f" + i));
+            assertEquals(expected, inference.getLetRecTypes().get("g" + i));
+        }
+    }
+    
+    @Test
+    void testFirstFailingFunctionIsReported() {
+        TypeInference.TypeException error = assertThrows(TypeInference.TypeException.class, () -> inferModule("""
+            fn ok (x: int): int = x;
+            fn bad1 (x: int): int = undefined_one;
+            fn bad2 (x: int): int = undefined_two;
+            ok 1"""));
+        
+        assertTrue(error.getMessage().contains("undefined_one"));
     }
     
     @Test
@@ -142,6 +177,18 @@ class TypeInferenceTest {
         assertTrue(type instanceof Type.TInt);
     }
     
+    @Test
+    void testLetBoundLambdaIsPolymorphic() throws TypeInference.TypeException {
+        Type type = infer("let id = fun x -> x in let b = id (true) in if b then id 1 else 2");
+        assertEquals(new Type.TInt(), type);
+    }
+    
+    @Test
+    void testLetDoesNotGeneralizeEnclosingParameter() {
+        assertThrows(TypeInference.TypeException.class, () -> 
+            infer("fun y -> let g = fun x -> y in if g 1 then g 2 + 1 else 0"));
+    }
+    
     @Test
     void testConsList() throws TypeInference.TypeException {
         Type type = infer("1 :: [2, 3]");
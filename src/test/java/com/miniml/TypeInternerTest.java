@@ -0,0 +1,31 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeInternerTest {
+    
+    @Test
+    void testGroundTypesAreShared() {
+        assertSame(Type.list(Type.INT), Type.list(Type.INT));
+        assertSame(Type.fun(Type.INT, Type.list(Type.DOUBLE)), Type.fun(Type.INT, Type.list(Type.DOUBLE)));
+        assertSame(Type.name("shape"), Type.name("shape"));
+        assertNotSame(Type.list(Type.INT), Type.list(Type.DOUBLE));
+    }
+    
+    @Test
+    void testTypesWithVariablesAreNotShared() {
+        Type var = new Type.TVar("a");
+        
+        assertNotSame(Type.list(var), Type.list(var));
+        assertEquals(Type.list(var), Type.list(var));
+    }
+    
+    @Test
+    void testInternCanonicalizesStructurallyEqualTypes() {
+        Type built = new Type.TFun(new Type.TInt(), new Type.TList(new Type.TBool()));
+        
+        assertSame(Type.fun(Type.INT, Type.list(Type.BOOL)), Type.intern(built));
+        assertEquals(built, Type.intern(built));
+    }
+}
@@ -0,0 +1,66 @@
+package com.miniml;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypeVariablesTest {
+
+    private final Type a = new Type.TVar("a");
+    private final Type b = new Type.TVar("b");
+    private final Type c = new Type.TVar("c");
+
+    @Test
+    void testUnboundVariableIsItsOwnRepresentative() {
+        TypeVariables variables = new TypeVariables();
+
+        assertEquals(a, variables.find(a));
+    }
+
+    @Test
+    void testUnionedVariablesShareBinding() {
+        TypeVariables variables = new TypeVariables();
+        variables.bind(a, b);
+        variables.bind(c, a);
+        variables.bind(b, new Type.TInt());
+
+        assertEquals(new Type.TInt(), variables.find(a));
+        assertEquals(new Type.TInt(), variables.find(c));
+    }
+
+    @Test
+    void testNumericVariableRepresentsMixedClass() {
+        TypeVariables variables = new TypeVariables();
+        Type n = new Type.TNumeric("n");
+        variables.bind(n, a);
+
+        assertEquals(n, variables.find(a));
+    }
+
+    @Test
+    void testFreshVariablesCarryTheirCell() {
+        TypeVariables variables = new TypeVariables();
+        Type first = variables.freshVar("t0", 0);
+        Type second = variables.freshNumeric("n1", 0);
+        variables.bind(new Type.TVar("t0"), Type.INT);
+
+        assertEquals(0, ((Type.TVar) first).cell());
+        assertEquals(1, ((Type.TNumeric) second).cell());
+        assertEquals(Type.INT, variables.find(first));
+        assertEquals(second, variables.find(new Type.TNumeric("n1")));
+    }
+
+    @Test
+    void testRollbackUndoesBindingsSinceMark() {
+        TypeVariables variables = new TypeVariables();
+        variables.bind(a, b);
+
+        int mark = variables.mark();
+        variables.bind(c, a);
+        variables.bind(a, new Type.TString());
+        variables.rollback(mark);
+
+        assertEquals(c, variables.find(c));
+        assertEquals(variables.find(b), variables.find(a));
+        assertInstanceOf(Type.TVar.class, variables.find(a));
+    }
+}
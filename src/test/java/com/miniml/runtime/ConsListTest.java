@@ -0,0 +1,58 @@
+package com.miniml.runtime;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class ConsListTest {
+    
+    @Test
+    void testConsSharesTail() {
+        ConsList tail = ConsList.of("b", "c");
+        ConsList list = ConsList.cons("a", tail);
+        
+        assertEquals(3, list.size());
+        assertEquals("a", list.head());
+        assertSame(tail, list.tail());
+        assertEquals(List.of("a", "b", "c"), list);
+        assertEquals("[a, b, c]", list.toString());
+    }
+    
+    @Test
+    void testIntNodesReadUnboxed() {
+        ConsList list = IntConsList.ofInts(1, 2, 3);
+        
+        assertInstanceOf(IntConsList.class, list);
+        assertEquals(1, list.headInt());
+        assertEquals(2, list.tail().headInt());
+        assertEquals(List.of(1, 2, 3), list);
+    }
+    
+    @Test
+    void testDoubleNodesReadUnboxed() {
+        ConsList list = DoubleConsList.cons(1.5, DoubleConsList.ofDoubles(2.5));
+        
+        assertEquals(1.5, list.headDouble());
+        assertEquals(2.5, list.tail().headDouble());
+        assertEquals(List.of(1.5, 2.5), list);
+    }
+    
+    @Test
+    void testMixedNodesFallBack() {
+        ConsList list = ConsList.cons(0, IntConsList.ofInts(1, 2));
+        
+        assertEquals(0, list.headInt());
+        assertEquals(1, list.tail().head());
+        assertEquals(List.of(0, 1, 2), list);
+        assertEquals(List.of(0, 1, 2).hashCode(), list.hashCode());
+    }
+    
+    @Test
+    void testEmptyList() {
+        assertTrue(ConsList.NIL.isEmpty());
+        assertEquals("[]", ConsList.NIL.toString());
+        assertThrows(java.util.NoSuchElementException.class, () -> ConsList.NIL.head());
+        assertThrows(java.util.NoSuchElementException.class, () -> ConsList.NIL.tail());
+    }
+}
@@ -0,0 +1,72 @@
+package com.miniml.runtime;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+public class FnTest {
+    
+    @Test
+    void testSpecializedFunctionIsCallableBoxed() {
+        Fn.IntToInt twice = x -> x * 2;
+        
+        assertEquals(6, twice.applyIntToInt(3));
+        assertEquals(6, twice.apply(3));
+        assertEquals(6, twice.applyIntToObj(3));
+    }
+    
+    @Test
+    void testGenericFunctionIsCallableUnboxed() {
+        Fn half = x -> (Double) x / 2;
+        
+        assertEquals(1.5, half.applyDoubleToDouble(3.0));
+        assertEquals(1.5, half.applyDoubleToObj(3.0));
+    }
+    
+    @Test
+    void testAdaptersConvertBetweenSpecializations() {
+        Fn.ObjToBool isEmpty = s -> ((String) s).isEmpty();
+        
+        assertTrue(isEmpty.applyObjToBool(""));
+        assertEquals(Boolean.FALSE, isEmpty.apply("x"));
+    }
+    
+    @Test
+    void testCurriedFunctionAppliesFullyOrPartially() throws Exception {
+        CurriedFn add = CurriedFn.of(MethodHandles.lookup().findStatic(
+            FnTest.class, "add", MethodType.methodType(int.class, int.class, int.class)));
+        
+        assertEquals(2, add.arity());
+        assertEquals(7, add.applyN(new Object[] { 3, 4 }));
+        
+        Fn inc = (Fn) add.apply(1);
+        assertEquals(1, inc.arity());
+        assertEquals(11, inc.applyIntToInt(10));
+        assertEquals(5, ((Fn) add.applyN(new Object[] { 2 })).apply(3));
+    }
+    
+    @Test
+    void testExactHandleSkipsTheArgumentArray() throws Throwable {
+        CurriedFn add3 = CurriedFn.of(MethodHandles.lookup().findStatic(
+            FnTest.class, "add3", MethodType.methodType(int.class, int.class, int.class, int.class)));
+        MethodType intsToInt = MethodType.methodType(int.class, int.class, int.class);
+        
+        Object bound = add3.applyN(new Object[] { 100 });
+        int full = (int) CurriedFn.exact(bound, intsToInt).invokeExact(2, 3);
+        assertEquals(105, full);
+        
+        Fn curried = x -> (Fn.IntToInt) y -> (Integer) x * y;
+        int adapted = (int) CurriedFn.exact(curried, intsToInt).invokeExact(6, 7);
+        assertEquals(42, adapted);
+    }
+    
+    private static int add3(int a, int b, int c) {
+        return a + b + c;
+    }
+    
+    private static int add(int a, int b) {
+        return a + b;
+    }
+}